@@ -0,0 +1,81 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.profile.LoadProfileLibrary;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * Fleets and collaborators shared by the benchmarks, built without Spring.
+ */
+final class BenchmarkFixtures {
+
+    static final LocalDateTime START = LocalDateTime.of(2026, 6, 21, 12, 0);
+
+    // Generated once and reused by every fork
+    private static final String LOAD_PROFILE_DIR = "target/jmh-load-profiles";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * No logback config is on the benchmark classpath, so the root logger
+     * defaults to DEBUG; raise it so log lines below {@code level} cost what
+     * they cost in production instead of flooding the console.
+     */
+    static void quietLogging(ch.qos.logback.classic.Level level) {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(level);
+    }
+
+    /**
+     * Sites {@code 0..size-1} with half-charged 10 kWh batteries, spread over
+     * a few degrees of latitude and longitude so several solar regions exist.
+     */
+    static MeterStateStore fleet(int size) {
+        MeterStateStore fleet = new MeterStateStore();
+        for (int i = 0; i < size; i++) {
+            fleet.upsert(snapshot(i));
+        }
+        return fleet;
+    }
+
+    static MeterSnapshot snapshot(long siteId) {
+        int i = (int) (siteId % 1_000_000);
+        return MeterSnapshot.builder()
+                .meterId(siteId + 1)
+                .siteId(siteId)
+                .timestamp(START)
+                .batteryCapacityWh(10000.0)
+                .batteryRemainingWh(1000.0 + (i % 90) * 100.0)
+                .batteryMode(BatteryMode.AUTO)
+                .chargingStatus(ChargingStatus.IDLE)
+                .batterySoc(10 + i % 90)
+                .solarProductionW(0.0)
+                .homeConsumptionW(0.0)
+                .batteryPowerW(0.0)
+                .gridPowerW(0.0)
+                .totalSolarYieldKwh(0.0)
+                .totalGridImportKwh(0.0)
+                .totalGridExportKwh(0.0)
+                .totalHomeUsageKwh(0.0)
+                .currentVoltage(230.0)
+                .currentAmps(0.0)
+                .latitude(48.0 + (i % 7))
+                .longitude(6.0 + (i % 11))
+                .pvCapacityW(3000.0 + (i % 5) * 1000.0)
+                .build();
+    }
+
+    static LoadProfileLibrary loadProfiles() {
+        LoadProfileLibrary library = new LoadProfileLibrary();
+        library.setDirectory(LOAD_PROFILE_DIR);
+        library.open();
+        return library;
+    }
+}
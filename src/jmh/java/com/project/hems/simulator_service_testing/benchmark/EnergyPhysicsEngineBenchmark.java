@@ -0,0 +1,74 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.hems.simulator_service_testing.service.EnergyPhysicsEngine;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * {@link EnergyPhysicsEngine#processEnergyBalance} for one meter per
+ * operation, with a solar deficit (grid import only) and with a surplus
+ * (battery charging). See {@link PhysicsKernelBenchmark} for whole shards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnergyPhysicsEngineBenchmark {
+
+    private static final int FLEET_SIZE = 16384;
+    private static final double DELTA_SECONDS = 5.0;
+
+    private MeterStateStore store;
+    private EnergyPhysicsEngine engine;
+    private int slot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.quietLogging(ch.qos.logback.classic.Level.INFO);
+        engine = new EnergyPhysicsEngine();
+        store = BenchmarkFixtures.fleet(FLEET_SIZE);
+    }
+
+    @Setup(Level.Iteration)
+    public void drainBatteries() {
+        // Surplus iterations fill batteries; start every iteration from the same state
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            store.setBatteryRemainingWh(i, 1000.0 + (i % 90) * 100.0);
+        }
+    }
+
+    private int nextSlot() {
+        int current = slot;
+        slot = current + 1 == FLEET_SIZE ? 0 : current + 1;
+        return current;
+    }
+
+    @Benchmark
+    public double deficit() {
+        int current = nextSlot();
+        engine.processEnergyBalance(store, current, 200.0, 650.0, DELTA_SECONDS);
+        return store.getGridPowerW(current);
+    }
+
+    @Benchmark
+    public double surplus() {
+        int current = nextSlot();
+        engine.processEnergyBalance(store, current, 4200.0, 650.0, DELTA_SECONDS);
+        return store.getBatteryRemainingWh(current);
+    }
+}
@@ -0,0 +1,103 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.hems.simulator_service_testing.profile.LoadProfileLibrary;
+import com.project.hems.simulator_service_testing.service.EnvironmentSimulator;
+import com.project.hems.simulator_service_testing.solar.SolarIrradianceModel;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * Per-meter environment inputs: solar output, home load from the profile
+ * library and from the noise model, and electrical metadata. Each operation
+ * is one meter; consecutive operations walk the fleet so profile reads are
+ * not all served from one cache line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentSimulatorBenchmark {
+
+    private static final int FLEET_SIZE = 16384;
+
+    private MeterStateStore store;
+    private EnvironmentSimulator environment;
+    private EnvironmentSimulator noiseEnvironment;
+    private SolarTick solar;
+    private SplittableRandom random;
+    private long tickMillis;
+    private int slot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.quietLogging(ch.qos.logback.classic.Level.INFO);
+
+        SolarIrradianceModel solarModel = new SolarIrradianceModel();
+        environment = new EnvironmentSimulator(solarModel, BenchmarkFixtures.loadProfiles());
+        noiseEnvironment = new EnvironmentSimulator(solarModel, new LoadProfileLibrary());
+
+        store = BenchmarkFixtures.fleet(FLEET_SIZE);
+        tickMillis = BenchmarkFixtures.START.toInstant(ZoneOffset.UTC).toEpochMilli();
+        solar = environment.prepareSolar(tickMillis);
+        random = new SplittableRandom(42);
+
+        // Resolve regions and profile assignments up front, as after the first live tick
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            environment.calculateSolarProduction(store, i, solar);
+            environment.sampleHomeConsumption(store, i, tickMillis, random);
+        }
+        // Now covers every region, as a live tick's lookup does
+        solar = environment.prepareSolar(tickMillis);
+    }
+
+    private int nextSlot() {
+        int current = slot;
+        slot = current + 1 == FLEET_SIZE ? 0 : current + 1;
+        return current;
+    }
+
+    @Benchmark
+    public SolarTick prepareSolar() {
+        return environment.prepareSolar(tickMillis);
+    }
+
+    @Benchmark
+    public double solarProduction() {
+        return environment.calculateSolarProduction(store, nextSlot(), solar);
+    }
+
+    @Benchmark
+    public double profileHomeConsumption() {
+        return environment.sampleHomeConsumption(store, nextSlot(), tickMillis, random);
+    }
+
+    @Benchmark
+    public double noiseHomeConsumption() {
+        return noiseEnvironment.sampleHomeConsumption(store, nextSlot(), tickMillis, random);
+    }
+
+    @Benchmark
+    public double electricalMetadata() {
+        int current = nextSlot();
+        environment.applyElectricalMetadata(store, current, random);
+        return store.getCurrentAmps(current);
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.hems.simulator_service_testing.config.MeterModelMapper;
+import com.project.hems.simulator_service_testing.domain.MeterEntity;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * Conversions between the entity, the snapshot and the state store: the
+ * {@link MeterModelMapper} conversions used on activation and DB warm-up, and
+ * the store's materialize (every Kafka reading) and upsert.
+ *
+ * <p>
+ * The {@code reflective*} benchmarks run the same conversions as converters
+ * behind a {@link ModelMapper}, as the application did before the mapper was
+ * written by hand, so the difference is ModelMapper's type-map lookup and
+ * dispatch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeterMappingBenchmark {
+
+    private MeterModelMapper meterMapper;
+    private ModelMapper modelMapper;
+    private MeterSnapshot snapshot;
+    private MeterEntity entity;
+    private MeterStateStore store;
+    private int slot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.quietLogging(ch.qos.logback.classic.Level.INFO);
+
+        meterMapper = new MeterModelMapper();
+        modelMapper = reflectiveMapper(meterMapper);
+        snapshot = MeterReadingCodecBenchmark.sampleSnapshot();
+        entity = meterMapper.toEntity(snapshot);
+
+        store = new MeterStateStore();
+        slot = store.upsert(snapshot);
+    }
+
+    // The previous MeterModelMapper bean: implicit mapping off, one converter per direction
+    private static ModelMapper reflectiveMapper(MeterModelMapper meterMapper) {
+        ModelMapper mapper = new ModelMapper();
+        mapper.getConfiguration()
+                .setImplicitMappingEnabled(false)
+                .setAmbiguityIgnored(true);
+        mapper.createTypeMap(MeterEntity.class, MeterSnapshot.class)
+                .setConverter(ctx -> meterMapper.toSnapshot(ctx.getSource()));
+        mapper.createTypeMap(MeterSnapshot.class, MeterEntity.class)
+                .setConverter(ctx -> meterMapper.toEntity(ctx.getSource()));
+        return mapper;
+    }
+
+    @Benchmark
+    public MeterSnapshot entityToSnapshot() {
+        return meterMapper.toSnapshot(entity);
+    }
+
+    @Benchmark
+    public MeterEntity snapshotToEntity() {
+        return meterMapper.toEntity(snapshot);
+    }
+
+    @Benchmark
+    public MeterEntity updateEntity() {
+        meterMapper.updateEntity(entity, snapshot);
+        return entity;
+    }
+
+    @Benchmark
+    public MeterSnapshot reflectiveEntityToSnapshot() {
+        return modelMapper.map(entity, MeterSnapshot.class);
+    }
+
+    @Benchmark
+    public MeterEntity reflectiveSnapshotToEntity() {
+        return modelMapper.map(snapshot, MeterEntity.class);
+    }
+
+    @Benchmark
+    public MeterSnapshot materialize() {
+        return store.materialize(slot);
+    }
+
+    @Benchmark
+    public int upsertExisting() {
+        return store.upsert(snapshot);
+    }
+}
@@ -0,0 +1,131 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer;
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer.WireFormat;
+import com.project.hems.simulator_service_testing.codec.MeterSnapshotBinaryCodec;
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+/**
+ * Encode time of the JSON wire format against the binary codec for
+ * RAW_ENERGY_READINGS. The encode benchmarks also report the secondary
+ * results {@code bytes} and {@code messages}; their ratio is the size of one
+ * message in each format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeterReadingCodecBenchmark {
+
+    private static final String TOPIC = "RAW_ENERGY_READINGS";
+
+    private MeterSnapshot snapshot;
+    private MeterReadingSerializer jsonSerializer;
+    private MeterReadingSerializer binarySerializer;
+    private ByteBuffer reusableBuffer;
+    private byte[] binaryPayload;
+
+    // Event counters are summed over the run, so sizes are reported as a total and a count
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MessageSize {
+
+        public long bytes;
+        public long messages;
+
+        void record(byte[] data) {
+            bytes += data.length;
+            messages++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = sampleSnapshot();
+        jsonSerializer = new MeterReadingSerializer(WireFormat.JSON);
+        binarySerializer = new MeterReadingSerializer(WireFormat.BINARY);
+        reusableBuffer = ByteBuffer.allocate(MeterSnapshotBinaryCodec.V2_SIZE);
+        binaryPayload = MeterSnapshotBinaryCodec.encode(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jsonSerializer.close();
+        binarySerializer.close();
+    }
+
+    @Benchmark
+    public byte[] encodeJson(MessageSize size) {
+        byte[] data = jsonSerializer.serialize(TOPIC, new RecordHeaders(), snapshot);
+        size.record(data);
+        return data;
+    }
+
+    @Benchmark
+    public byte[] encodeBinary(MessageSize size) {
+        byte[] data = binarySerializer.serialize(TOPIC, new RecordHeaders(), snapshot);
+        size.record(data);
+        return data;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinaryIntoReusedBuffer() {
+        reusableBuffer.clear();
+        MeterSnapshotBinaryCodec.encode(snapshot, reusableBuffer);
+        return reusableBuffer;
+    }
+
+    @Benchmark
+    public MeterSnapshot decodeBinary() {
+        return MeterSnapshotBinaryCodec.decode(binaryPayload);
+    }
+
+    static MeterSnapshot sampleSnapshot() {
+        return MeterSnapshot.builder()
+                .meterId(42L)
+                .siteId(100042L)
+                .timestamp(LocalDateTime.of(2026, 6, 21, 12, 30, 5))
+                .solarProductionW(4321.5)
+                .homeConsumptionW(612.25)
+                .batteryPowerW(3000.0)
+                .gridPowerW(-709.25)
+                .totalSolarYieldKwh(1234.5678)
+                .totalGridImportKwh(456.789)
+                .totalGridExportKwh(321.0987)
+                .totalHomeUsageKwh(987.6543)
+                .batteryCapacityWh(10000.0)
+                .batteryRemainingWh(6543.21)
+                .chargingStatus(ChargingStatus.CHARGING)
+                .batteryMode(BatteryMode.AUTO)
+                .currentVoltage(230.4)
+                .currentAmps(2.66)
+                .batterySoc(65)
+                .latitude(52.52)
+                .longitude(13.405)
+                .pvCapacityW(8000.0)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * siteId lookups against the state store, in random order so larger fleets
+ * pay their cache misses: a slot lookup (read lock plus index probe) for a
+ * known and an unknown site, and the full REST read of one meter (lookup plus
+ * materialize).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MeterStateStoreBenchmark {
+
+    // Power of two so the lookup order wraps with a mask
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({ "1000", "100000", "1000000" })
+    private int fleetSize;
+
+    private MeterStateStore store;
+    private long[] knownSites;
+    private long[] unknownSites;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.quietLogging(ch.qos.logback.classic.Level.INFO);
+
+        store = BenchmarkFixtures.fleet(fleetSize);
+
+        SplittableRandom random = new SplittableRandom(42);
+        knownSites = new long[LOOKUPS];
+        unknownSites = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            knownSites[i] = random.nextInt(fleetSize);
+            unknownSites[i] = fleetSize + random.nextInt(Integer.MAX_VALUE - fleetSize);
+        }
+    }
+
+    private int nextIndex() {
+        int current = next;
+        next = (current + 1) & (LOOKUPS - 1);
+        return current;
+    }
+
+    @Benchmark
+    public int slotOfKnownSite() {
+        return store.slotOf(knownSites[nextIndex()]);
+    }
+
+    @Benchmark
+    public int slotOfUnknownSite() {
+        return store.slotOf(unknownSites[nextIndex()]);
+    }
+
+    @Benchmark
+    public MeterSnapshot getMeter() {
+        return store.get(knownSites[nextIndex()]);
+    }
+}
@@ -0,0 +1,130 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.profile.LoadProfileLibrary;
+import com.project.hems.simulator_service_testing.service.EnergyPhysicsEngine;
+import com.project.hems.simulator_service_testing.service.EnergyPhysicsKernel;
+import com.project.hems.simulator_service_testing.service.EnvironmentSimulator;
+import com.project.hems.simulator_service_testing.service.MeterSimulationStep;
+import com.project.hems.simulator_service_testing.service.TickStageRecorder;
+import com.project.hems.simulator_service_testing.solar.SolarIrradianceModel;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * Cost of one shard tick: the scalar engine against the batch
+ * kernel, both for the physics alone and for the full step (noise, gather,
+ * physics, scatter). Scores are per shard; divide by shardSize for the
+ * per-meter cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsKernelBenchmark {
+
+    private static final double DELTA_SECONDS = 5.0;
+
+    @Param({ "1024", "16384" })
+    private int shardSize;
+
+    private MeterStateStore store;
+    private int[] slots;
+    private EnergyPhysicsEngine engine;
+    private MeterSimulationStep scalarStep;
+    private MeterSimulationStep batchStep;
+    private EnergyPhysicsKernel.Batch batch;
+    private double[] loadW;
+    private double solarW;
+    private SolarTick solar;
+    private SolarTick noon;
+    private SolarTick evening;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.quietLogging(ch.qos.logback.classic.Level.INFO);
+
+        engine = new EnergyPhysicsEngine();
+        // An unopened profile library is empty, so load comes from the noise model
+        EnvironmentSimulator environment = new EnvironmentSimulator(new SolarIrradianceModel(),
+                new LoadProfileLibrary());
+        scalarStep = new MeterSimulationStep(engine, environment);
+        scalarStep.setBatchPhysics(false);
+        batchStep = new MeterSimulationStep(engine, environment);
+
+        store = BenchmarkFixtures.fleet(shardSize);
+        slots = new int[shardSize];
+        batch = new EnergyPhysicsKernel.Batch();
+        batch.resize(shardSize);
+        loadW = new double[shardSize];
+        long noonMillis = LocalDateTime.of(2026, 6, 21, 11, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        noon = environment.prepareSolar(noonMillis);
+        evening = environment.prepareSolar(noonMillis + TimeUnit.HOURS.toMillis(7));
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < shardSize; i++) {
+            slots[i] = i;
+            loadW[i] = environment.sampleHomeConsumption(random);
+            batch.loadW[i] = loadW[i];
+            batch.batteryCapacityWh[i] = store.getBatteryCapacityWh(i);
+            batch.batteryRemainingWh[i] = store.getBatteryRemainingWh(i);
+            batch.chargingStatus[i] = (byte) ChargingStatus.IDLE.ordinal();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void nextSolar() {
+        // Alternate between deficit and surplus so both paths are exercised
+        boolean surplus = (tick++ & 1) == 1;
+        solarW = surplus ? 4200.0 : 200.0;
+        solar = surplus ? noon : evening;
+        for (int i = 0; i < shardSize; i++) {
+            batch.solarW[i] = solarW;
+        }
+    }
+
+    @Benchmark
+    public void scalarPhysics() {
+        for (int slot : slots) {
+            engine.processEnergyBalance(store, slot, solarW, loadW[slot], DELTA_SECONDS);
+        }
+    }
+
+    @Benchmark
+    public void kernelPhysics() {
+        EnergyPhysicsKernel.run(batch, DELTA_SECONDS);
+    }
+
+    @Benchmark
+    public void scalarShardStep() {
+        scalarStep.advanceShard(store, slots, solar, tick, DELTA_SECONDS, new SplittableRandom(tick),
+                TickStageRecorder.NONE);
+    }
+
+    @Benchmark
+    public void kernelShardStep() {
+        batchStep.advanceShard(store, slots, solar, tick, DELTA_SECONDS, new SplittableRandom(tick),
+                TickStageRecorder.NONE);
+    }
+}
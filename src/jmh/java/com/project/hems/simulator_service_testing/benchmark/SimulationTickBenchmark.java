@@ -0,0 +1,179 @@
+package com.project.hems.simulator_service_testing.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.project.hems.simulator_service_testing.clock.WallClock;
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer;
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer.WireFormat;
+import com.project.hems.simulator_service_testing.random.SeededRandomStreams;
+import com.project.hems.simulator_service_testing.service.EnergyPhysicsEngine;
+import com.project.hems.simulator_service_testing.service.EnvironmentSimulator;
+import com.project.hems.simulator_service_testing.service.FleetAggregatePublisher;
+import com.project.hems.simulator_service_testing.service.FleetAggregator;
+import com.project.hems.simulator_service_testing.service.LiveFeedService;
+import com.project.hems.simulator_service_testing.service.MeterManagementService;
+import com.project.hems.simulator_service_testing.service.MeterReadingPublisher;
+import com.project.hems.simulator_service_testing.service.MeterSimulationService;
+import com.project.hems.simulator_service_testing.service.MeterSimulationStep;
+import com.project.hems.simulator_service_testing.service.ShardedTickEngine;
+import com.project.hems.simulator_service_testing.solar.SolarIrradianceModel;
+import com.project.hems.simulator_service_testing.state.EnergyJournal;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * One full {@link MeterSimulationService#simulateLiveReadings()} cycle at
+ * several fleet sizes: shard planning, environment, physics, materializing
+ * and JSON-serializing every reading, publishing, aggregating, journaling and
+ * metrics. The score is ticks per second; the live tick has a 5 s budget.
+ *
+ * <p>
+ * The broker is replaced by a producer that serializes each record and
+ * acknowledges it immediately, so the score excludes network time but not
+ * the client-side cost. Logging runs at WARN so the per-tick summary lines
+ * are skipped rather than printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SimulationTickBenchmark {
+
+    private static final String TOPIC = "RAW_ENERGY_READINGS";
+
+    @Param({ "1000", "10000", "100000" })
+    private int fleetSize;
+
+    private ForkJoinPool tickExecutor;
+    private MeterReadingPublisher publisher;
+    private EnergyJournal journal;
+    private Path journalDir;
+    private LiveFeedService liveFeed;
+    private MeterSimulationService simulation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkFixtures.quietLogging(ch.qos.logback.classic.Level.WARN);
+
+        MeterStateStore store = BenchmarkFixtures.fleet(fleetSize);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        AcknowledgingProducer producer = new AcknowledgingProducer();
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(() -> producer);
+        kafkaTemplate.setMicrometerEnabled(false);
+        publisher = new MeterReadingPublisher(kafkaTemplate, meterRegistry);
+        publisher.setRawEnergyTopic(TOPIC);
+        publisher.init();
+
+        tickExecutor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ShardedTickEngine tickEngine = new ShardedTickEngine(tickExecutor, publisher);
+
+        journalDir = Files.createTempDirectory("jmh-journal");
+        journal = new EnergyJournal();
+        journal.setDirectory(journalDir.toString());
+        journal.open();
+
+        EnvironmentSimulator environment = new EnvironmentSimulator(new SolarIrradianceModel(),
+                BenchmarkFixtures.loadProfiles());
+        MeterSimulationStep step = new MeterSimulationStep(new EnergyPhysicsEngine(), environment);
+
+        // The DB, snapshot writer and shutdown spill are only used outside the tick
+        MeterManagementService management = new MeterManagementService(store, null, null, null, null, journal,
+                null, meterRegistry);
+        // Fleet totals only, no feeders configured
+        FleetAggregator aggregator = new FleetAggregator();
+        aggregator.init();
+        // No subscribers, as in a deployment nobody is watching
+        liveFeed = new LiveFeedService(store, aggregator, meterRegistry);
+        liveFeed.registerMetrics();
+        simulation = new MeterSimulationService(store, management, null, publisher, step, environment,
+                new WallClock(), new SeededRandomStreams(42), tickEngine, journal, aggregator,
+                new FleetAggregatePublisher(kafkaTemplate), liveFeed, meterRegistry);
+        simulation.registerMetrics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        liveFeed.shutdown();
+        publisher.shutdown();
+        tickExecutor.shutdown();
+        journal.close();
+        try (Stream<Path> files = Files.walk(journalDir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void simulateLiveReadings() {
+        simulation.simulateLiveReadings();
+    }
+
+    /**
+     * Serializes like the real producer and acknowledges at once. Unlike a
+     * plain {@link MockProducer} it keeps no send history and survives the
+     * close {@link KafkaTemplate} issues after every send.
+     */
+    private static final class AcknowledgingProducer extends MockProducer<String, Object> {
+
+        private final StringSerializer keySerializer = new StringSerializer();
+        private final MeterReadingSerializer valueSerializer = new MeterReadingSerializer(WireFormat.JSON);
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, Object> record, Callback callback) {
+            byte[] key = keySerializer.serialize(record.topic(), record.headers(), record.key());
+            byte[] value = valueSerializer.serialize(record.topic(), record.headers(), record.value());
+
+            int partition = record.partition() == null ? 0 : record.partition();
+            RecordMetadata metadata = new RecordMetadata(new TopicPartition(record.topic(), partition), 0L, 0,
+                    System.currentTimeMillis(), key.length, value.length);
+            if (callback != null) {
+                callback.onCompletion(metadata, null);
+            }
+            return CompletableFuture.completedFuture(metadata);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
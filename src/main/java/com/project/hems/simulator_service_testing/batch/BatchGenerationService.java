@@ -0,0 +1,315 @@
+package com.project.hems.simulator_service_testing.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.hems.simulator_service_testing.clock.VirtualClock;
+import com.project.hems.simulator_service_testing.model.BatchGenerationRequest;
+import com.project.hems.simulator_service_testing.model.BatchGenerationStatus;
+import com.project.hems.simulator_service_testing.model.BatchGenerationStatus.State;
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.model.ShardTiming;
+import com.project.hems.simulator_service_testing.model.TickReport;
+import com.project.hems.simulator_service_testing.random.RandomStreams;
+import com.project.hems.simulator_service_testing.random.SeededRandomStreams;
+import com.project.hems.simulator_service_testing.service.EnvironmentSimulator;
+import com.project.hems.simulator_service_testing.service.MeterSimulationStep;
+import com.project.hems.simulator_service_testing.service.ShardedTickEngine;
+import com.project.hems.simulator_service_testing.service.TickStageRecorder;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.web.exception.BatchGenerationAlreadyRunningException;
+import com.project.hems.simulator_service_testing.web.exception.InvalidBatchGenerationRequestException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates readings faster than real time. A synthetic fleet is simulated in
+ * its own {@link MeterStateStore} against a {@link VirtualClock}: each tick
+ * runs across the shards as soon as the previous one finishes, so a year of
+ * 5-second readings takes as long as the CPUs (or the broker) need, not a
+ * year. The live fleet and its dirty tracking are never touched, and job
+ * ticks run on their own pool of {@code parallelism} workers so they never
+ * queue ahead of the live tick's shards.
+ *
+ * <p>
+ * One job runs at a time on a dedicated thread; its progress is polled via
+ * {@link #getStatus(String)}.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.batch-generation")
+public class BatchGenerationService {
+
+    private final ShardedTickEngine shardedTickEngine;
+    private final MeterSimulationStep meterSimulationStep;
+    private final EnvironmentSimulator environmentSimulator;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final RandomStreams randomStreams;
+
+    private String outputDirectory = "data/batch";
+    private String kafkaTopic = "RAW_ENERGY_READINGS";
+    private Integer maxInFlight = 10000;
+    private Integer maxMeterCount = 1_000_000;
+    // Workers for job ticks; kept below the CPU count so the live tick keeps headroom
+    private Integer parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    // Synthetic siteIds start here so they never collide with live sites downstream
+    private Long siteIdBase = 900_000_000L;
+
+    private final ExecutorService jobExecutor = Executors
+            .newSingleThreadExecutor(new CustomizableThreadFactory("batch-generation-"));
+    private final AtomicReference<Job> latestJob = new AtomicReference<>();
+
+    public BatchGenerationStatus start(BatchGenerationRequest request) {
+
+        long stepMillis = TimeUnit.SECONDS.toMillis(request.getStepSeconds());
+        long rangeMillis = Duration.between(request.getStart(), request.getEnd()).toMillis();
+
+        if (rangeMillis < stepMillis) {
+            throw new InvalidBatchGenerationRequestException(
+                    "end must be at least one step (" + request.getStepSeconds() + "s) after start");
+        }
+        if (request.getMeterCount() > maxMeterCount) {
+            throw new InvalidBatchGenerationRequestException(
+                    "meterCount " + request.getMeterCount() + " exceeds the limit of " + maxMeterCount);
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        String destination = request.getOutput() == BatchGenerationRequest.Output.KAFKA
+                ? kafkaTopic
+                : Path.of(outputDirectory, jobId).toAbsolutePath().toString();
+        long seed = request.getSeed() != null ? request.getSeed() : randomStreams.masterSeed();
+        Job job = new Job(jobId, request, rangeMillis / stepMillis, destination, seed);
+
+        Job previous = latestJob.get();
+        if (previous != null && previous.state == State.RUNNING) {
+            throw new BatchGenerationAlreadyRunningException(
+                    "batch generation job " + previous.id + " is still running");
+        }
+        if (!latestJob.compareAndSet(previous, job)) {
+            throw new BatchGenerationAlreadyRunningException("another batch generation job was just started");
+        }
+
+        log.info("start: job {} generating {} ticks for {} meters from {} to {} with seed {} -> {}",
+                jobId, job.totalTicks, request.getMeterCount(), request.getStart(), request.getEnd(), seed,
+                destination);
+
+        jobExecutor.execute(() -> run(job));
+        return job.toStatus();
+    }
+
+    /**
+     * @return status of the job, or null if it is not the latest job
+     */
+    public BatchGenerationStatus getStatus(String jobId) {
+        Job job = latestJob.get();
+        return job != null && job.id.equals(jobId) ? job.toStatus() : null;
+    }
+
+    /**
+     * Stops the job after its current tick. Readings already generated are
+     * kept.
+     *
+     * @return status of the job, or null if it is not the latest job
+     */
+    public BatchGenerationStatus cancel(String jobId) {
+        Job job = latestJob.get();
+        if (job == null || !job.id.equals(jobId)) {
+            return null;
+        }
+        job.cancelled = true;
+        return job.toStatus();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Job job = latestJob.get();
+        if (job != null) {
+            job.cancelled = true;
+        }
+        jobExecutor.shutdown();
+    }
+
+    private void run(Job job) {
+
+        BatchGenerationRequest request = job.request;
+
+        try {
+            MeterStateStore fleet = buildFleet(request);
+            int[][] shards = shardedTickEngine.planDetached(fleet);
+
+            long startMillis = request.getStart().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            VirtualClock clock = new VirtualClock(startMillis, TimeUnit.SECONDS.toMillis(request.getStepSeconds()));
+            double deltaSeconds = clock.tickSeconds();
+            RandomStreams jobRandom = new SeededRandomStreams(job.seed);
+
+            try (ForkJoinPool tickExecutor = new ForkJoinPool(parallelism);
+                    ReadingSink sink = openSink(job, shards.length)) {
+                job.sink = sink;
+
+                fleet.read(() -> {
+                    while (job.completedTicks.get() < job.totalTicks && !job.cancelled) {
+                        long tickMillis = clock.advance();
+                        SolarTick solar = environmentSimulator.prepareSolar(tickMillis);
+
+                        TickReport report = shardedTickEngine.runTick(tickExecutor, shards, (shardIndex, slots) -> {
+                            SplittableRandom random = jobRandom.forShard(shardIndex, tickMillis);
+                            meterSimulationStep.advanceShard(fleet, slots, solar, tickMillis, deltaSeconds, random,
+                                    TickStageRecorder.NONE);
+                            for (int slot : slots) {
+                                sink.write(shardIndex, fleet, slot);
+                            }
+                        });
+
+                        for (ShardTiming timing : report.getShardTimings()) {
+                            if (!timing.isCompleted()) {
+                                throw new IllegalStateException("shard " + timing.getShardIndex()
+                                        + " failed at " + Instant.ofEpochMilli(tickMillis));
+                            }
+                        }
+
+                        job.virtualMillis = tickMillis;
+                        job.completedTicks.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+
+            job.finish(job.cancelled ? State.CANCELLED : State.COMPLETED, null);
+
+        } catch (Exception e) {
+            log.error("run: job {} failed: {}", job.id, e.getMessage(), e);
+            job.finish(State.FAILED, e.getMessage());
+        }
+
+        BatchGenerationStatus status = job.toStatus();
+        log.info("run: job {} {} after {}/{} ticks, {} readings written ({} failed) in {} ms ({} readings/s)",
+                job.id,
+                status.getState(),
+                status.getCompletedTicks(),
+                status.getTotalTicks(),
+                status.getReadingsWritten(),
+                status.getFailedReadings(),
+                status.getElapsedMs(),
+                Math.round(status.getReadingsPerSecond()));
+    }
+
+    private MeterStateStore buildFleet(BatchGenerationRequest request) {
+
+        MeterStateStore fleet = new MeterStateStore();
+        for (int i = 0; i < request.getMeterCount(); i++) {
+            fleet.upsert(MeterSnapshot.builder()
+                    .siteId(siteIdBase + i)
+                    .timestamp(request.getStart())
+                    .batteryCapacityWh(request.getBatteryCapacityWh())
+                    .batteryRemainingWh(request.getBatteryCapacityWh() / 2)
+                    .batteryMode(BatteryMode.AUTO)
+                    .chargingStatus(ChargingStatus.IDLE)
+                    .solarProductionW(0.0)
+                    .homeConsumptionW(0.0)
+                    .batteryPowerW(0.0)
+                    .gridPowerW(0.0)
+                    .totalSolarYieldKwh(0.0)
+                    .totalGridImportKwh(0.0)
+                    .totalGridExportKwh(0.0)
+                    .totalHomeUsageKwh(0.0)
+                    .currentVoltage(230.0)
+                    .currentAmps(0.0)
+                    .latitude(request.getLatitude())
+                    .longitude(request.getLongitude())
+                    .pvCapacityW(request.getPvCapacityW())
+                    .build());
+        }
+        return fleet;
+    }
+
+    private ReadingSink openSink(Job job, int shardCount) throws IOException {
+        if (job.request.getOutput() == BatchGenerationRequest.Output.KAFKA) {
+            return new KafkaReadingSink(kafkaTemplate, kafkaTopic, maxInFlight);
+        }
+        return new FileReadingSink(Path.of(job.destination), shardCount, job.request.getFileFormat(),
+                objectMapper);
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final BatchGenerationRequest request;
+        private final long totalTicks;
+        private final String destination;
+        private final long seed;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong completedTicks = new AtomicLong();
+
+        private volatile State state = State.RUNNING;
+        private volatile boolean cancelled;
+        private volatile ReadingSink sink;
+        private volatile long virtualMillis;
+        private volatile long endNanos;
+        private volatile String error;
+
+        private Job(String id, BatchGenerationRequest request, long totalTicks, String destination, long seed) {
+            this.id = id;
+            this.request = request;
+            this.totalTicks = totalTicks;
+            this.destination = destination;
+            this.seed = seed;
+        }
+
+        private void finish(State finalState, String failure) {
+            endNanos = System.nanoTime();
+            error = failure;
+            state = finalState;
+        }
+
+        private BatchGenerationStatus toStatus() {
+            long elapsedNanos = (state == State.RUNNING ? System.nanoTime() : endNanos) - startNanos;
+            ReadingSink currentSink = sink;
+            long written = currentSink == null ? 0L : currentSink.written();
+
+            return BatchGenerationStatus.builder()
+                    .jobId(id)
+                    .state(state)
+                    .meterCount(request.getMeterCount())
+                    .seed(seed)
+                    .totalTicks(totalTicks)
+                    .completedTicks(completedTicks.get())
+                    .readingsWritten(written)
+                    .failedReadings(currentSink == null ? 0L : currentSink.failed())
+                    .virtualTime(virtualMillis == 0L ? null
+                            : LocalDateTime.ofInstant(Instant.ofEpochMilli(virtualMillis), ZoneId.systemDefault()))
+                    .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                    .readingsPerSecond(elapsedNanos > 0 ? written * 1e9 / elapsedNanos : 0.0)
+                    .destination(destination)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.project.hems.simulator_service_testing.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer.WireFormat;
+import com.project.hems.simulator_service_testing.codec.MeterSnapshotBinaryCodec;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * One buffered file per shard, so shards never contend on a writer. BINARY
+ * files are a plain sequence of fixed-size codec records; JSON files are
+ * NDJSON.
+ */
+class FileReadingSink implements ReadingSink {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WireFormat format;
+    private final ObjectMapper objectMapper;
+    private final OutputStream[] outputs;
+    private final ByteBuffer[] recordBuffers;
+    private final LongAdder written = new LongAdder();
+
+    FileReadingSink(Path directory, int shardCount, WireFormat format, ObjectMapper objectMapper)
+            throws IOException {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.outputs = new OutputStream[shardCount];
+        this.recordBuffers = new ByteBuffer[shardCount];
+
+        Files.createDirectories(directory);
+        String extension = format == WireFormat.BINARY ? "bin" : "ndjson";
+
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                Path file = directory.resolve(String.format("shard-%03d.%s", shard, extension));
+                outputs[shard] = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+                recordBuffers[shard] = ByteBuffer.allocate(MeterSnapshotBinaryCodec.V2_SIZE);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(int shard, MeterStateStore store, int slot) {
+        try {
+            OutputStream out = outputs[shard];
+            if (format == WireFormat.BINARY) {
+                ByteBuffer buffer = recordBuffers[shard];
+                buffer.clear();
+                MeterSnapshotBinaryCodec.encode(store.materialize(slot), buffer);
+                out.write(buffer.array(), 0, buffer.position());
+            } else {
+                out.write(objectMapper.writeValueAsBytes(store.materialize(slot)));
+                out.write('\n');
+            }
+            written.increment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long written() {
+        return written.sum();
+    }
+
+    @Override
+    public long failed() {
+        return 0L;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (OutputStream out : outputs) {
+            if (out == null) {
+                continue;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
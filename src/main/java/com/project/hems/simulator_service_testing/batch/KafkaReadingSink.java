@@ -0,0 +1,69 @@
+package com.project.hems.simulator_service_testing.batch;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.kafka.core.KafkaTemplate;
+
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * Keyed sends bounded by an in-flight budget. Unlike the live publisher it
+ * always waits for budget: a backfill must be complete, and the shards simply
+ * run at the broker's pace.
+ */
+class KafkaReadingSink implements ReadingSink {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String topic;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    KafkaReadingSink(KafkaTemplate<String, Object> kafkaTemplate, String topic, int maxInFlight) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void write(int shard, MeterStateStore store, int slot) {
+        inFlight.acquireUninterruptibly();
+        try {
+            kafkaTemplate.send(topic, Long.toString(store.getSiteId(slot)), store.materialize(slot))
+                    .whenComplete((result, ex) -> {
+                        inFlight.release();
+                        if (ex == null) {
+                            written.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            failed.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public long written() {
+        return written.sum();
+    }
+
+    @Override
+    public long failed() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        kafkaTemplate.flush();
+
+        // Every permit back means every send has been acknowledged or failed
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+}
@@ -0,0 +1,20 @@
+package com.project.hems.simulator_service_testing.batch;
+
+import java.io.Closeable;
+
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * Destination for readings produced by batch generation. {@link #write} is
+ * called concurrently from every shard, but never concurrently for the same
+ * shard. {@link #close()} returns once every reading has been written or has
+ * failed.
+ */
+interface ReadingSink extends Closeable {
+
+    void write(int shard, MeterStateStore store, int slot);
+
+    long written();
+
+    long failed();
+}
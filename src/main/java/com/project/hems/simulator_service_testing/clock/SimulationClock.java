@@ -0,0 +1,14 @@
+package com.project.hems.simulator_service_testing.clock;
+
+/**
+ * Source of simulated time. Physics and environment models read time only
+ * through a clock, so the same tick code can run in real time or as fast as
+ * the CPUs allow.
+ */
+public interface SimulationClock {
+
+    long currentTimeMillis();
+
+    // Simulated time covered by one tick
+    double tickSeconds();
+}
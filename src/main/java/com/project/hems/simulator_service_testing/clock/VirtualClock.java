@@ -0,0 +1,40 @@
+package com.project.hems.simulator_service_testing.clock;
+
+/**
+ * Simulated time that only moves when {@link #advance()} is called, used for
+ * accelerated batch generation. Not thread-safe: advance it from the thread
+ * driving the ticks, between ticks.
+ */
+public class VirtualClock implements SimulationClock {
+
+    private final long stepMillis;
+    private long currentMillis;
+
+    public VirtualClock(long startMillis, long stepMillis) {
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("stepMillis must be positive: " + stepMillis);
+        }
+        this.currentMillis = startMillis;
+        this.stepMillis = stepMillis;
+    }
+
+    /**
+     * Moves time forward by one tick.
+     *
+     * @return the new simulated time, which stamps the readings of this tick
+     */
+    public long advance() {
+        currentMillis += stepMillis;
+        return currentMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentMillis;
+    }
+
+    @Override
+    public double tickSeconds() {
+        return stepMillis / 1000.0;
+    }
+}
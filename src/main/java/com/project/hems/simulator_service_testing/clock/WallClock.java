@@ -0,0 +1,23 @@
+package com.project.hems.simulator_service_testing.clock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Real time, for the live simulation. One tick per scheduler period.
+ */
+@Component
+public class WallClock implements SimulationClock {
+
+    // Live scheduler period; the physics step must match it
+    public static final long TICK_MILLIS = 5000L;
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public double tickSeconds() {
+        return TICK_MILLIS / 1000.0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.project.hems.simulator_service_testing.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+/**
+ * Consumer-side counterpart of {@link MeterReadingSerializer}. Records whose
+ * {@value MeterReadingSerializer#CONTENT_TYPE_HEADER} header names either
+ * binary layout are decoded with {@link MeterSnapshotBinaryCodec}; everything
+ * else, including records from producers that predate the header, is read as
+ * JSON.
+ */
+public class MeterReadingDeserializer implements Deserializer<MeterSnapshot> {
+
+    private final JsonDeserializer<MeterSnapshot> jsonDeserializer = new JsonDeserializer<>(MeterSnapshot.class,
+            false);
+
+    public MeterReadingDeserializer() {
+        jsonDeserializer.addTrustedPackages(MeterSnapshot.class.getPackageName());
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        // The JSON delegate is fully set up in the constructor; spring.json.*
+        // consumer properties aimed at other topics must not reconfigure it
+    }
+
+    @Override
+    public MeterSnapshot deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public MeterSnapshot deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        Header contentType = headers.lastHeader(MeterReadingSerializer.CONTENT_TYPE_HEADER);
+        if (contentType != null && isBinary(new String(contentType.value(), StandardCharsets.UTF_8))) {
+            // The codec reads the layout version from the record itself
+            return MeterSnapshotBinaryCodec.decode(data);
+        }
+
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    private static boolean isBinary(String contentType) {
+        return MeterSnapshotBinaryCodec.CONTENT_TYPE.equals(contentType)
+                || MeterSnapshotBinaryCodec.CONTENT_TYPE_V1.equals(contentType);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
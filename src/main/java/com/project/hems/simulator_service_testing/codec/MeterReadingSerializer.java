@@ -0,0 +1,71 @@
+package com.project.hems.simulator_service_testing.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.MimeTypeUtils;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+/**
+ * Value serializer for RAW_ENERGY_READINGS. Writes meter readings either as
+ * JSON (the original format) or with {@link MeterSnapshotBinaryCodec}, and
+ * always stamps the chosen format in the {@value #CONTENT_TYPE_HEADER} header
+ * so consumers can pick the matching decoder per record.
+ */
+public class MeterReadingSerializer implements Serializer<Object> {
+
+    public static final String CONTENT_TYPE_HEADER = "contentType";
+
+    private static final byte[] JSON_CONTENT_TYPE = MimeTypeUtils.APPLICATION_JSON_VALUE
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BINARY_CONTENT_TYPE = MeterSnapshotBinaryCodec.CONTENT_TYPE
+            .getBytes(StandardCharsets.UTF_8);
+
+    public enum WireFormat {
+        JSON,
+        BINARY
+    }
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private final WireFormat wireFormat;
+
+    public MeterReadingSerializer(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+
+        if (wireFormat == WireFormat.BINARY && data instanceof MeterSnapshot snapshot) {
+            headers.remove(CONTENT_TYPE_HEADER);
+            headers.add(CONTENT_TYPE_HEADER, BINARY_CONTENT_TYPE);
+            return MeterSnapshotBinaryCodec.encode(snapshot);
+        }
+
+        headers.remove(CONTENT_TYPE_HEADER);
+        headers.add(CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE);
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
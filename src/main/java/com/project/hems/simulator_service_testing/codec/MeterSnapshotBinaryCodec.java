@@ -0,0 +1,187 @@
+package com.project.hems.simulator_service_testing.codec;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+/**
+ * Fixed-layout binary encoding of a {@link MeterSnapshot}, versioned by its
+ * first byte. Null fields are tracked in a presence bitmask so the layout
+ * never changes size.
+ *
+ * <pre>
+ * v1 (128 bytes, big-endian):
+ *   byte    version
+ *   int     presence bitmask (bit n set = field n present)
+ *   long    meterId, siteId
+ *   long    timestamp (epoch millis, LocalDateTime read as UTC)
+ *   double  solarProductionW, homeConsumptionW, batteryPowerW, gridPowerW
+ *   double  totalSolarYieldKwh, totalGridImportKwh, totalGridExportKwh, totalHomeUsageKwh
+ *   double  batteryCapacityWh, batteryRemainingWh, currentVoltage, currentAmps
+ *   byte    chargingStatus ordinal, batteryMode ordinal
+ *   byte    batterySoc, unsigned and saturating at 0 and 255
+ *
+ * v2 (152 bytes): v1, then the site configuration
+ *   double  latitude, longitude, pvCapacityW
+ * </pre>
+ *
+ * Records are written as v2; v1 records still decode, with the site
+ * configuration left null. Enum ordinals are part of the wire contract: new
+ * constants must only be appended to {@link ChargingStatus} and
+ * {@link BatteryMode}.
+ */
+public final class MeterSnapshotBinaryCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.hems.meter-reading.v2+binary";
+    // Stamped by producers that still write v1
+    public static final String CONTENT_TYPE_V1 = "application/vnd.hems.meter-reading.v1+binary";
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+    public static final int V1_SIZE = 1 + 4 + 8 * 3 + 8 * 12 + 3;
+    public static final int V2_SIZE = V1_SIZE + 8 * 3;
+
+    private static final ChargingStatus[] CHARGING_STATUSES = ChargingStatus.values();
+    private static final BatteryMode[] BATTERY_MODES = BatteryMode.values();
+
+    private MeterSnapshotBinaryCodec() {
+    }
+
+    public static byte[] encode(MeterSnapshot snapshot) {
+        ByteBuffer buffer = ByteBuffer.allocate(V2_SIZE);
+        encode(snapshot, buffer);
+        return buffer.array();
+    }
+
+    public static void encode(MeterSnapshot s, ByteBuffer out) {
+        int presence = 0;
+        int pos = out.position();
+
+        out.put(VERSION_2);
+        out.putInt(0); // presence, patched below
+
+        presence |= putLong(out, s.getMeterId(), 0);
+        presence |= putLong(out, s.getSiteId(), 1);
+        presence |= putLong(out,
+                s.getTimestamp() == null ? null : s.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(), 2);
+
+        presence |= putDouble(out, s.getSolarProductionW(), 3);
+        presence |= putDouble(out, s.getHomeConsumptionW(), 4);
+        presence |= putDouble(out, s.getBatteryPowerW(), 5);
+        presence |= putDouble(out, s.getGridPowerW(), 6);
+        presence |= putDouble(out, s.getTotalSolarYieldKwh(), 7);
+        presence |= putDouble(out, s.getTotalGridImportKwh(), 8);
+        presence |= putDouble(out, s.getTotalGridExportKwh(), 9);
+        presence |= putDouble(out, s.getTotalHomeUsageKwh(), 10);
+        presence |= putDouble(out, s.getBatteryCapacityWh(), 11);
+        presence |= putDouble(out, s.getBatteryRemainingWh(), 12);
+        presence |= putDouble(out, s.getCurrentVoltage(), 13);
+        presence |= putDouble(out, s.getCurrentAmps(), 14);
+
+        presence |= putByte(out, s.getChargingStatus() == null ? null : s.getChargingStatus().ordinal(), 15);
+        presence |= putByte(out, s.getBatteryMode() == null ? null : s.getBatteryMode().ordinal(), 16);
+        presence |= putUnsignedByte(out, s.getBatterySoc(), 17);
+
+        presence |= putDouble(out, s.getLatitude(), 18);
+        presence |= putDouble(out, s.getLongitude(), 19);
+        presence |= putDouble(out, s.getPvCapacityW(), 20);
+
+        out.putInt(pos + 1, presence);
+    }
+
+    public static MeterSnapshot decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    public static MeterSnapshot decode(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION_1 && version != VERSION_2) {
+            throw new IllegalArgumentException("Unsupported meter reading version: " + version);
+        }
+
+        int presence = in.getInt();
+
+        Long meterId = getLong(in, presence, 0);
+        Long siteId = getLong(in, presence, 1);
+        Long timestampMillis = getLong(in, presence, 2);
+
+        MeterSnapshot.MeterSnapshotBuilder builder = MeterSnapshot.builder()
+                .meterId(meterId)
+                .siteId(siteId)
+                .timestamp(timestampMillis == null ? null
+                        : LocalDateTime.ofEpochSecond(Math.floorDiv(timestampMillis, 1000),
+                                Math.floorMod(timestampMillis, 1000) * 1_000_000, ZoneOffset.UTC))
+                .solarProductionW(getDouble(in, presence, 3))
+                .homeConsumptionW(getDouble(in, presence, 4))
+                .batteryPowerW(getDouble(in, presence, 5))
+                .gridPowerW(getDouble(in, presence, 6))
+                .totalSolarYieldKwh(getDouble(in, presence, 7))
+                .totalGridImportKwh(getDouble(in, presence, 8))
+                .totalGridExportKwh(getDouble(in, presence, 9))
+                .totalHomeUsageKwh(getDouble(in, presence, 10))
+                .batteryCapacityWh(getDouble(in, presence, 11))
+                .batteryRemainingWh(getDouble(in, presence, 12))
+                .currentVoltage(getDouble(in, presence, 13))
+                .currentAmps(getDouble(in, presence, 14));
+
+        Integer chargingStatus = getByte(in, presence, 15);
+        Integer batteryMode = getByte(in, presence, 16);
+        Integer batterySoc = getUnsignedByte(in, presence, 17);
+
+        if (version >= VERSION_2) {
+            builder.latitude(getDouble(in, presence, 18))
+                    .longitude(getDouble(in, presence, 19))
+                    .pvCapacityW(getDouble(in, presence, 20));
+        }
+
+        return builder
+                .chargingStatus(chargingStatus == null ? null : CHARGING_STATUSES[chargingStatus])
+                .batteryMode(batteryMode == null ? null : BATTERY_MODES[batteryMode])
+                .batterySoc(batterySoc)
+                .build();
+    }
+
+    private static int putLong(ByteBuffer out, Long value, int bit) {
+        out.putLong(value == null ? 0L : value);
+        return value == null ? 0 : 1 << bit;
+    }
+
+    private static int putDouble(ByteBuffer out, Double value, int bit) {
+        out.putDouble(value == null ? 0.0 : value);
+        return value == null ? 0 : 1 << bit;
+    }
+
+    private static int putByte(ByteBuffer out, Integer value, int bit) {
+        out.put(value == null ? 0 : value.byteValue());
+        return value == null ? 0 : 1 << bit;
+    }
+
+    // SoC exceeds 127 when remaining > capacity; saturate instead of wrapping to a negative value
+    private static int putUnsignedByte(ByteBuffer out, Integer value, int bit) {
+        out.put(value == null ? 0 : (byte) Math.min(Math.max(value, 0), 255));
+        return value == null ? 0 : 1 << bit;
+    }
+
+    private static Long getLong(ByteBuffer in, int presence, int bit) {
+        long value = in.getLong();
+        return (presence & (1 << bit)) == 0 ? null : value;
+    }
+
+    private static Double getDouble(ByteBuffer in, int presence, int bit) {
+        double value = in.getDouble();
+        return (presence & (1 << bit)) == 0 ? null : value;
+    }
+
+    private static Integer getByte(ByteBuffer in, int presence, int bit) {
+        byte value = in.get();
+        return (presence & (1 << bit)) == 0 ? null : (int) value;
+    }
+
+    private static Integer getUnsignedByte(ByteBuffer in, int presence, int bit) {
+        int value = Byte.toUnsignedInt(in.get());
+        return (presence & (1 << bit)) == 0 ? null : value;
+    }
+}
@@ -1,10 +1,30 @@
 package com.project.hems.simulator_service_testing.config;
 
+import java.util.Map;
+
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer;
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer.WireFormat;
+import com.project.hems.simulator_service_testing.model.EnergyDispatchCommand;
+
 import lombok.Setter;
 
 @Configuration
@@ -15,6 +35,15 @@ public class KafkaConfig {
     private String rawEnergyTopic;
     private Integer rawEnergyPartitionCount;
     private Integer replicaCount;
+    private String fleetAggregatesTopic = "FLEET_AGGREGATES";
+    private String dispatchEnergyTopic = "ENERGY_DISPATCH_COMMANDS";
+    private String dispatchEnergyGroupId = "dispatch-command-readers";
+    private Integer dispatchEnergyPartitionCount = 1;
+    // Commands applied per poll, all under one state store lock
+    private Integer dispatchMaxPollRecords = 2000;
+
+    // JSON keeps existing consumers working; BINARY opts into the compact codec
+    private WireFormat rawEnergyFormat = WireFormat.JSON;
 
     @Bean
     public NewTopic rawEnergyReadings() {
@@ -24,4 +53,58 @@ public class KafkaConfig {
                 .build();
     }
 
+    // One record per tick under a single key, so one partition keeps them in order
+    @Bean
+    public NewTopic fleetAggregates() {
+        return TopicBuilder.name(fleetAggregatesTopic)
+                .partitions(1)
+                .replicas(replicaCount)
+                .build();
+    }
+
+    // Consumer threads match this, so sizing the topic sizes the listener
+    @Bean
+    public NewTopic dispatchEnergyCommands() {
+        return TopicBuilder.name(dispatchEnergyTopic)
+                .partitions(dispatchEnergyPartitionCount)
+                .replicas(replicaCount)
+                .build();
+    }
+
+    /**
+     * Batch listeners for dispatch commands: one consumer per partition, and
+     * offsets committed once the listener has applied the whole poll.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EnergyDispatchCommand> dispatchCommandContainerFactory(
+            KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, dispatchEnergyGroupId);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, dispatchMaxPollRecords);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Set here rather than relying on spring.kafka.properties, so a bad record is skipped, not retried forever
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, EnergyDispatchCommand.class.getName());
+        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+
+        ConcurrentKafkaListenerContainerFactory<String, EnergyDispatchCommand> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        factory.setConcurrency(dispatchEnergyPartitionCount);
+        factory.getContainerProperties().setAckMode(AckMode.BATCH);
+        return factory;
+    }
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles) {
+        return new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new StringSerializer(),
+                new MeterReadingSerializer(rawEnergyFormat));
+    }
+
 }
@@ -2,77 +2,89 @@ package com.project.hems.simulator_service_testing.config;
 
 import java.sql.Timestamp;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
 
 import com.project.hems.simulator_service_testing.domain.MeterEntity;
 import com.project.hems.simulator_service_testing.model.BatteryMode;
 import com.project.hems.simulator_service_testing.model.MeterSnapshot;
 
-@Configuration
+/**
+ * Plain field-by-field conversions between the JPA entity and the snapshot.
+ * Written out by hand so activation and DB warm-up pay for a few getter and
+ * setter calls rather than a reflective type-map lookup per meter.
+ *
+ * <p>
+ * Live readings (power flows, voltage, amps) exist only in the snapshot and
+ * are never persisted; everything else maps one to one.
+ */
+@Component
 public class MeterModelMapper {
 
-    @Bean
-    public ModelMapper getModelMapper() {
-        ModelMapper mapper = new ModelMapper();
+    /**
+     * Entity -> Snapshot (used when loading from DB into the state store).
+     * Battery mode always starts as {@link BatteryMode#AUTO}; a dispatch does
+     * not survive a restart.
+     */
+    public MeterSnapshot toSnapshot(MeterEntity source) {
+        Timestamp lastUpdatedAt = source.getLastUpdatedAt();
 
-        mapper.getConfiguration()
-                .setImplicitMappingEnabled(false)
-                .setAmbiguityIgnored(true);
-
-        // 1. Entity -> Snapshot (Used when loading from DB into Redis)
-        mapper.createTypeMap(MeterEntity.class, MeterSnapshot.class)
-                .setConverter(ctx -> {
-                    MeterEntity source = ctx.getSource();
-
-                    return MeterSnapshot.builder()
-                            .meterId(source.getId())
-                            .siteId(source.getSiteId())
-                            // Map cumulative energy values for "Self-Healing" logic
-                            .totalGridImportKwh(source.getTotalGridImportKwh())
-                            .totalGridExportKwh(source.getTotalGridExportKwh())
-                            .totalSolarYieldKwh(source.getTotalSolarYieldKwh())
-                            .totalHomeUsageKwh(source.getTotalHomeUsageKwh())
-                            // Battery state
-                            .batteryMode(source.getBatteryMode())
-                            .chargingStatus(source.getChargingStatus())
-                            .batteryCapacityWh(source.getBatteryCapacityWh())
-                            .batteryRemainingWh(source.getBatteryRemainingWh())
-                            // Default Mode on Load
-                            .batteryMode(BatteryMode.AUTO)
-                            .batterySoc(source.getBatterySoc())
-                            .timestamp(source.getLastUpdatedAt().toLocalDateTime())
-                            .build();
-                });
-
-        // 2. Snapshot -> Entity (Used when saving Redis state to DB for long-term
-        // storage)
-        mapper.createTypeMap(MeterSnapshot.class, MeterEntity.class)
-                .setConverter(ctx -> {
-                    MeterSnapshot source = ctx.getSource();
+        return MeterSnapshot.builder()
+                .meterId(source.getId())
+                .siteId(source.getSiteId())
+                // Map cumulative energy values for "Self-Healing" logic
+                .totalGridImportKwh(source.getTotalGridImportKwh())
+                .totalGridExportKwh(source.getTotalGridExportKwh())
+                .totalSolarYieldKwh(source.getTotalSolarYieldKwh())
+                .totalHomeUsageKwh(source.getTotalHomeUsageKwh())
+                // Battery state
+                .chargingStatus(source.getChargingStatus())
+                .batteryCapacityWh(source.getBatteryCapacityWh())
+                .batteryRemainingWh(source.getBatteryRemainingWh())
+                // Default Mode on Load
+                .batteryMode(BatteryMode.AUTO)
+                .batterySoc(source.getBatterySoc())
+                // Site configuration
+                .latitude(source.getLatitude())
+                .longitude(source.getLongitude())
+                .pvCapacityW(source.getPvCapacityW())
+                .timestamp(lastUpdatedAt == null ? null : lastUpdatedAt.toLocalDateTime())
+                .build();
+    }
 
-                    MeterEntity entity = new MeterEntity();
-                    entity.setId(source.getMeterId());
-                    entity.setSiteId(source.getSiteId());
-                    entity.setLastUpdatedAt(Timestamp.valueOf(source.getTimestamp()));
+    /**
+     * Snapshot -> Entity (used when saving a newly activated meter).
+     */
+    public MeterEntity toEntity(MeterSnapshot source) {
+        MeterEntity entity = new MeterEntity();
+        entity.setId(source.getMeterId());
+        entity.setSiteId(source.getSiteId());
+        updateEntity(entity, source);
+        return entity;
+    }
 
-                    // Persistence of accumulators (Critical for Billing Microservice)
-                    entity.setTotalGridImportKwh(source.getTotalGridImportKwh());
-                    entity.setTotalGridExportKwh(source.getTotalGridExportKwh());
-                    entity.setTotalSolarYieldKwh(source.getTotalSolarYieldKwh());
-                    entity.setTotalHomeUsageKwh(source.getTotalHomeUsageKwh());
+    /**
+     * Copies the snapshot's persisted state onto an existing entity, leaving
+     * its identity and creation time alone.
+     */
+    public void updateEntity(MeterEntity entity, MeterSnapshot source) {
+        entity.setLastUpdatedAt(source.getTimestamp() == null ? null : Timestamp.valueOf(source.getTimestamp()));
 
-                    // State
-                    entity.setBatteryMode(source.getBatteryMode());
-                    entity.setChargingStatus(source.getChargingStatus());
-                    entity.setBatteryCapacityWh(source.getBatteryCapacityWh());
-                    entity.setBatteryRemainingWh(source.getBatteryRemainingWh());
-                    entity.setBatterySoc(source.getBatterySoc()); // Calculated helper in POJO
+        // Persistence of accumulators (Critical for Billing Microservice)
+        entity.setTotalGridImportKwh(source.getTotalGridImportKwh());
+        entity.setTotalGridExportKwh(source.getTotalGridExportKwh());
+        entity.setTotalSolarYieldKwh(source.getTotalSolarYieldKwh());
+        entity.setTotalHomeUsageKwh(source.getTotalHomeUsageKwh());
 
-                    return entity;
-                });
+        // State
+        entity.setBatteryMode(source.getBatteryMode());
+        entity.setChargingStatus(source.getChargingStatus());
+        entity.setBatteryCapacityWh(source.getBatteryCapacityWh());
+        entity.setBatteryRemainingWh(source.getBatteryRemainingWh());
+        entity.setBatterySoc(source.getBatterySoc()); // Calculated helper in POJO
 
-        return mapper;
+        // Site configuration
+        entity.setLatitude(source.getLatitude());
+        entity.setLongitude(source.getLongitude());
+        entity.setPvCapacityW(source.getPvCapacityW());
     }
 }
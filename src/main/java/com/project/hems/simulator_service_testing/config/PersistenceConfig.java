@@ -0,0 +1,34 @@
+package com.project.hems.simulator_service_testing.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+@ConfigurationProperties(prefix = "property.config.persistence")
+@Setter
+public class PersistenceConfig {
+
+    // Concurrent batch statements; keep below the Hikari pool size
+    private Integer parallelism = 4;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService persistenceExecutor() {
+        log.info("persistenceExecutor: creating persistence executor with parallelism={}", parallelism);
+        return Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("meter-persist-"));
+    }
+
+    // Unbounded by itself; MeterWriteBehind caps the writes in flight
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService writeBehindExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("meter-write-behind-", 0).factory());
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.hems.simulator_service_testing.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.project.hems.simulator_service_testing.random.RandomStreams;
+import com.project.hems.simulator_service_testing.random.SeededRandomStreams;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+@ConfigurationProperties(prefix = "property.config.simulation")
+@Setter
+public class SimulationExecutorConfig {
+
+    public enum TickExecutorType {
+        FORK_JOIN, // Bounded pool sized to the CPU, best for pure physics work
+        VIRTUAL // One virtual thread per shard, best when shards block on Kafka
+    }
+
+    private TickExecutorType executorType = TickExecutorType.FORK_JOIN;
+    private Integer parallelism = Runtime.getRuntime().availableProcessors();
+
+    // Unset picks a fresh seed per start; set it to replay a run
+    private Long randomSeed;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService simulationTickExecutor() {
+        log.info("simulationTickExecutor: creating {} tick executor with parallelism={}", executorType, parallelism);
+
+        if (executorType == TickExecutorType.VIRTUAL) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return new ForkJoinPool(parallelism);
+    }
+
+    @Bean
+    public RandomStreams randomStreams() {
+        long seed = randomSeed != null ? randomSeed : ThreadLocalRandom.current().nextLong();
+
+        // Logged so any run can be reproduced by configuring the seed
+        log.info("randomStreams: master seed={}", seed);
+        return new SeededRandomStreams(seed);
+    }
+}
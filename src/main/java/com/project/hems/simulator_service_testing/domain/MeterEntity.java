@@ -35,6 +35,7 @@ import lombok.NoArgsConstructor;
 @Data
 public class MeterEntity {
 
+    // Rows are inserted over JDBC with ids from MeterIdAllocator; IDENTITY only shapes the schema
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(nullable = false, updatable = false, unique = true)
@@ -100,6 +101,15 @@ public class MeterEntity {
     @Max(value = 100, message = "batterySoc cannot be greater than 100")
     private Integer batterySoc;
 
+    // --- Site Configuration (nullable, defaults apply) ---
+
+    private Double latitude;
+
+    private Double longitude;
+
+    @PositiveOrZero(message = "pvCapacityW cannot be negative")
+    private Double pvCapacityW;
+
     // --- Audit Metadata ---
 
     @CreationTimestamp
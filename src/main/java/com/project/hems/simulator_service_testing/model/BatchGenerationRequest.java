@@ -0,0 +1,67 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.time.LocalDateTime;
+
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer.WireFormat;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchGenerationRequest {
+
+    public enum Output {
+        KAFKA, // Keyed sends to the batch generation topic
+        FILE // One file per shard under the batch output directory
+    }
+
+    @NotNull(message = "meterCount cannot be null")
+    @Positive(message = "meterCount must be positive")
+    private Integer meterCount;
+
+    // Simulated time range; readings are stamped (start, end]
+    @NotNull(message = "start cannot be null")
+    private LocalDateTime start;
+
+    @NotNull(message = "end cannot be null")
+    private LocalDateTime end;
+
+    @Builder.Default
+    @NotNull(message = "stepSeconds cannot be null")
+    @Positive(message = "stepSeconds must be positive")
+    private Integer stepSeconds = 5;
+
+    @Builder.Default
+    @NotNull(message = "output cannot be null")
+    private Output output = Output.FILE;
+
+    // JSON writes NDJSON, BINARY writes fixed-size codec records
+    @Builder.Default
+    @NotNull(message = "fileFormat cannot be null")
+    private WireFormat fileFormat = WireFormat.BINARY;
+
+    @Builder.Default
+    @NotNull(message = "batteryCapacityWh cannot be null")
+    @Positive(message = "batteryCapacityWh must be positive")
+    private Double batteryCapacityWh = 10000.0;
+
+    // Noise seed for this job; defaults to the configured master seed
+    private Long seed;
+
+    // Site configuration for the whole fleet; null uses the solar defaults
+    private Double latitude;
+
+    private Double longitude;
+
+    @Positive(message = "pvCapacityW must be positive")
+    private Double pvCapacityW;
+}
@@ -0,0 +1,51 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchGenerationStatus {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private String jobId;
+
+    private State state;
+
+    private int meterCount;
+
+    // Same seed, fleet and shard count reproduce the readings exactly
+    private long seed;
+
+    private long totalTicks;
+
+    private long completedTicks;
+
+    // Readings written to files, or acknowledged by the broker
+    private long readingsWritten;
+
+    private long failedReadings;
+
+    // Simulated time of the last completed tick
+    private LocalDateTime virtualTime;
+
+    private long elapsedMs;
+
+    private double readingsPerSecond;
+
+    // Output directory or Kafka topic
+    private String destination;
+
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.project.hems.simulator_service_testing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * One site of a bulk activation; the same inputs as a single activation.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkActivationItem {
+
+    private Long siteId;
+
+    private Double batteryCapacity;
+
+    // --- Optional; the solar defaults apply when null ---
+    private Double latitude;
+    private Double longitude;
+    private Double pvCapacityW;
+
+    // Load profile index; derived from the siteId when null. Not persisted
+    private Integer loadProfile;
+}
@@ -0,0 +1,50 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkActivationStatus {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String activationId;
+
+    private State state;
+
+    private LocalDateTime startedAt;
+
+    // Items read from the request so far
+    private long received;
+
+    // Placed in the state store
+    private long activated;
+
+    // Already in the state store, or repeated in the request
+    private long alreadyActive;
+
+    // Missing siteId, non-positive capacity or unknown load profile
+    private long invalid;
+
+    // Activated, but in batches the database rejected; written by the next flush
+    private long failed;
+
+    private long batches;
+
+    private long elapsedMs;
+
+    private double activationsPerSecond;
+
+    private String error;
+}
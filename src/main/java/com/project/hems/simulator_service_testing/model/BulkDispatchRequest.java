@@ -0,0 +1,39 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.project.hems.simulator_service_testing.model.EnergyDispatchCommand.Action;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Target state for many meters, chosen either by an explicit site list or by
+ * a predicate; the two cannot be combined.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkDispatchRequest {
+
+    // --- Explicit sites ---
+    private List<Long> siteIds;
+
+    // --- Predicate; every given constraint must match, and a filter alone must set at least one ---
+    private MeterFilter filter;
+
+    // Names from property.config.aggregates.feeders
+    private String region;
+    private String feeder;
+
+    // --- Target state; null leaves it as it is, but one must be set ---
+    private Action action;
+    private BatteryMode batteryMode;
+}
@@ -0,0 +1,29 @@
+package com.project.hems.simulator_service_testing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkDispatchResult {
+
+    // Meters the sites or predicate selected
+    private long matched;
+
+    // Matched meters whose status or mode was switched
+    private long changed;
+
+    // Matched meters already in the target state
+    private long unchanged;
+
+    // Listed sites that are not in the state store
+    private long unknownSites;
+
+    private long elapsedMs;
+}
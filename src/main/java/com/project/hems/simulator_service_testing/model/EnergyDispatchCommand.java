@@ -0,0 +1,46 @@
+package com.project.hems.simulator_service_testing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * One dispatch command from ENERGY_DISPATCH_COMMANDS. Fields left null leave
+ * the meter's current value alone.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EnergyDispatchCommand {
+
+    // Same transitions as PUT /start-dispatching and /stop-dispatching
+    @Getter
+    @RequiredArgsConstructor
+    public enum Action {
+        START(ChargingStatus.DISCHARGING),
+        STOP(ChargingStatus.CHARGING);
+
+        private final ChargingStatus chargingStatus;
+    }
+
+    private String commandId;
+
+    private Long siteId;
+
+    private Action action;
+
+    // Positive discharges, negative charges; only its sign is used, as START or
+    // STOP when action is null. The physics has no power setpoint
+    private Double targetPowerW;
+
+    private BatteryMode batteryMode;
+}
@@ -0,0 +1,38 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Totals over a group of meters (a feeder, a region or the whole fleet) for
+ * one tick. Power flows follow the snapshot's sign conventions.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FleetAggregate {
+
+    private int meterCount;
+
+    // --- Summed power flows (Watts) ---
+    private double solarProductionW;
+    private double homeConsumptionW;
+    private double batteryPowerW;
+    private double gridPowerW;
+
+    // --- Summed battery state ---
+    private double batteryCapacityWh;
+    private double batteryRemainingWh;
+
+    // Mean SoC over the group's meters, 0 for an empty group
+    private double averageSoc;
+
+    private Map<ChargingStatus, Integer> chargingStatusCounts;
+}
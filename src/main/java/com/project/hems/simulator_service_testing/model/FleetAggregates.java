@@ -0,0 +1,31 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Totals of one tick at every grouping level: each configured feeder, each
+ * region (the sum of its feeders) and the whole fleet.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FleetAggregates {
+
+    // Tick the totals belong to; null before the first tick
+    private LocalDateTime timestamp;
+
+    private FleetAggregate fleet;
+
+    // Keyed by configured name; sites outside every feeder only count towards the fleet
+    private Map<String, FleetAggregate> regions;
+    private Map<String, FleetAggregate> feeders;
+}
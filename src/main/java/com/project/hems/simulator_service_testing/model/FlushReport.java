@@ -0,0 +1,29 @@
+package com.project.hems.simulator_service_testing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlushReport {
+
+    // Meters modified since the previous checkpoint
+    private int dirtyMeters;
+
+    private int rowsWritten;
+
+    private int batches;
+
+    private int failedBatches;
+
+    // Meters written to the local spill file instead (shutdown sync only)
+    private int spilledMeters;
+
+    private long durationNanos;
+}
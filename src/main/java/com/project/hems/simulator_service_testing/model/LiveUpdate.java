@@ -0,0 +1,32 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * What one live feed subscriber receives after a tick.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LiveUpdate {
+
+    private LocalDateTime timestamp;
+
+    // Subscribed sites that exist in the state store
+    private List<MeterSnapshot> meters;
+
+    // Only for subscribers that asked for aggregates
+    private FleetAggregate aggregate;
+
+    // Ticks replaced by this one because the subscriber had not caught up
+    private int coalescedTicks;
+}
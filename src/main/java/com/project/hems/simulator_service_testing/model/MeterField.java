@@ -0,0 +1,52 @@
+package com.project.hems.simulator_service_testing.model;
+
+/**
+ * The {@link MeterSnapshot} properties a fleet read can project, named as
+ * they appear in the snapshot's JSON.
+ */
+public enum MeterField {
+
+    METER_ID("meterId"),
+    SITE_ID("siteId"),
+    TIMESTAMP("timestamp"),
+    SOLAR_PRODUCTION_W("solarProductionW"),
+    HOME_CONSUMPTION_W("homeConsumptionW"),
+    BATTERY_POWER_W("batteryPowerW"),
+    GRID_POWER_W("gridPowerW"),
+    TOTAL_SOLAR_YIELD_KWH("totalSolarYieldKwh"),
+    TOTAL_GRID_IMPORT_KWH("totalGridImportKwh"),
+    TOTAL_GRID_EXPORT_KWH("totalGridExportKwh"),
+    TOTAL_HOME_USAGE_KWH("totalHomeUsageKwh"),
+    BATTERY_CAPACITY_WH("batteryCapacityWh"),
+    BATTERY_REMAINING_WH("batteryRemainingWh"),
+    CHARGING_STATUS("chargingStatus"),
+    BATTERY_MODE("batteryMode"),
+    CURRENT_VOLTAGE("currentVoltage"),
+    CURRENT_AMPS("currentAmps"),
+    BATTERY_SOC("batterySoc"),
+    LATITUDE("latitude"),
+    LONGITUDE("longitude"),
+    PV_CAPACITY_W("pvCapacityW");
+
+    private final String jsonName;
+
+    MeterField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * @return the field with this JSON name, or {@code null} if there is none
+     */
+    public static MeterField ofJsonName(String jsonName) {
+        for (MeterField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Server-side filter for fleet reads. Every bound is inclusive and a
+ * {@code null} or empty constraint matches every meter.
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeterFilter {
+
+    private Long siteIdFrom;
+
+    private Long siteIdTo;
+
+    private Integer socMin;
+
+    private Integer socMax;
+
+    // Meters without a status never match a non-empty set
+    private Set<ChargingStatus> chargingStatuses;
+
+    // Meters without a status are never excluded
+    private Set<ChargingStatus> excludedChargingStatuses;
+
+    private Set<BatteryMode> batteryModes;
+}
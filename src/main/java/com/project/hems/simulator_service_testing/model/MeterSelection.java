@@ -0,0 +1,21 @@
+package com.project.hems.simulator_service_testing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeterSelection {
+
+    // Matching sites, in slot order
+    private long[] siteIds;
+
+    // Cursor for the following page; null once the fleet has been read to the end
+    private Long nextCursor;
+}
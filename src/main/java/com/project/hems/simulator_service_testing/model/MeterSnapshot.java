@@ -97,4 +97,13 @@ public class MeterSnapshot implements Serializable {
     @Min(value = 0, message = "batterySoc cannot be less than 0")
     @Max(value = 100, message = "batterySoc cannot be greater than 100")
     private Integer batterySoc;
+
+    // --- 5. Site Configuration (null falls back to the configured defaults) ---
+
+    private Double latitude;
+
+    private Double longitude;
+
+    @PositiveOrZero(message = "pvCapacityW cannot be negative")
+    private Double pvCapacityW;
 }
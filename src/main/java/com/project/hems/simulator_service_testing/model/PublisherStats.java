@@ -0,0 +1,31 @@
+package com.project.hems.simulator_service_testing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublisherStats {
+
+    // Readings acknowledged by the broker
+    private long sent;
+
+    // Pending readings replaced by a newer reading for the same site
+    private long coalesced;
+
+    private long dropped;
+
+    private long failed;
+
+    // Sends handed to the producer and not yet acknowledged
+    private int inFlight;
+
+    // Sites waiting for in-flight budget (COALESCE policy only)
+    private int queueDepth;
+}
@@ -0,0 +1,24 @@
+package com.project.hems.simulator_service_testing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardTiming {
+
+    private int shardIndex;
+
+    private int meterCount;
+
+    private long durationNanos;
+
+    // false if the shard threw before finishing its meters
+    private boolean completed;
+}
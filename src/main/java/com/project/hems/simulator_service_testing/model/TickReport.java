@@ -0,0 +1,28 @@
+package com.project.hems.simulator_service_testing.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TickReport {
+
+    private int meterCount;
+
+    private long durationNanos;
+
+    // One entry per shard, in shard order
+    private List<ShardTiming> shardTimings;
+
+    public long slowestShardNanos() {
+        return shardTimings.stream().mapToLong(ShardTiming::getDurationNanos).max().orElse(0L);
+    }
+}
@@ -0,0 +1,9 @@
+package com.project.hems.simulator_service_testing.model;
+
+public enum TickStage {
+    ENVIRONMENT, // Solar, home load and voltage noise for every meter
+    PHYSICS, // Energy balance, battery and accumulators
+    METADATA, // Voltage, current and timestamp written back
+    AGGREGATE, // Shard's partial sums per feeder
+    PUBLISH // Materialize and hand each reading to Kafka
+}
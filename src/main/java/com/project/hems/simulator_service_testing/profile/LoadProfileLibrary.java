@@ -0,0 +1,219 @@
+package com.project.hems.simulator_service_testing.profile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Library of household load profiles, each a year of kW samples in a binary
+ * file that is memory-mapped read-only once and shared by every meter. Memory
+ * is the same for ten meters or a million, and a meter's load for a tick is a
+ * single array read.
+ *
+ * <pre>
+ * file   = [int MAGIC][int VERSION][int stepMinutes][int sampleCount] float * sampleCount
+ * sample = average household load in kW over stepMinutes, starting 1 January 00:00 local time
+ * </pre>
+ *
+ * All values are big-endian. A meter is assigned a profile, a phase offset
+ * and a scale derived from its siteId, so the assignment survives restarts
+ * without being stored, and neighbours on the same profile do not switch the
+ * kettle on in the same minute. The phase also shifts UTC to the site's local
+ * mean time by its longitude.
+ *
+ * <p>
+ * When the directory holds no profiles, synthetic ones are written to it first
+ * (see {@link SyntheticLoadProfiles}). With the library disabled or empty the
+ * environment falls back to its random noise model.
+ */
+@Slf4j
+@Component
+@Setter
+@ConfigurationProperties(prefix = "property.config.load-profile")
+public class LoadProfileLibrary {
+
+    static final int MAGIC = 0x4C505246; // "LPRF"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final String FILE_SUFFIX = ".lpf";
+
+    private static final long MINUTES_PER_DAY = 1440L;
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 2400;
+    // Start of each year in epoch minutes, so a sample index needs no calendar per meter
+    private static final long[] YEAR_START_MINUTES = new long[LAST_YEAR - FIRST_YEAR + 2];
+
+    static {
+        for (int i = 0; i < YEAR_START_MINUTES.length; i++) {
+            YEAR_START_MINUTES[i] = LocalDate.of(FIRST_YEAR + i, 1, 1).toEpochDay() * MINUTES_PER_DAY;
+        }
+    }
+
+    private Boolean enabled = true;
+    private String directory = "data/load-profiles";
+    // Written when the directory holds no profiles; 0 disables
+    private Integer syntheticProfileCount = 16;
+    private Long syntheticSeed = 1L;
+    private Double minScale = 0.6;
+    private Double maxScale = 1.6;
+    // On top of the longitude shift, so households on one profile drift apart
+    private Integer maxPhaseJitterMinutes = 45;
+
+    private FloatBuffer[] profiles = new FloatBuffer[0];
+    private int[] stepMinutes = new int[0];
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            log.info("open: load profile library disabled, home load uses the noise model");
+            return;
+        }
+
+        Path dir = Path.of(directory);
+        try {
+            Files.createDirectories(dir);
+            List<Path> files = listProfiles(dir);
+
+            if (files.isEmpty() && syntheticProfileCount > 0) {
+                log.info("open: no load profiles in {}, writing {} synthetic profiles",
+                        dir.toAbsolutePath(), syntheticProfileCount);
+                for (int i = 0; i < syntheticProfileCount; i++) {
+                    SyntheticLoadProfiles.write(dir.resolve(String.format("synthetic-%03d%s", i, FILE_SUFFIX)),
+                            syntheticSeed + i);
+                }
+                files = listProfiles(dir);
+            }
+
+            map(files);
+        } catch (IOException e) {
+            log.error("open: failed to load profiles from {}, home load uses the noise model: {}",
+                    dir.toAbsolutePath(), e.getMessage(), e);
+            profiles = new FloatBuffer[0];
+            stepMinutes = new int[0];
+        }
+    }
+
+    public boolean isEmpty() {
+        return profiles.length == 0;
+    }
+
+    public int profileCount() {
+        return profiles.length;
+    }
+
+    public int profileOf(long siteId) {
+        return (int) Long.remainderUnsigned(mix64(siteId), profiles.length);
+    }
+
+    /**
+     * @param longitude site longitude in degrees, east positive
+     * @return minutes to add to a UTC epoch minute to index the site's profile
+     */
+    public int phaseOf(long siteId, double longitude) {
+        long jitterRange = 2L * maxPhaseJitterMinutes + 1;
+        int jitter = (int) Long.remainderUnsigned(mix64(mix64(siteId) + 1), jitterRange) - maxPhaseJitterMinutes;
+        return (int) Math.round(longitude * 4.0) + jitter;
+    }
+
+    public double scaleOf(long siteId) {
+        double unit = (mix64(mix64(siteId) + 2) >>> 11) * 0x1.0p-53;
+        return minScale + unit * (maxScale - minScale);
+    }
+
+    /**
+     * @param localEpochMinute UTC epoch minute plus the site's phase
+     * @return profile load in watts, before the site's scale
+     */
+    public double loadW(int profile, long localEpochMinute) {
+        FloatBuffer samples = profiles[profile];
+        int index = (int) (minuteOfYear(localEpochMinute) / stepMinutes[profile]);
+        // A leap year's last day, or a profile shorter than a year, wraps around
+        return samples.get(index < samples.limit() ? index : index % samples.limit()) * 1000.0;
+    }
+
+    private void map(List<Path> files) throws IOException {
+        List<FloatBuffer> mapped = new ArrayList<>();
+        List<Integer> steps = new ArrayList<>();
+        long mappedBytes = 0;
+
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long fileSize = channel.size();
+                if (fileSize < HEADER_BYTES) {
+                    log.warn("map: skipping {}, too short for a header", file);
+                    continue;
+                }
+
+                // The mapping stays valid after the channel is closed
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                int magic = buffer.getInt();
+                int version = buffer.getInt();
+                int step = buffer.getInt();
+                int count = buffer.getInt();
+
+                if (magic != MAGIC || version != VERSION || step <= 0 || count <= 0
+                        || fileSize != HEADER_BYTES + (long) count * Float.BYTES) {
+                    log.warn("map: skipping {}, bad header magic={} version={} step={} count={} size={}",
+                            file, Integer.toHexString(magic), version, step, count, fileSize);
+                    continue;
+                }
+
+                ByteBuffer body = buffer.slice(HEADER_BYTES, count * Float.BYTES);
+                mapped.add(body.asFloatBuffer());
+                steps.add(step);
+                mappedBytes += fileSize;
+            }
+        }
+
+        profiles = mapped.toArray(FloatBuffer[]::new);
+        stepMinutes = steps.stream().mapToInt(Integer::intValue).toArray();
+
+        log.info("open: mapped {} load profiles ({} KB) from {}", profiles.length, mappedBytes / 1024,
+                Path.of(directory).toAbsolutePath());
+    }
+
+    private static List<Path> listProfiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long minuteOfYear(long epochMinute) {
+        int year = (int) Math.floorDiv(epochMinute, 525_949L) + 1970 - FIRST_YEAR;
+        if (year < 1 || year >= YEAR_START_MINUTES.length - 1) {
+            return Math.floorMod(epochMinute, 365 * MINUTES_PER_DAY);
+        }
+        // The estimate is at most a year off either way
+        if (epochMinute < YEAR_START_MINUTES[year]) {
+            year--;
+        } else if (epochMinute >= YEAR_START_MINUTES[year + 1]) {
+            year++;
+        }
+        return epochMinute - YEAR_START_MINUTES[year];
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,115 @@
+package com.project.hems.simulator_service_testing.profile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Writes plausible household load profiles so the library works without real
+ * metering data. Each seed gives one household: a standby base load with a
+ * fridge cycle, morning and evening activity peaks (later on weekends), more
+ * load in winter, optional electric heating, and appliance runs (kettle,
+ * oven, washing machine, ...) started at random, mostly when people are
+ * active. The same seed always writes the same file.
+ */
+final class SyntheticLoadProfiles {
+
+    private static final int DAYS = 365;
+    private static final int MINUTES_PER_DAY = 1440;
+
+    // {power kW, duration minutes}
+    private static final double[][] APPLIANCES = {
+            { 2.0, 3 }, // kettle
+            { 1.1, 5 }, // microwave
+            { 2.2, 45 }, // oven
+            { 1.8, 55 }, // washing machine
+            { 1.5, 70 }, // dishwasher
+            { 2.5, 90 }, // tumble dryer
+    };
+
+    private SyntheticLoadProfiles() {
+    }
+
+    static void write(Path file, long seed) throws IOException {
+        float[] samples = generate(seed);
+
+        ByteBuffer buffer = ByteBuffer.allocate(LoadProfileLibrary.HEADER_BYTES + samples.length * Float.BYTES);
+        buffer.putInt(LoadProfileLibrary.MAGIC);
+        buffer.putInt(LoadProfileLibrary.VERSION);
+        buffer.putInt(1);
+        buffer.putInt(samples.length);
+        buffer.asFloatBuffer().put(samples);
+        buffer.rewind();
+
+        // Write aside and move, so a crash never leaves a half-written profile behind
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static float[] generate(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        double baseKw = 0.12 + random.nextDouble() * 0.18;
+        double activityKw = 0.35 + random.nextDouble() * 0.45;
+        double morningHour = 6.5 + random.nextDouble() * 1.5;
+        double eveningHour = 18.0 + random.nextDouble() * 2.0;
+        boolean homeDuringDay = random.nextDouble() < 0.3;
+        double heatingKw = random.nextDouble() < 0.25 ? 1.0 + random.nextDouble() * 1.5 : 0.0;
+        int fridgePeriod = 35 + random.nextInt(20);
+
+        float[] samples = new float[DAYS * MINUTES_PER_DAY];
+        double applianceKw = 0.0;
+        int applianceMinutesLeft = 0;
+
+        for (int day = 0; day < DAYS; day++) {
+            // 1 at the start of January, 0 at the start of July
+            double winter = 0.5 + 0.5 * Math.cos(2 * Math.PI * (day - 15) / DAYS);
+            boolean weekend = day % 7 >= 5;
+            double wake = weekend ? morningHour + 1.5 : morningHour;
+
+            for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+                double hour = minute / 60.0;
+                boolean awake = hour >= wake - 0.5 && hour < 23.0;
+
+                double activity = 0.9 * bump(hour, wake + 0.5, 0.8)
+                        + bump(hour, eveningHour, 1.8)
+                        + (awake && (weekend || homeDuringDay) ? 0.35 : 0.0);
+
+                double loadKw = baseKw
+                        + (minute % fridgePeriod < fridgePeriod / 3 ? 0.07 : 0.0)
+                        + activityKw * activity * (0.8 + 0.4 * winter)
+                        + heatingKw * winter * (awake ? 0.6 : 0.25);
+
+                if (applianceMinutesLeft == 0 && random.nextDouble() < 0.004 * activity) {
+                    double[] appliance = APPLIANCES[random.nextInt(APPLIANCES.length)];
+                    applianceKw = appliance[0];
+                    applianceMinutesLeft = (int) appliance[1];
+                }
+                if (applianceMinutesLeft > 0) {
+                    loadKw += applianceKw;
+                    applianceMinutesLeft--;
+                }
+
+                samples[day * MINUTES_PER_DAY + minute] = (float) loadKw;
+            }
+        }
+        return samples;
+    }
+
+    private static double bump(double hour, double peakHour, double width) {
+        double x = (hour - peakHour) / width;
+        return Math.exp(-x * x);
+    }
+}
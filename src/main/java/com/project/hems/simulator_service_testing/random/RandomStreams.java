@@ -0,0 +1,20 @@
+package com.project.hems.simulator_service_testing.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * Hands out independent random streams for the simulation's noise. Each shard
+ * draws from its own generator, so parallel shards never contend on shared
+ * random state.
+ */
+public interface RandomStreams {
+
+    /**
+     * Generator for one shard during one tick. Given the same inputs it always
+     * produces the same sequence, so a run with the same seed, shard count and
+     * fleet replays bit for bit.
+     */
+    SplittableRandom forShard(int shard, long tickMillis);
+
+    long masterSeed();
+}
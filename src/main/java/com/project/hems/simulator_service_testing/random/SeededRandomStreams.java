@@ -0,0 +1,37 @@
+package com.project.hems.simulator_service_testing.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives every stream from a master seed, the shard index and the tick time,
+ * using the same 64-bit mixing function as {@link SplittableRandom}. Streams
+ * are created per tick rather than carried across ticks, so a replay can start
+ * from any tick.
+ */
+public class SeededRandomStreams implements RandomStreams {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long masterSeed;
+
+    public SeededRandomStreams(long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    @Override
+    public SplittableRandom forShard(int shard, long tickMillis) {
+        long seed = mix64(masterSeed + GOLDEN_GAMMA * (shard + 1L));
+        return new SplittableRandom(mix64(seed ^ mix64(tickMillis)));
+    }
+
+    @Override
+    public long masterSeed() {
+        return masterSeed;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.hems.simulator_service_testing.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out {@code meter_info} ids from blocks reserved in the
+ * {@code meter_id_block} table, so activations insert rows with their id
+ * already known instead of reading an IDENTITY value back per row. One
+ * locked read and update reserves {@code idBlockSize} ids; blocks taken by
+ * other instances never overlap.
+ *
+ * <p>
+ * The table is created on first use and seeded past the highest existing id.
+ * Ids left in a block at shutdown are simply never used.
+ */
+@Slf4j
+@Repository
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.persistence")
+public class MeterIdAllocator {
+
+    private static final String BLOCK_NAME = "meter";
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS meter_id_block ("
+            + "name VARCHAR(32) NOT NULL PRIMARY KEY, next_id BIGINT NOT NULL)";
+
+    private static final String SEED = "INSERT IGNORE INTO meter_id_block (name, next_id) "
+            + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM meter_info";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private Integer idBlockSize = 1000;
+
+    private TransactionTemplate reservation;
+    private long nextId;
+    private long blockEnd;
+
+    public synchronized long next() {
+        if (nextId == blockEnd) {
+            reserveBlock();
+        }
+        return nextId++;
+    }
+
+    // Own transaction: a block must stay reserved even if the caller's transaction rolls back
+    private void reserveBlock() {
+        if (reservation == null) {
+            // MySQL commits implicitly around DDL, so it runs outside any transaction
+            TransactionTemplate ddl = new TransactionTemplate(transactionManager);
+            ddl.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+            ddl.executeWithoutResult(status -> jdbcTemplate.execute(CREATE_TABLE));
+
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.executeWithoutResult(status -> jdbcTemplate.update(SEED, BLOCK_NAME));
+            reservation = template;
+        }
+
+        long first = reservation.execute(status -> {
+            Long current = jdbcTemplate.queryForObject(
+                    "SELECT next_id FROM meter_id_block WHERE name = ? FOR UPDATE", Long.class, BLOCK_NAME);
+            jdbcTemplate.update("UPDATE meter_id_block SET next_id = ? WHERE name = ?",
+                    current + idBlockSize, BLOCK_NAME);
+            return current;
+        });
+
+        nextId = first;
+        blockEnd = first + idBlockSize;
+        log.debug("reserveBlock: reserved meter ids [{}, {})", nextId, blockEnd);
+    }
+}
@@ -0,0 +1,262 @@
+package com.project.hems.simulator_service_testing.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.state.MeterRowBuffer;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Plain JDBC access to {@code meter_info} for bulk paths. Hibernate cannot
+ * batch inserts for an IDENTITY id, so rows carry ids from
+ * {@link MeterIdAllocator} and are written as multi-row statements: plain
+ * inserts for bulk activation, {@code INSERT ... ON DUPLICATE KEY UPDATE}
+ * keyed on the unique {@code site_id} column for the periodic flush and
+ * write-behind.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MeterJdbcRepository {
+
+    private static final String INSERT_PREFIX = "INSERT INTO meter_info ("
+            + "id, site_id, total_solar_yield_kwh, total_grid_import_kwh, total_grid_export_kwh, total_home_usage_kwh, "
+            + "charging_status, battery_mode, battery_capacity_wh, battery_remaining_wh, battery_soc, "
+            + "latitude, longitude, pv_capacity_w, created_at, last_updated_at) VALUES ";
+
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, ?)";
+
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE "
+            + "total_solar_yield_kwh = VALUES(total_solar_yield_kwh), "
+            + "total_grid_import_kwh = VALUES(total_grid_import_kwh), "
+            + "total_grid_export_kwh = VALUES(total_grid_export_kwh), "
+            + "total_home_usage_kwh = VALUES(total_home_usage_kwh), "
+            + "charging_status = VALUES(charging_status), "
+            + "battery_mode = VALUES(battery_mode), "
+            + "battery_capacity_wh = VALUES(battery_capacity_wh), "
+            + "battery_remaining_wh = VALUES(battery_remaining_wh), "
+            + "battery_soc = VALUES(battery_soc), "
+            + "latitude = VALUES(latitude), "
+            + "longitude = VALUES(longitude), "
+            + "pv_capacity_w = VALUES(pv_capacity_w), "
+            + "last_updated_at = VALUES(last_updated_at)";
+
+    // Only the fields the simulation changes; static metadata is left alone
+    private static final String UPDATE_STATE = "UPDATE meter_info SET "
+            + "total_solar_yield_kwh = ?, total_grid_import_kwh = ?, total_grid_export_kwh = ?, "
+            + "total_home_usage_kwh = ?, battery_remaining_wh = ?, battery_soc = ?, charging_status = ?, "
+            + "last_updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Statement text only depends on the row count, which is nearly always the batch size
+    private final Map<Integer, String> upsertSqlByRows = new ConcurrentHashMap<>();
+    private final Map<Integer, String> insertSqlByRows = new ConcurrentHashMap<>();
+
+    /**
+     * Upserts rows {@code [from, to)} of the buffer in one statement.
+     *
+     * @return number of rows sent to the database
+     */
+    public int upsert(MeterRowBuffer buffer, int from, int to) {
+        int rows = to - from;
+        if (rows <= 0) {
+            return 0;
+        }
+
+        String sql = upsertSql(rows);
+
+        jdbcTemplate.update(sql, ps -> {
+            int p = 1;
+            for (int i = from; i < to; i++) {
+                p = bindRow(ps, p, buffer, i);
+            }
+        });
+
+        return rows;
+    }
+
+    /**
+     * Upserts materialized meters in one statement; a row that already exists
+     * for a siteId keeps its id.
+     *
+     * @return number of rows sent to the database
+     */
+    public int upsert(List<MeterSnapshot> meters) {
+        if (meters.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.update(upsertSql(meters.size()), ps -> {
+            int p = 1;
+            for (MeterSnapshot meter : meters) {
+                p = bindNewRow(ps, p, meter);
+            }
+        });
+
+        return meters.size();
+    }
+
+    /**
+     * Inserts newly activated meters, whose ids are already assigned, in one
+     * statement. Fails as a whole if any siteId is already persisted.
+     *
+     * @return number of rows inserted
+     */
+    public int insert(List<MeterSnapshot> meters) {
+        if (meters.isEmpty()) {
+            return 0;
+        }
+
+        String sql = insertSqlByRows.computeIfAbsent(meters.size(),
+                count -> buildSql(INSERT_PREFIX, INSERT_ROW, "", count));
+
+        jdbcTemplate.update(sql, ps -> {
+            int p = 1;
+            for (MeterSnapshot meter : meters) {
+                p = bindNewRow(ps, p, meter);
+            }
+        });
+
+        return meters.size();
+    }
+
+    /**
+     * Loads every persisted siteId with its meter id in a single query.
+     */
+    public Map<Long, Long> findMeterIdsBySiteId() {
+        Map<Long, Long> meterIds = new HashMap<>();
+        jdbcTemplate.query("SELECT site_id, id FROM meter_info", rs -> {
+            meterIds.put(rs.getLong(1), rs.getLong(2));
+        });
+        return meterIds;
+    }
+
+    /**
+     * Updates the simulation-owned fields of existing rows as one JDBC batch.
+     * {@code meterIds[i]} is the database id for row {@code i} of the buffer.
+     *
+     * @return number of rows sent to the database
+     */
+    public int updateState(MeterRowBuffer buffer, long[] meterIds, int from, int to) {
+        int rows = to - from;
+        if (rows <= 0) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_STATE, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int row = from + i;
+                ps.setDouble(1, buffer.getTotalSolarYieldKwh(row));
+                ps.setDouble(2, buffer.getTotalGridImportKwh(row));
+                ps.setDouble(3, buffer.getTotalGridExportKwh(row));
+                ps.setDouble(4, buffer.getTotalHomeUsageKwh(row));
+                ps.setDouble(5, buffer.getBatteryRemainingWh(row));
+                ps.setInt(6, buffer.getBatterySoc(row));
+                ps.setString(7, buffer.getChargingStatus(row) == null ? null : buffer.getChargingStatus(row).name());
+                ps.setTimestamp(8, new Timestamp(buffer.getTimestampMillis(row)));
+                ps.setLong(9, meterIds[row]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows;
+            }
+        });
+
+        return rows;
+    }
+
+    private String upsertSql(int rows) {
+        return upsertSqlByRows.computeIfAbsent(rows,
+                count -> buildSql(INSERT_PREFIX, INSERT_ROW, UPSERT_SUFFIX, count));
+    }
+
+    private static int bindRow(PreparedStatement ps, int p, MeterRowBuffer buffer, int row) throws SQLException {
+        ps.setLong(p++, requireMeterId(buffer.getSiteId(row), buffer.getMeterId(row)));
+        ps.setLong(p++, buffer.getSiteId(row));
+        ps.setDouble(p++, buffer.getTotalSolarYieldKwh(row));
+        ps.setDouble(p++, buffer.getTotalGridImportKwh(row));
+        ps.setDouble(p++, buffer.getTotalGridExportKwh(row));
+        ps.setDouble(p++, buffer.getTotalHomeUsageKwh(row));
+        ps.setString(p++, buffer.getChargingStatus(row) == null ? null : buffer.getChargingStatus(row).name());
+        ps.setString(p++, buffer.getBatteryMode(row) == null ? null : buffer.getBatteryMode(row).name());
+        ps.setDouble(p++, buffer.getBatteryCapacityWh(row));
+        ps.setDouble(p++, buffer.getBatteryRemainingWh(row));
+        ps.setInt(p++, buffer.getBatterySoc(row));
+        setNullableDouble(ps, p++, buffer.getLatitude(row));
+        setNullableDouble(ps, p++, buffer.getLongitude(row));
+        setNullableDouble(ps, p++, buffer.getPvCapacityW(row));
+        ps.setTimestamp(p++, new Timestamp(buffer.getTimestampMillis(row)));
+        return p;
+    }
+
+    private static int bindNewRow(PreparedStatement ps, int p, MeterSnapshot meter) throws SQLException {
+        ps.setLong(p++, requireMeterId(meter.getSiteId(),
+                meter.getMeterId() == null ? MeterStateStore.NO_METER_ID : meter.getMeterId()));
+        ps.setLong(p++, meter.getSiteId());
+        ps.setDouble(p++, valueOrZero(meter.getTotalSolarYieldKwh()));
+        ps.setDouble(p++, valueOrZero(meter.getTotalGridImportKwh()));
+        ps.setDouble(p++, valueOrZero(meter.getTotalGridExportKwh()));
+        ps.setDouble(p++, valueOrZero(meter.getTotalHomeUsageKwh()));
+        ps.setString(p++, meter.getChargingStatus() == null ? null : meter.getChargingStatus().name());
+        ps.setString(p++, meter.getBatteryMode() == null ? null : meter.getBatteryMode().name());
+        ps.setDouble(p++, valueOrZero(meter.getBatteryCapacityWh()));
+        ps.setDouble(p++, valueOrZero(meter.getBatteryRemainingWh()));
+        ps.setInt(p++, meter.getBatterySoc() == null ? 0 : meter.getBatterySoc());
+        ps.setObject(p++, meter.getLatitude(), Types.DOUBLE);
+        ps.setObject(p++, meter.getLongitude(), Types.DOUBLE);
+        ps.setObject(p++, meter.getPvCapacityW(), Types.DOUBLE);
+        ps.setTimestamp(p++, meter.getTimestamp() == null
+                ? new Timestamp(System.currentTimeMillis())
+                : Timestamp.valueOf(meter.getTimestamp()));
+        return p;
+    }
+
+    // IDENTITY values would land inside blocks MeterIdAllocator has handed out
+    private static long requireMeterId(long siteId, long meterId) {
+        if (meterId == MeterStateStore.NO_METER_ID) {
+            throw new IllegalStateException("siteId " + siteId + " has no meterId from MeterIdAllocator");
+        }
+        return meterId;
+    }
+
+    private static double valueOrZero(Double value) {
+        return value == null ? 0.0 : value;
+    }
+
+    // The store keeps NaN for unset site configuration; MySQL has no NaN
+    private static void setNullableDouble(PreparedStatement ps, int p, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            ps.setNull(p, Types.DOUBLE);
+        } else {
+            ps.setDouble(p, value);
+        }
+    }
+
+    private static String buildSql(String prefix, String row, String suffix, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (row.length() + 2) + suffix.length());
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.append(suffix).toString();
+    }
+}
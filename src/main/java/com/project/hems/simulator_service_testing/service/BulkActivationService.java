@@ -0,0 +1,289 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.hems.simulator_service_testing.model.BulkActivationItem;
+import com.project.hems.simulator_service_testing.model.BulkActivationStatus;
+import com.project.hems.simulator_service_testing.model.BulkActivationStatus.State;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.repository.MeterIdAllocator;
+import com.project.hems.simulator_service_testing.repository.MeterJdbcRepository;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Activates many sites from one streamed request. Items are read one at a
+ * time and handled in batches: each batch takes its meterIds from
+ * {@link MeterIdAllocator}, is placed into the state store under a single
+ * write lock, so a tick sees a batch either completely or not at all, and is
+ * then persisted as one multi-row insert.
+ *
+ * <p>
+ * Sites already in the store are skipped, including those another request
+ * activates while the batch is being prepared. A batch the database rejects
+ * stays active and counts as failed; its sites are marked modified, so the
+ * next periodic flush writes them. Progress of running and recent
+ * activations is available from {@link #getRecent()}.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.bulk-activation")
+public class BulkActivationService {
+
+    // 15 bind parameters per row; MySQL allows 65535 per statement
+    private static final int MAX_BATCH_SIZE = 4000;
+
+    private final MeterStateStore meterStateStore;
+    private final MeterManagementService meterManagementService;
+    private final EnvironmentSimulator environmentSimulator;
+    private final MeterIdAllocator meterIdAllocator;
+    private final MeterJdbcRepository meterJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private Integer batchSize = 1000;
+    private Integer maxRecentActivations = 20;
+
+    // Newest first; running activations are never evicted
+    private final Deque<Activation> recent = new ArrayDeque<>();
+
+    private Counter activatedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        activatedCounter = Counter.builder("simulator.activation.bulk.meters")
+                .description("Meters handled by bulk activation, by outcome")
+                .tag("result", "activated")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("simulator.activation.bulk.meters")
+                .description("Meters handled by bulk activation, by outcome")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("simulator.activation.bulk.batch")
+                .description("One bulk activation batch, from id allocation to database insert")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads {@link BulkActivationItem}s from {@code body}, either as NDJSON or
+     * as a JSON array, and activates them batch by batch. Returns once the
+     * body is exhausted; a malformed item ends the activation as failed, with
+     * the batches before it kept.
+     */
+    public BulkActivationStatus activate(InputStream body) {
+        Activation activation = new Activation(UUID.randomUUID().toString());
+        track(activation);
+
+        int size = Math.min(batchSize, MAX_BATCH_SIZE);
+        log.info("activate: bulk activation {} started with batches of {}", activation.id, size);
+
+        List<BulkActivationItem> batch = new ArrayList<>(size);
+        // Sites of this request, to skip repeats before they reach the store
+        Set<Long> seen = new HashSet<>();
+
+        try (MappingIterator<BulkActivationItem> items = objectMapper.readerFor(BulkActivationItem.class)
+                .readValues(body)) {
+
+            while (items.hasNextValue()) {
+                BulkActivationItem item = items.nextValue();
+                activation.received++;
+
+                if (!isValid(item)) {
+                    activation.invalid++;
+                } else if (!seen.add(item.getSiteId()) || meterStateStore.contains(item.getSiteId())) {
+                    activation.alreadyActive++;
+                } else {
+                    batch.add(item);
+                }
+
+                if (batch.size() == size) {
+                    activateBatch(activation, batch);
+                    batch.clear();
+                }
+            }
+            activateBatch(activation, batch);
+
+            activation.finish(State.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            log.error("activate: bulk activation {} failed after {} items: {}", activation.id, activation.received,
+                    e.getMessage(), e);
+            activation.finish(State.FAILED, e.getMessage());
+        }
+
+        log.info("activate: bulk activation {} {}: {} activated, {} already active, {} invalid, {} failed in {} ms",
+                activation.id, activation.state, activation.activated, activation.alreadyActive, activation.invalid,
+                activation.failed, activation.elapsedMs());
+
+        return activation.toStatus();
+    }
+
+    /**
+     * Running and recently finished bulk activations, newest first.
+     */
+    public List<BulkActivationStatus> getRecent() {
+        synchronized (recent) {
+            return recent.stream().map(Activation::toStatus).toList();
+        }
+    }
+
+    private void activateBatch(Activation activation, List<BulkActivationItem> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long batchStart = System.nanoTime();
+        List<MeterSnapshot> meters = new ArrayList<>(batch.size());
+        Map<Long, Integer> loadProfiles = new HashMap<>();
+
+        for (BulkActivationItem item : batch) {
+            MeterSnapshot meter = meterManagementService.newMeterSnapshot(item.getSiteId(), item.getBatteryCapacity(),
+                    item.getLatitude(), item.getLongitude(), item.getPvCapacityW());
+            meter.setMeterId(meterIdAllocator.next());
+            meters.add(meter);
+
+            if (item.getLoadProfile() != null) {
+                loadProfiles.put(item.getSiteId(), item.getLoadProfile());
+            }
+        }
+
+        // Sites activated since they were read are only detected here, under the write lock
+        int[] slots = meterStateStore.insertAll(meters, loadProfiles.isEmpty() ? null
+                : (meter, slot) -> {
+                    Integer profile = loadProfiles.get(meter.getSiteId());
+                    if (profile != null) {
+                        environmentSimulator.assignLoadProfile(meterStateStore, slot, profile);
+                    }
+                });
+
+        List<MeterSnapshot> inserted = new ArrayList<>(meters.size());
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != MeterStateStore.NO_SLOT) {
+                inserted.add(meters.get(i));
+            }
+        }
+
+        activation.alreadyActive += meters.size() - inserted.size();
+        activation.activated += inserted.size();
+        activation.batches++;
+        activatedCounter.increment(inserted.size());
+
+        try {
+            meterJdbcRepository.insert(inserted);
+        } catch (DataAccessException e) {
+            log.warn("activateBatch: bulk activation {} batch of {} sites rejected, left to the periodic flush: {}",
+                    activation.id, inserted.size(), e.getMessage());
+            activation.failed += inserted.size();
+            failedCounter.increment(inserted.size());
+        }
+        batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+
+        log.debug("activateBatch: bulk activation {} batch {} placed {} sites ({} so far)", activation.id,
+                activation.batches, inserted.size(), activation.activated);
+    }
+
+    private boolean isValid(BulkActivationItem item) {
+        if (item.getSiteId() == null || item.getBatteryCapacity() == null || !(item.getBatteryCapacity() > 0)) {
+            return false;
+        }
+        // Profiles only exist when the load profile library is in use
+        Integer profile = item.getLoadProfile();
+        return profile == null || (profile >= 0 && profile < environmentSimulator.loadProfileCount());
+    }
+
+    private void track(Activation activation) {
+        synchronized (recent) {
+            recent.addFirst(activation);
+            // Drop the oldest finished activations beyond the limit
+            int excess = recent.size() - maxRecentActivations;
+            Iterator<Activation> oldestFirst = recent.descendingIterator();
+            while (excess > 0 && oldestFirst.hasNext()) {
+                if (oldestFirst.next().state != State.RUNNING) {
+                    oldestFirst.remove();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    // Written by the request thread only; read by status polls
+    private static final class Activation {
+
+        private final String id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+
+        private volatile State state = State.RUNNING;
+        private volatile long received;
+        private volatile long activated;
+        private volatile long alreadyActive;
+        private volatile long invalid;
+        private volatile long failed;
+        private volatile long batches;
+        private volatile long endNanos;
+        private volatile String error;
+
+        private Activation(String id) {
+            this.id = id;
+        }
+
+        private void finish(State finalState, String message) {
+            endNanos = System.nanoTime();
+            error = message;
+            state = finalState;
+        }
+
+        private long elapsedMs() {
+            long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+            return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+        }
+
+        private BulkActivationStatus toStatus() {
+            long elapsedMs = elapsedMs();
+            return BulkActivationStatus.builder()
+                    .activationId(id)
+                    .state(state)
+                    .startedAt(startedAt)
+                    .received(received)
+                    .activated(activated)
+                    .alreadyActive(alreadyActive)
+                    .invalid(invalid)
+                    .failed(failed)
+                    .batches(batches)
+                    .elapsedMs(elapsedMs)
+                    .activationsPerSecond(elapsedMs == 0 ? 0.0 : activated * 1000.0 / elapsedMs)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.EnergyDispatchCommand;
+import com.project.hems.simulator_service_testing.model.EnergyDispatchCommand.Action;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies dispatch commands from ENERGY_DISPATCH_COMMANDS a poll at a time.
+ * Every command of a poll is applied in one pass under the state store's read
+ * lock, in partition order, so a later command for a site wins; the offsets
+ * are committed after this returns.
+ *
+ * <p>
+ * Latency is measured from the record's timestamp, i.e. when the command was
+ * produced, to when it took effect in the state store.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DispatchCommandConsumer {
+
+    // Outcome of one command, as an index into the per-poll counts
+    private static final int APPLIED = 0;
+    private static final int UNCHANGED = 1;
+    private static final int UNKNOWN_SITE = 2;
+    private static final int INVALID = 3;
+
+    private final MeterStateStore meterStateStore;
+    private final MeterPowerFlowService meterPowerFlowService;
+    private final MeterRegistry meterRegistry;
+
+    private Counter appliedCounter;
+    private Counter unchangedCounter;
+    private Counter unknownSiteCounter;
+    private Counter invalidCounter;
+    private Timer latencyTimer;
+    private DistributionSummary batchSummary;
+
+    @PostConstruct
+    public void registerMetrics() {
+        appliedCounter = commandCounter("applied");
+        unchangedCounter = commandCounter("unchanged");
+        unknownSiteCounter = commandCounter("unknown-site");
+        invalidCounter = commandCounter("invalid");
+        latencyTimer = Timer.builder("simulator.dispatch.command.latency")
+                .description("From a dispatch command being produced to its effect in the state store")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        batchSummary = DistributionSummary.builder("simulator.dispatch.command.batch")
+                .description("Dispatch commands applied per poll")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(id = "dispatch-command-consumer",
+            topics = "${property.config.kafka.dispatch-energy-topic:ENERGY_DISPATCH_COMMANDS}",
+            containerFactory = "dispatchCommandContainerFactory")
+    public void onCommands(List<ConsumerRecord<String, EnergyDispatchCommand>> records) {
+
+        int[] outcomes = meterStateStore.read(() -> {
+            int[] counts = new int[INVALID + 1];
+            for (ConsumerRecord<String, EnergyDispatchCommand> record : records) {
+                counts[apply(record.value())]++;
+            }
+            return counts;
+        });
+
+        // Every command of the poll took effect when the lock was released
+        long appliedAt = System.currentTimeMillis();
+        for (ConsumerRecord<String, EnergyDispatchCommand> record : records) {
+            if (record.timestamp() > 0) {
+                latencyTimer.record(Math.max(0, appliedAt - record.timestamp()), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        appliedCounter.increment(outcomes[APPLIED]);
+        unchangedCounter.increment(outcomes[UNCHANGED]);
+        unknownSiteCounter.increment(outcomes[UNKNOWN_SITE]);
+        invalidCounter.increment(outcomes[INVALID]);
+        batchSummary.record(records.size());
+
+        if (outcomes[UNKNOWN_SITE] > 0 || outcomes[INVALID] > 0) {
+            log.warn("onCommands: {} dispatch commands: {} applied, {} unchanged, {} for unknown sites, {} invalid",
+                    records.size(), outcomes[APPLIED], outcomes[UNCHANGED], outcomes[UNKNOWN_SITE], outcomes[INVALID]);
+        } else {
+            log.debug("onCommands: {} dispatch commands: {} applied, {} unchanged",
+                    records.size(), outcomes[APPLIED], outcomes[UNCHANGED]);
+        }
+    }
+
+    // Runs under the store's read lock
+    private int apply(EnergyDispatchCommand command) {
+        // Null when the record could not be deserialized
+        if (command == null || command.getSiteId() == null) {
+            return INVALID;
+        }
+
+        ChargingStatus status = statusOf(command);
+        if (status == null && command.getBatteryMode() == null) {
+            return INVALID;
+        }
+
+        int slot = meterStateStore.slotOf(command.getSiteId());
+        if (slot == MeterStateStore.NO_SLOT) {
+            return UNKNOWN_SITE;
+        }
+
+        return meterPowerFlowService.applyDispatch(slot, status, command.getBatteryMode()) ? APPLIED : UNCHANGED;
+    }
+
+    private static ChargingStatus statusOf(EnergyDispatchCommand command) {
+        Action action = command.getAction();
+        if (action == null && command.getTargetPowerW() != null && command.getTargetPowerW() != 0.0) {
+            action = command.getTargetPowerW() > 0 ? Action.START : Action.STOP;
+        }
+        return action == null ? null : action.getChargingStatus();
+    }
+
+    private Counter commandCounter(String result) {
+        return Counter.builder("simulator.dispatch.commands")
+                .description("Dispatch commands consumed, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
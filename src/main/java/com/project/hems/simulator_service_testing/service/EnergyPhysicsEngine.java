@@ -3,23 +3,19 @@ package com.project.hems.simulator_service_testing.service;
 import org.springframework.stereotype.Component;
 
 import com.project.hems.simulator_service_testing.model.ChargingStatus;
-import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
 
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
 @Component
 public class EnergyPhysicsEngine {
 
-        private static final double DELTA_SECONDS = 5.0;
         private static final double SECONDS_TO_HOURS = 1.0 / 3600.0;
 
-        public void processEnergyBalance(MeterSnapshot meter, double solarW, double loadW) {
-                log.debug(
-                                "processEnergyBalance: start | solarW = {}, loadW = {}",
-                                solarW,
-                                loadW);
-
+        /**
+         * @param deltaSeconds simulated time covered by this step, taken from the
+         *                     {@link com.project.hems.simulator_service_testing.clock.SimulationClock}
+         */
+        public void processEnergyBalance(MeterStateStore store, int slot, double solarW, double loadW,
+                        double deltaSeconds) {
                 double remainingLoadW = loadW;
                 double batteryFlowW = 0.0;
                 double gridFlowW = 0.0;
@@ -28,151 +24,98 @@ public class EnergyPhysicsEngine {
                 double solarUsedW = Math.min(solarW, remainingLoadW);
                 remainingLoadW -= solarUsedW;
 
-                log.debug(
-                                "processEnergyBalance: solarUsedW = {}, remainingLoadW = {}",
-                                solarUsedW,
-                                remainingLoadW);
-
                 // Grid used second
                 if (remainingLoadW > 0) {
                         gridFlowW = remainingLoadW; // import
                         remainingLoadW = 0;
-
-                        log.debug(
-                                        "processEnergyBalance: grid import applied, gridFlowW = {}",
-                                        gridFlowW);
                 }
 
                 // Battery used last (only if load still not satisfied)
                 if (remainingLoadW > 0) {
                         double maxDischargeW = Math.min(remainingLoadW, 3000.0);
-                        double dischargedW = calculateBatteryDischarge(meter, maxDischargeW);
+                        double dischargedW = calculateBatteryDischarge(store, slot, maxDischargeW, deltaSeconds);
                         batteryFlowW = -dischargedW;
                         remainingLoadW -= dischargedW;
-
-                        log.debug(
-                                        "processEnergyBalance: battery discharge applied, dischargedW = {}, remainingLoadW = {}",
-                                        dischargedW,
-                                        remainingLoadW);
                 }
 
                 // Surplus handling (solar excess)
                 double surplusW = solarW - solarUsedW;
 
-                log.debug(
-                                "processEnergyBalance: surplusW = {}",
-                                surplusW);
-
                 if (surplusW > 0) {
                         // Export to grid first
                         gridFlowW -= surplusW; // export
 
-                        log.debug(
-                                        "processEnergyBalance: solar surplus exported to grid, gridFlowW = {}",
-                                        gridFlowW);
-
                         // Charge battery only if needed
                         double maxChargeW = Math.min(surplusW, 3000.0);
-                        double chargedW = calculateBatteryCharge(meter, maxChargeW);
+                        double chargedW = calculateBatteryCharge(store, slot, maxChargeW, deltaSeconds);
                         batteryFlowW += chargedW;
                         gridFlowW += chargedW; // remove charged part from export
-
-                        log.debug(
-                                        "processEnergyBalance: battery charged using surplus, chargedW = {}, batteryFlowW = {}, gridFlowW = {}",
-                                        chargedW,
-                                        batteryFlowW,
-                                        gridFlowW);
                 }
 
-                meter.setSolarProductionW(solarW);
-                meter.setHomeConsumptionW(loadW);
-                meter.setBatteryPowerW(batteryFlowW);
-                meter.setGridPowerW(gridFlowW);
-
-                log.debug(
-                                "processEnergyBalance: final flows | batteryFlowW = {}, gridFlowW = {}",
-                                batteryFlowW,
-                                gridFlowW);
+                store.setSolarProductionW(slot, solarW);
+                store.setHomeConsumptionW(slot, loadW);
+                store.setBatteryPowerW(slot, batteryFlowW);
+                store.setGridPowerW(slot, gridFlowW);
 
-                updateEnergyAccumulators(meter, solarW, loadW, gridFlowW);
+                updateEnergyAccumulators(store, slot, solarW, loadW, gridFlowW, deltaSeconds);
         }
 
-        public void updateEnergyAccumulators(MeterSnapshot meter, double solarW, double loadW, double gridW) {
-                log.debug("updateEnergyAccumulators: updating cumulative energy values");
+        public void updateEnergyAccumulators(MeterStateStore store, int slot, double solarW, double loadW,
+                        double gridW, double deltaSeconds) {
+                double conversionFactor = deltaSeconds / (3600.0 * 1000.0);
 
-                double conversionFactor = DELTA_SECONDS / (3600.0 * 1000.0);
+                store.setTotalSolarYieldKwh(slot,
+                                store.getTotalSolarYieldKwh(slot) + (solarW * conversionFactor));
 
-                meter.setTotalSolarYieldKwh(
-                                meter.getTotalSolarYieldKwh() + (solarW * conversionFactor));
-
-                meter.setTotalHomeUsageKwh(
-                                meter.getTotalHomeUsageKwh() + (loadW * conversionFactor));
+                store.setTotalHomeUsageKwh(slot,
+                                store.getTotalHomeUsageKwh(slot) + (loadW * conversionFactor));
 
                 if (gridW > 0) {
-                        meter.setTotalGridExportKwh(
-                                        meter.getTotalGridExportKwh() + (gridW * conversionFactor));
-                        log.debug("updateEnergyAccumulators: grid export accumulated");
-
+                        store.setTotalGridExportKwh(slot,
+                                        store.getTotalGridExportKwh(slot) + (gridW * conversionFactor));
                 } else if (gridW < 0) {
-                        meter.setTotalGridImportKwh(
-                                        meter.getTotalGridImportKwh() + (Math.abs(gridW) * conversionFactor));
-                        log.debug("updateEnergyAccumulators: grid import accumulated");
+                        store.setTotalGridImportKwh(slot,
+                                        store.getTotalGridImportKwh(slot) + (Math.abs(gridW) * conversionFactor));
                 }
         }
 
-        public double calculateBatteryCharge(MeterSnapshot meter, double chargeW) {
-                log.debug(
-                                "calculateBatteryCharge: requested chargeW = {}, batteryRemainingWh = {}",
-                                chargeW, meter.getBatteryRemainingWh());
-
-                double energyToAddWh = chargeW * DELTA_SECONDS * SECONDS_TO_HOURS;
-                double newWh = meter.getBatteryRemainingWh() + energyToAddWh;
-
-                if (newWh >= meter.getBatteryCapacityWh()) {
-                        double actualAddedWh = meter.getBatteryCapacityWh() - meter.getBatteryRemainingWh();
+        public double calculateBatteryCharge(MeterStateStore store, int slot, double chargeW,
+                        double deltaSeconds) {
+                double energyToAddWh = chargeW * deltaSeconds * SECONDS_TO_HOURS;
+                double newWh = store.getBatteryRemainingWh(slot) + energyToAddWh;
 
-                        meter.setBatteryRemainingWh(meter.getBatteryCapacityWh());
-                        meter.setChargingStatus(ChargingStatus.FULL);
+                if (newWh >= store.getBatteryCapacityWh(slot)) {
+                        double actualAddedWh = store.getBatteryCapacityWh(slot) - store.getBatteryRemainingWh(slot);
 
-                        log.info("calculateBatteryCharge: battery reached FULL state");
+                        store.setBatteryRemainingWh(slot, store.getBatteryCapacityWh(slot));
+                        store.setChargingStatus(slot, ChargingStatus.FULL);
 
-                        return actualAddedWh / (DELTA_SECONDS * SECONDS_TO_HOURS);
+                        return actualAddedWh / (deltaSeconds * SECONDS_TO_HOURS);
                 } else {
-                        meter.setBatteryRemainingWh(newWh);
-                        meter.setChargingStatus(ChargingStatus.CHARGING);
-
-                        log.debug(
-                                        "calculateBatteryCharge: charging, newBatteryWh = {}",
-                                        newWh);
+                        store.setBatteryRemainingWh(slot, newWh);
+                        store.setChargingStatus(slot, ChargingStatus.CHARGING);
 
                         return chargeW;
                 }
         }
 
-        public double calculateBatteryDischarge(MeterSnapshot meter, double requestedW) {
-                log.debug(
-                                "calculateBatteryDischarge: requestedW = {}, batteryRemainingWh = {}",
-                                requestedW, meter.getBatteryRemainingWh());
-
-                double energyNeededWh = requestedW * DELTA_SECONDS * SECONDS_TO_HOURS;
+        public double calculateBatteryDischarge(MeterStateStore store, int slot, double requestedW,
+                        double deltaSeconds) {
+                double energyNeededWh = requestedW * deltaSeconds * SECONDS_TO_HOURS;
 
-                if (meter.getBatteryRemainingWh() >= energyNeededWh) {
-                        meter.setBatteryRemainingWh(
-                                        meter.getBatteryRemainingWh() - energyNeededWh);
-                        meter.setChargingStatus(ChargingStatus.DISCHARGING);
-
-                        log.debug("calculateBatteryDischarge: normal discharge");
+                if (store.getBatteryRemainingWh(slot) >= energyNeededWh) {
+                        store.setBatteryRemainingWh(slot,
+                                        store.getBatteryRemainingWh(slot) - energyNeededWh);
+                        store.setChargingStatus(slot, ChargingStatus.DISCHARGING);
 
                         return requestedW;
                 } else {
-                        double actualProvidedWh = meter.getBatteryRemainingWh();
-
-                        meter.setBatteryRemainingWh(0.0);
-                        meter.setChargingStatus(ChargingStatus.EMPTY);
+                        double actualProvidedWh = store.getBatteryRemainingWh(slot);
 
-                        log.info("calculateBatteryDischarge: battery EMPTY");
+                        store.setBatteryRemainingWh(slot, 0.0);
+                        store.setChargingStatus(slot, ChargingStatus.EMPTY);
 
-                        return actualProvidedWh / (DELTA_SECONDS * SECONDS_TO_HOURS);
+                        return actualProvidedWh / (deltaSeconds * SECONDS_TO_HOURS);
                 }
         }
 }
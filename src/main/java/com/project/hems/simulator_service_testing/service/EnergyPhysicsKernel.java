@@ -0,0 +1,132 @@
+package com.project.hems.simulator_service_testing.service;
+
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+
+/**
+ * Batch form of {@link EnergyPhysicsEngine} for a whole shard. Works on dense
+ * arrays in one branch-free loop: every decision the scalar engine makes with
+ * an {@code if} is made here with a select, so the JIT can emit conditional
+ * moves instead of unpredictable branches, and nothing is logged.
+ *
+ * <p>
+ * Results are bit-identical to the scalar engine, including its quirks: the
+ * battery is never discharged (grid import always covers the deficit first)
+ * and a positive grid flow, which is an import, is accumulated as export.
+ * Floating-point expressions are kept in the scalar engine's evaluation order
+ * for the same reason; do not hoist or reassociate them.
+ */
+public final class EnergyPhysicsKernel {
+
+    private static final double SECONDS_TO_HOURS = 1.0 / 3600.0;
+    private static final double MAX_CHARGE_W = 3000.0;
+    private static final byte FULL = (byte) ChargingStatus.FULL.ordinal();
+    private static final byte CHARGING = (byte) ChargingStatus.CHARGING.ordinal();
+
+    private EnergyPhysicsKernel() {
+    }
+
+    /**
+     * Struct-of-arrays scratch space for one shard. Inputs are gathered from
+     * the store, {@link EnergyPhysicsKernel#run} updates them in place, and
+     * the caller scatters them back. Reused across ticks; arrays only grow.
+     */
+    public static final class Batch {
+
+        public int size;
+
+        // --- Inputs ---
+        public double[] solarW = new double[0];
+        public double[] loadW = new double[0];
+        public double[] batteryCapacityWh = new double[0];
+
+        // --- Inputs updated in place ---
+        public double[] batteryRemainingWh = new double[0];
+        public double[] totalSolarYieldKwh = new double[0];
+        public double[] totalHomeUsageKwh = new double[0];
+        public double[] totalGridImportKwh = new double[0];
+        public double[] totalGridExportKwh = new double[0];
+        // ChargingStatus ordinals as stored by MeterStateStore, -1 for null
+        public byte[] chargingStatus = new byte[0];
+
+        // --- Outputs ---
+        public double[] batteryPowerW = new double[0];
+        public double[] gridPowerW = new double[0];
+        public int[] batterySoc = new int[0];
+
+        // --- Carried for the caller, not read by the kernel ---
+        public double[] voltage = new double[0];
+
+        public void resize(int newSize) {
+            if (newSize > solarW.length) {
+                int capacity = Math.max(newSize, solarW.length + (solarW.length >> 1));
+                solarW = new double[capacity];
+                loadW = new double[capacity];
+                batteryCapacityWh = new double[capacity];
+                batteryRemainingWh = new double[capacity];
+                totalSolarYieldKwh = new double[capacity];
+                totalHomeUsageKwh = new double[capacity];
+                totalGridImportKwh = new double[capacity];
+                totalGridExportKwh = new double[capacity];
+                chargingStatus = new byte[capacity];
+                batteryPowerW = new double[capacity];
+                gridPowerW = new double[capacity];
+                batterySoc = new int[capacity];
+                voltage = new double[capacity];
+            }
+            size = newSize;
+        }
+    }
+
+    public static void run(Batch batch, double deltaSeconds) {
+
+        double conversionFactor = deltaSeconds / (3600.0 * 1000.0);
+        double chargeSecondsToHours = deltaSeconds * SECONDS_TO_HOURS;
+
+        double[] solarW = batch.solarW;
+        double[] loadW = batch.loadW;
+        double[] capacityWh = batch.batteryCapacityWh;
+        double[] remainingWh = batch.batteryRemainingWh;
+        double[] solarYieldKwh = batch.totalSolarYieldKwh;
+        double[] homeUsageKwh = batch.totalHomeUsageKwh;
+        double[] gridImportKwh = batch.totalGridImportKwh;
+        double[] gridExportKwh = batch.totalGridExportKwh;
+        byte[] status = batch.chargingStatus;
+        double[] batteryPowerW = batch.batteryPowerW;
+        double[] gridPowerW = batch.gridPowerW;
+        int[] soc = batch.batterySoc;
+
+        for (int i = 0; i < batch.size; i++) {
+            double solar = solarW[i];
+            double load = loadW[i];
+            double capacity = capacityWh[i];
+            double remaining = remainingWh[i];
+
+            // Solar first, grid covers the rest; the surplus is what solar leaves over
+            double solarUsed = Math.min(solar, load);
+            double importW = load - solarUsed;
+            double surplusW = solar - solarUsed;
+
+            // Surplus charges the battery, capped at 3 kW and at capacity
+            boolean charging = surplusW > 0;
+            double maxChargeW = Math.min(surplusW, MAX_CHARGE_W);
+            double newWh = remaining + maxChargeW * deltaSeconds * SECONDS_TO_HOURS;
+            boolean full = newWh >= capacity;
+            double chargedW = full ? (capacity - remaining) / chargeSecondsToHours : maxChargeW;
+
+            double gridW = charging ? (importW - surplusW) + chargedW : importW;
+
+            batteryPowerW[i] = charging ? 0.0 + chargedW : 0.0;
+            gridPowerW[i] = gridW;
+            remainingWh[i] = charging ? (full ? capacity : newWh) : remaining;
+            status[i] = charging ? (full ? FULL : CHARGING) : status[i];
+
+            solarYieldKwh[i] += solar * conversionFactor;
+            homeUsageKwh[i] += load * conversionFactor;
+            gridExportKwh[i] = gridW > 0 ? gridExportKwh[i] + gridW * conversionFactor : gridExportKwh[i];
+            gridImportKwh[i] = gridW < 0 ? gridImportKwh[i] + Math.abs(gridW) * conversionFactor : gridImportKwh[i];
+
+            double newRemaining = remainingWh[i];
+            soc[i] = capacity <= 0 ? 0 : (int) Math.round((newRemaining / capacity) * 100);
+        }
+    }
+}
@@ -1,80 +1,108 @@
 package com.project.hems.simulator_service_testing.service;
 
+import java.util.SplittableRandom;
+
 import org.springframework.stereotype.Component;
 
-import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.profile.LoadProfileLibrary;
+import com.project.hems.simulator_service_testing.solar.SolarIrradianceModel;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 
-@Slf4j
 @Component
+@RequiredArgsConstructor
 public class EnvironmentSimulator {
 
-    public double calculateSolarProduction() {
-        log.debug("calculateSolarProduction: start calculating solar production");
-
-        int hour = java.time.LocalTime.now().getHour();
-        log.debug("calculateSolarProduction: current hour = {}", hour);
+    private final SolarIrradianceModel solarIrradianceModel;
+    private final LoadProfileLibrary loadProfileLibrary;
+
+    /**
+     * Looks up irradiance for every solar region once per tick.
+     *
+     * @param epochMillis simulation time, from the wall clock in live mode or a
+     *                    virtual clock during batch generation
+     */
+    public SolarTick prepareSolar(long epochMillis) {
+        return solarIrradianceModel.forTick(epochMillis);
+    }
 
-        // Simple window: 6 AM to 6 PM (18:00)
-        if (hour < 6 || hour >= 18) {
-            log.debug("calculateSolarProduction: night time detected, solar production = 0.0");
-            return 0.0;
+    /**
+     * PV output of one site for the tick: its rated capacity times its
+     * region's clear-sky output fraction.
+     */
+    public double calculateSolarProduction(MeterStateStore store, int slot, SolarTick solar) {
+        int region = store.getSolarRegion(slot);
+        if (region < 0) {
+            region = solarIrradianceModel.regionOf(store.getLatitude(slot), store.getLongitude(slot));
+            store.setSolarRegion(slot, region);
         }
 
-        double maxPeakW = 5000.0; // 5kW system
-        double radians = Math.PI * (hour - 6) / 12.0;
-        double solarProduction = maxPeakW * Math.sin(radians);
-
-        log.debug(
-                "calculateSolarProduction: calculated solarProductionW = {} using maxPeakW = {}",
-                solarProduction,
-                maxPeakW);
+        double pvCapacityW = store.getPvCapacityW(slot);
+        return (Double.isNaN(pvCapacityW) ? solarIrradianceModel.getDefaultPvCapacityW() : pvCapacityW)
+                * solar.fraction(region);
+    }
 
-        return solarProduction;
+    /**
+     * Home load of one site for the tick: a read from its load profile, or the
+     * noise model when no profiles are loaded.
+     *
+     * @param random only drawn from by the noise model
+     */
+    public double sampleHomeConsumption(MeterStateStore store, int slot, long tickMillis,
+            SplittableRandom random) {
+        return loadProfileLibrary.isEmpty() ? sampleHomeConsumption(random) : profileLoad(store, slot, tickMillis);
     }
 
-    public double calculateHomeConsumption() {
-        log.debug("calculateHomeConsumption: start calculating home consumption");
+    /**
+     * Noise model: a 400 W base load with +/-50 W of noise and a 10% chance of
+     * a 2-4 kW appliance spike, never below 100 W.
+     */
+    public double sampleHomeConsumption(SplittableRandom random) {
+        double noise = (random.nextDouble() * 100) - 50;
+        double spike = random.nextDouble() < 0.10 ? 2000.0 + (random.nextDouble() * 2000.0) : 0.0;
+        return Math.max(400.0 + noise + spike, 100.0);
+    }
 
-        double baseLoad = 400.0;
-        log.debug("calculateHomeConsumption: baseLoadW = {}", baseLoad);
+    /**
+     * Number of load profiles a site can be assigned; 0 when the noise model
+     * is used instead.
+     */
+    public int loadProfileCount() {
+        return loadProfileLibrary.profileCount();
+    }
 
-        double noise = (Math.random() * 100) - 50;
-        log.debug("calculateHomeConsumption: noiseW = {}", noise);
+    /**
+     * Pins the site to {@code profile}, with the phase and scale its siteId
+     * and longitude would give it anyway.
+     */
+    public void assignLoadProfile(MeterStateStore store, int slot, int profile) {
+        long siteId = store.getSiteId(slot);
+        double longitude = store.getLongitude(slot);
+        store.setLoadProfile(slot,
+                profile,
+                loadProfileLibrary.phaseOf(siteId,
+                        Double.isNaN(longitude) ? solarIrradianceModel.getDefaultLongitude() : longitude),
+                loadProfileLibrary.scaleOf(siteId));
+    }
 
-        double spike = 0.0;
-        if (Math.random() < 0.10) {
-            spike = 2000.0 + (Math.random() * 2000.0);
-            log.info("calculateHomeConsumption: high power spike detected, spikeW = {}", spike);
+    private double profileLoad(MeterStateStore store, int slot, long tickMillis) {
+        if (store.getLoadProfile(slot) < 0) {
+            assignLoadProfile(store, slot, loadProfileLibrary.profileOf(store.getSiteId(slot)));
         }
 
-        double totalLoad = baseLoad + noise + spike;
-        double finalLoad = Math.max(totalLoad, 100.0);
-
-        log.debug(
-                "calculateHomeConsumption: totalLoadW = {}, finalConsumptionW = {}",
-                totalLoad,
-                finalLoad);
-
-        return finalLoad;
+        long localMinute = Math.floorDiv(tickMillis, 60_000L) + store.getLoadPhaseMinutes(slot);
+        return loadProfileLibrary.loadW(store.getLoadProfile(slot), localMinute) * store.getLoadScale(slot);
     }
 
-    public void applyElectricalMetadata(MeterSnapshot meter) {
-        log.debug("applyElectricalMetadata: applying electrical metadata to meter");
-
-        double voltage = 230.0 + (Math.random() * 4 - 2);
-        meter.setCurrentVoltage(voltage);
-
-        log.debug("applyElectricalMetadata: calculated voltage = {}", voltage);
-
-        double totalPowerW = Math.abs(meter.getHomeConsumptionW());
-        double currentAmps = totalPowerW / voltage;
-        meter.setCurrentAmps(currentAmps);
+    public double sampleVoltage(SplittableRandom random) {
+        return 230.0 + (random.nextDouble() * 4 - 2);
+    }
 
-        log.debug(
-                "applyElectricalMetadata: gridPowerW = {}, calculated currentAmps = {}",
-                meter.getGridPowerW(),
-                currentAmps);
+    public void applyElectricalMetadata(MeterStateStore store, int slot, SplittableRandom random) {
+        double voltage = sampleVoltage(random);
+        store.setCurrentVoltage(slot, voltage);
+        store.setCurrentAmps(slot, Math.abs(store.getHomeConsumptionW(slot)) / voltage);
     }
 }
@@ -0,0 +1,38 @@
+package com.project.hems.simulator_service_testing.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.project.hems.simulator_service_testing.model.FleetAggregates;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes each tick's {@link FleetAggregates} as one record, always under
+ * the same key so consumers see the ticks in order.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.kafka")
+public class FleetAggregatePublisher {
+
+    private static final String FLEET_KEY = "fleet";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    private String fleetAggregatesTopic = "FLEET_AGGREGATES";
+
+    public void publish(FleetAggregates aggregates) {
+        kafkaTemplate.send(fleetAggregatesTopic, FLEET_KEY, aggregates).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.warn("publish: aggregates of tick {} not sent to {}: {}", aggregates.getTimestamp(),
+                        fleetAggregatesTopic, ex.getMessage());
+            }
+        });
+    }
+}
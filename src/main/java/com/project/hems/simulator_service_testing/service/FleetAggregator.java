@@ -0,0 +1,350 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.FleetAggregate;
+import com.project.hems.simulator_service_testing.model.FleetAggregates;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.web.exception.InvalidMeterQueryException;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps fleet totals at three levels (feeder, region and fleet) as part of
+ * the tick.
+ *
+ * <p>
+ * Each shard sums its own meters into a private partial per feeder while its
+ * columns are still hot; once every shard has finished, the partials are
+ * reduced into feeders, regions and the fleet. The reduction costs
+ * shards x feeders, whatever the fleet size, and the result is kept until the
+ * next tick, so reads never touch the store.
+ *
+ * <p>
+ * Feeders are configured as non-overlapping siteId ranges, each naming its
+ * region. Sites outside every feeder still count towards the fleet.
+ */
+@Slf4j
+@Component
+@Setter
+@ConfigurationProperties(prefix = "property.config.aggregates")
+public class FleetAggregator {
+
+    @Getter
+    @Setter
+    public static class Feeder {
+        private String name;
+        private String region;
+        private Long siteIdFrom;
+        private Long siteIdTo;
+    }
+
+    private static final ChargingStatus[] CHARGING_STATUSES = ChargingStatus.values();
+
+    // Per group: solar, home load, battery and grid W, capacity and remaining Wh
+    private static final int SUMS = 6;
+    // Per group: meters, SoC sum, then one count per charging status
+    private static final int COUNTS = 2 + CHARGING_STATUSES.length;
+
+    private List<Feeder> feeders = new ArrayList<>();
+
+    // Resolved from the feeders at start-up, sorted by siteIdFrom
+    private long[] feederFrom = new long[0];
+    private long[] feederTo = new long[0];
+    private String[] feederNames = new String[0];
+    private int[] regionOfFeeder = new int[0];
+    private String[] regionNames = new String[0];
+
+    // Group per slot: a feeder index, or the feeder count for sites outside every feeder.
+    // Extended on the tick thread only; slots never change site
+    private int[] groupOfSlot = new int[0];
+    private int mappedSlots;
+
+    // One per shard, each written only by its shard
+    private Partial[] partials = new Partial[0];
+
+    @Getter
+    private volatile FleetAggregates latest;
+
+    @PostConstruct
+    public void init() {
+        List<Feeder> sorted = new ArrayList<>(feeders);
+        sorted.sort(Comparator.comparing(Feeder::getSiteIdFrom, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        int count = sorted.size();
+        feederFrom = new long[count];
+        feederTo = new long[count];
+        feederNames = new String[count];
+        regionOfFeeder = new int[count];
+        List<String> regions = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        for (int i = 0; i < count; i++) {
+            Feeder feeder = sorted.get(i);
+            if (feeder.getName() == null || feeder.getName().isBlank() || !names.add(feeder.getName())) {
+                throw new IllegalStateException("feeder names must be set and unique: " + feeder.getName());
+            }
+            if (feeder.getSiteIdFrom() == null || feeder.getSiteIdTo() == null
+                    || feeder.getSiteIdFrom() > feeder.getSiteIdTo()) {
+                throw new IllegalStateException("feeder " + feeder.getName() + " needs siteIdFrom <= siteIdTo");
+            }
+            if (i > 0 && feeder.getSiteIdFrom() <= feederTo[i - 1]) {
+                throw new IllegalStateException("feeder " + feeder.getName() + " overlaps feeder " + feederNames[i - 1]);
+            }
+
+            String region = feeder.getRegion() == null || feeder.getRegion().isBlank() ? feeder.getName()
+                    : feeder.getRegion();
+            if (!regions.contains(region)) {
+                regions.add(region);
+            }
+
+            feederFrom[i] = feeder.getSiteIdFrom();
+            feederTo[i] = feeder.getSiteIdTo();
+            feederNames[i] = feeder.getName();
+            regionOfFeeder[i] = regions.indexOf(region);
+        }
+        regionNames = regions.toArray(new String[0]);
+
+        latest = reduce(null);
+        log.info("init: aggregating {} feeders in {} regions", feederNames.length, regionNames.length);
+    }
+
+    /**
+     * Prepares one partial per shard and assigns feeders to slots added since
+     * the last tick. Called by the tick under the store's read lock, before
+     * the shards run.
+     */
+    public void beginTick(MeterStateStore store, int shardCount) {
+        int size = store.size();
+        if (size > mappedSlots) {
+            if (size > groupOfSlot.length) {
+                groupOfSlot = Arrays.copyOf(groupOfSlot, Math.max(size, groupOfSlot.length * 2));
+            }
+            for (int slot = mappedSlots; slot < size; slot++) {
+                groupOfSlot[slot] = feederOf(store.getSiteId(slot));
+            }
+            mappedSlots = size;
+        }
+
+        int groups = feederNames.length + 1;
+        if (partials.length != shardCount) {
+            partials = new Partial[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                partials[i] = new Partial(groups);
+            }
+        } else {
+            for (Partial partial : partials) {
+                partial.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds the shard's meters to its partial. Runs on the shard's thread after
+     * its physics step.
+     */
+    public void accumulate(int shardIndex, MeterStateStore store, int[] slots) {
+        Partial partial = partials[shardIndex];
+        double[] sums = partial.sums;
+        long[] counts = partial.counts;
+        int[] groups = groupOfSlot;
+
+        for (int slot : slots) {
+            int sum = groups[slot] * SUMS;
+            sums[sum] += store.getSolarProductionW(slot);
+            sums[sum + 1] += store.getHomeConsumptionW(slot);
+            sums[sum + 2] += store.getBatteryPowerW(slot);
+            sums[sum + 3] += store.getGridPowerW(slot);
+            sums[sum + 4] += store.getBatteryCapacityWh(slot);
+            sums[sum + 5] += store.getBatteryRemainingWh(slot);
+
+            int count = groups[slot] * COUNTS;
+            counts[count]++;
+            counts[count + 1] += store.getBatterySoc(slot);
+            byte status = store.getChargingStatusOrdinal(slot);
+            if (status >= 0) {
+                counts[count + 2 + status]++;
+            }
+        }
+    }
+
+    /**
+     * Reduces the shards' partials and makes them the latest aggregates.
+     * Called by the tick once every shard has finished.
+     */
+    public void completeTick(long tickMillis) {
+        latest = reduce(LocalDateTime.ofInstant(Instant.ofEpochMilli(tickMillis), ZoneId.systemDefault()));
+    }
+
+    public FleetAggregate fleet() {
+        return latest.getFleet();
+    }
+
+    public FleetAggregate region(String name) {
+        FleetAggregate aggregate = latest.getRegions().get(name);
+        if (aggregate == null) {
+            throw new InvalidMeterQueryException("unknown region " + name);
+        }
+        return aggregate;
+    }
+
+    public FleetAggregate feeder(String name) {
+        FleetAggregate aggregate = latest.getFeeders().get(name);
+        if (aggregate == null) {
+            throw new InvalidMeterQueryException("unknown feeder " + name);
+        }
+        return aggregate;
+    }
+
+    /**
+     * SiteId ranges of the named feeder, as inclusive from/to pairs.
+     */
+    public long[] feederSiteRanges(String name) {
+        for (int feeder = 0; feeder < feederNames.length; feeder++) {
+            if (feederNames[feeder].equals(name)) {
+                return new long[] { feederFrom[feeder], feederTo[feeder] };
+            }
+        }
+        throw new InvalidMeterQueryException("unknown feeder " + name);
+    }
+
+    /**
+     * SiteId ranges of every feeder in the named region, as inclusive from/to
+     * pairs in ascending order.
+     */
+    public long[] regionSiteRanges(String name) {
+        int region = Arrays.asList(regionNames).indexOf(name);
+        if (region < 0) {
+            throw new InvalidMeterQueryException("unknown region " + name);
+        }
+
+        long[] ranges = new long[feederNames.length * 2];
+        int count = 0;
+        for (int feeder = 0; feeder < feederNames.length; feeder++) {
+            if (regionOfFeeder[feeder] == region) {
+                ranges[count++] = feederFrom[feeder];
+                ranges[count++] = feederTo[feeder];
+            }
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    private int feederOf(long siteId) {
+        // Last feeder starting at or below siteId
+        int index = Arrays.binarySearch(feederFrom, siteId);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index >= 0 && siteId <= feederTo[index] ? index : feederNames.length;
+    }
+
+    private FleetAggregates reduce(LocalDateTime timestamp) {
+        int feederCount = feederNames.length;
+        double[] sums = new double[(feederCount + 1) * SUMS];
+        long[] counts = new long[(feederCount + 1) * COUNTS];
+        for (Partial partial : partials) {
+            add(sums, 0, partial.sums, 0, sums.length);
+            add(counts, 0, partial.counts, 0, counts.length);
+        }
+
+        // Regions from their feeders, the fleet from every group including unassigned sites
+        double[] regionSums = new double[regionNames.length * SUMS];
+        long[] regionCounts = new long[regionNames.length * COUNTS];
+        double[] fleetSums = new double[SUMS];
+        long[] fleetCounts = new long[COUNTS];
+        for (int group = 0; group <= feederCount; group++) {
+            if (group < feederCount) {
+                int region = regionOfFeeder[group];
+                add(regionSums, region * SUMS, sums, group * SUMS, SUMS);
+                add(regionCounts, region * COUNTS, counts, group * COUNTS, COUNTS);
+            }
+            add(fleetSums, 0, sums, group * SUMS, SUMS);
+            add(fleetCounts, 0, counts, group * COUNTS, COUNTS);
+        }
+
+        Map<String, FleetAggregate> feederAggregates = new LinkedHashMap<>();
+        for (int feeder = 0; feeder < feederCount; feeder++) {
+            feederAggregates.put(feederNames[feeder], toAggregate(sums, counts, feeder));
+        }
+        Map<String, FleetAggregate> regionAggregates = new LinkedHashMap<>();
+        for (int region = 0; region < regionNames.length; region++) {
+            regionAggregates.put(regionNames[region], toAggregate(regionSums, regionCounts, region));
+        }
+
+        return FleetAggregates.builder()
+                .timestamp(timestamp)
+                .fleet(toAggregate(fleetSums, fleetCounts, 0))
+                .regions(regionAggregates)
+                .feeders(feederAggregates)
+                .build();
+    }
+
+    private static FleetAggregate toAggregate(double[] sums, long[] counts, int group) {
+        int sum = group * SUMS;
+        int count = group * COUNTS;
+        long meters = counts[count];
+
+        Map<ChargingStatus, Integer> chargingStatusCounts = new EnumMap<>(ChargingStatus.class);
+        for (ChargingStatus status : CHARGING_STATUSES) {
+            chargingStatusCounts.put(status, (int) counts[count + 2 + status.ordinal()]);
+        }
+
+        return FleetAggregate.builder()
+                .meterCount((int) meters)
+                .solarProductionW(sums[sum])
+                .homeConsumptionW(sums[sum + 1])
+                .batteryPowerW(sums[sum + 2])
+                .gridPowerW(sums[sum + 3])
+                .batteryCapacityWh(sums[sum + 4])
+                .batteryRemainingWh(sums[sum + 5])
+                .averageSoc(meters == 0 ? 0.0 : (double) counts[count + 1] / meters)
+                .chargingStatusCounts(chargingStatusCounts)
+                .build();
+    }
+
+    private static void add(double[] target, int to, double[] source, int from, int length) {
+        for (int i = 0; i < length; i++) {
+            target[to + i] += source[from + i];
+        }
+    }
+
+    private static void add(long[] target, int to, long[] source, int from, int length) {
+        for (int i = 0; i < length; i++) {
+            target[to + i] += source[from + i];
+        }
+    }
+
+    private static final class Partial {
+
+        private final double[] sums;
+        private final long[] counts;
+
+        private Partial(int groups) {
+            sums = new double[groups * SUMS];
+            counts = new long[groups * COUNTS];
+        }
+
+        private void clear() {
+            Arrays.fill(sums, 0.0);
+            Arrays.fill(counts, 0L);
+        }
+    }
+}
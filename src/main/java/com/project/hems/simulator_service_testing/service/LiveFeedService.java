@@ -0,0 +1,238 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.hems.simulator_service_testing.model.FleetAggregate;
+import com.project.hems.simulator_service_testing.model.LiveUpdate;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.web.exception.InvalidMeterQueryException;
+import com.project.hems.simulator_service_testing.web.exception.LiveFeedFullException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes each tick's readings to Server-Sent Events subscribers.
+ *
+ * <p>
+ * The tick only builds one {@link LiveUpdate} per subscriber and parks it as
+ * that subscriber's pending update; sends happen on virtual threads. A
+ * subscriber whose previous update is still being written gets the newer one
+ * in its place, so each holds at most one update in flight and one pending.
+ * Subscribers that fall more than {@code maxCoalescedTicks} ticks behind are
+ * dropped and can reconnect.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.live-feed")
+public class LiveFeedService {
+
+    private static final String TICK_EVENT = "tick";
+
+    private final MeterStateStore meterStateStore;
+    private final FleetAggregator fleetAggregator;
+    private final MeterRegistry meterRegistry;
+
+    private Integer maxSubscribers = 1000;
+    private Integer maxSitesPerSubscriber = 1000;
+    private Integer maxCoalescedTicks = 3;
+    private Long emitterTimeoutMs = 1800000L;
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSubscriberId = new AtomicLong();
+    // Blocking writes to slow sockets only park a virtual thread
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Counter sentUpdates;
+    private Counter coalescedUpdates;
+    private Counter droppedSubscribers;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("simulator.live.subscribers", subscribers, Map::size)
+                .description("Open live feed subscriptions")
+                .register(meterRegistry);
+        sentUpdates = Counter.builder("simulator.live.updates")
+                .description("Live feed updates by outcome")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        coalescedUpdates = Counter.builder("simulator.live.updates")
+                .description("Live feed updates by outcome")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        droppedSubscribers = Counter.builder("simulator.live.dropped")
+                .description("Live feed subscribers dropped for falling behind or failing")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param siteIds    sites whose readings to push; may be empty when only
+     *                   aggregates are wanted
+     * @param aggregates also push fleet-wide totals
+     */
+    public SseEmitter subscribe(List<Long> siteIds, boolean aggregates) {
+        long[] sites = siteIds == null ? new long[0] : siteIds.stream().mapToLong(Long::longValue).distinct().toArray();
+
+        if (sites.length == 0 && !aggregates) {
+            throw new InvalidMeterQueryException("subscribe to at least one siteId or to aggregates");
+        }
+        if (sites.length > maxSitesPerSubscriber) {
+            throw new InvalidMeterQueryException("at most " + maxSitesPerSubscriber + " sites per subscription");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new LiveFeedFullException("live feed already has " + maxSubscribers + " subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(nextSubscriberId.incrementAndGet(), emitter, sites, aggregates);
+        subscribers.put(subscriber.id, subscriber);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber.id));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(ex -> close(subscriber));
+
+        log.info("subscribe: subscriber {} for {} sites (aggregates={}), {} open",
+                subscriber.id, sites.length, aggregates, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Queues this tick's update for every subscriber. Called by the tick while
+     * it still holds the store's read lock and after its aggregates are
+     * reduced, so every subscriber sees the same, complete tick; costs nothing
+     * without subscribers.
+     */
+    public void onTick(long tickMillis) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(tickMillis), ZoneId.systemDefault());
+        // Sites are materialized once per tick, however many subscribers share them
+        Map<Long, MeterSnapshot> meters = new HashMap<>();
+        FleetAggregate aggregate = fleetAggregator.fleet();
+
+        for (Subscriber subscriber : subscribers.values()) {
+            List<MeterSnapshot> readings = new ArrayList<>(subscriber.siteIds.length);
+            for (long siteId : subscriber.siteIds) {
+                MeterSnapshot meter = meters.computeIfAbsent(siteId, meterStateStore::get);
+                if (meter != null) {
+                    readings.add(meter);
+                }
+            }
+            offer(subscriber, LiveUpdate.builder()
+                    .timestamp(timestamp)
+                    .meters(readings)
+                    .aggregate(subscriber.aggregates ? aggregate : null)
+                    .build());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    private void offer(Subscriber subscriber, LiveUpdate update) {
+        if (subscriber.pending.getAndSet(update) != null) {
+            coalescedUpdates.increment();
+            if (subscriber.coalescedTicks.incrementAndGet() > maxCoalescedTicks) {
+                log.warn("offer: dropping subscriber {}, more than {} ticks behind", subscriber.id,
+                        maxCoalescedTicks);
+                droppedSubscribers.increment();
+                close(subscriber);
+                return;
+            }
+        }
+        scheduleSend(subscriber);
+    }
+
+    private void scheduleSend(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            LiveUpdate update;
+            while (!subscriber.closed && (update = subscriber.pending.getAndSet(null)) != null) {
+                update.setCoalescedTicks(subscriber.coalescedTicks.getAndSet(0));
+                subscriber.emitter.send(SseEmitter.event()
+                        .name(TICK_EVENT)
+                        .data(update, MediaType.APPLICATION_JSON));
+                sentUpdates.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("send: subscriber {} disconnected: {}", subscriber.id, e.getMessage());
+            droppedSubscribers.increment();
+            close(subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+
+        // An update may have arrived between the last poll and clearing the flag
+        if (!subscriber.closed && subscriber.pending.get() != null) {
+            scheduleSend(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.pending.set(null);
+        if (subscribers.remove(subscriber.id) != null) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final long id;
+        private final SseEmitter emitter;
+        private final long[] siteIds;
+        private final boolean aggregates;
+
+        private final AtomicReference<LiveUpdate> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // Ticks replaced before delivery since the last successful send
+        private final AtomicInteger coalescedTicks = new AtomicInteger();
+        private volatile boolean closed;
+
+        private Subscriber(long id, SseEmitter emitter, long[] siteIds, boolean aggregates) {
+            this.id = id;
+            this.emitter = emitter;
+            this.siteIds = siteIds;
+            this.aggregates = aggregates;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.FleetPage;
+import com.project.hems.simulator_service_testing.model.MeterField;
+import com.project.hems.simulator_service_testing.model.MeterFilter;
+import com.project.hems.simulator_service_testing.model.MeterSelection;
+import com.project.hems.simulator_service_testing.state.MeterStateIndex;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.web.exception.InvalidMeterQueryException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Cursor-paginated, filtered reads of the fleet, written as NDJSON straight
+ * from the state store's columns.
+ *
+ * <p>
+ * Charging status, battery mode and SoC constraints are answered from the
+ * store's secondary indexes, so a selective filter walks its candidates
+ * rather than the fleet.
+ *
+ * <p>
+ * A cursor is a slot position. Slots are append-only, so paging is stable
+ * while meters are activated: new meters show up on later pages and no
+ * meter is returned twice. Only picking a page's slots takes the store's
+ * read lock; rows are written after it has been released, so a slow client
+ * never holds off activations.
+ */
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.fleet-read")
+public class MeterFleetReader {
+
+    private static final SerializedString LINE_SEPARATOR = new SerializedString("\n");
+
+    private final MeterStateStore meterStateStore;
+    private final ObjectMapper objectMapper;
+
+    private Integer defaultPageSize = 1000;
+    private Integer maxPageSize = 10000;
+
+    /**
+     * Slots of the meters matching {@code filter}, starting at {@code cursor}.
+     *
+     * @param limit page size; {@code null} for the default
+     */
+    public FleetPage page(MeterFilter filter, long cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        validate(filter, cursor, pageSize);
+
+        return meterStateStore.read(() -> {
+            int size = meterStateStore.size();
+            int slot = (int) Math.min(cursor, size);
+            int[] slots = new int[Math.min(pageSize, size - slot)];
+            int found = 0;
+
+            // Indexed constraints narrow the walk to candidates; the rest are checked per slot
+            long[] candidates = meterStateStore.candidates(filter);
+            while (found < slots.length) {
+                slot = candidates == null ? slot : MeterStateIndex.nextSetBit(candidates, slot);
+                if (slot < 0 || slot >= size) {
+                    slot = size;
+                    break;
+                }
+                if (matches(filter, slot)) {
+                    slots[found++] = slot;
+                }
+                slot++;
+            }
+
+            return FleetPage.builder()
+                    .slots(found == slots.length ? slots : Arrays.copyOf(slots, found))
+                    .nextCursor(slot < size ? (long) slot : null)
+                    .build();
+        });
+    }
+
+    /**
+     * SiteIds of the meters matching {@code filter}, starting at
+     * {@code cursor}; e.g. to pick dispatch candidates without reading their
+     * state.
+     *
+     * @param limit page size; {@code null} for the default
+     */
+    public MeterSelection select(MeterFilter filter, long cursor, Integer limit) {
+        FleetPage page = page(filter, cursor, limit);
+
+        long[] siteIds = new long[page.getSlots().length];
+        for (int i = 0; i < siteIds.length; i++) {
+            siteIds[i] = meterStateStore.getSiteId(page.getSlots()[i]);
+        }
+
+        return MeterSelection.builder()
+                .siteIds(siteIds)
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
+
+    /**
+     * Runs {@code action} on every slot matching {@code filter}, in one pass
+     * under the store's read lock; e.g. to change many meters at once.
+     */
+    public void forEachMatch(MeterFilter filter, IntConsumer action) {
+        validate(filter);
+
+        meterStateStore.read(() -> {
+            int size = meterStateStore.size();
+            long[] candidates = meterStateStore.candidates(filter);
+            int slot = 0;
+            while (true) {
+                slot = candidates == null ? slot : MeterStateIndex.nextSetBit(candidates, slot);
+                if (slot < 0 || slot >= size) {
+                    return null;
+                }
+                if (matches(filter, slot)) {
+                    action.accept(slot);
+                }
+                slot++;
+            }
+        });
+    }
+
+    /**
+     * Resolves a projection from snapshot property names.
+     *
+     * @param names {@code null} or empty for every field
+     */
+    public Set<MeterField> fields(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(MeterField.class);
+        }
+
+        Set<MeterField> fields = EnumSet.noneOf(MeterField.class);
+        for (String name : names) {
+            MeterField field = MeterField.ofJsonName(name.trim());
+            if (field == null) {
+                throw new InvalidMeterQueryException("unknown field " + name);
+            }
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    /**
+     * Writes one JSON object per line for each slot of the page, holding only
+     * the generator's own buffer. Fields keep {@link MeterField} order.
+     */
+    public void write(FleetPage page, Set<MeterField> fields, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(LINE_SEPARATOR);
+
+            for (int slot : page.getSlots()) {
+                generator.writeStartObject();
+                for (MeterField field : fields) {
+                    generator.writeFieldName(field.getJsonName());
+                    writeValue(generator, field, slot);
+                }
+                generator.writeEndObject();
+            }
+
+            if (page.getSlots().length > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void validate(MeterFilter filter, long cursor, int pageSize) {
+        if (cursor < 0) {
+            throw new InvalidMeterQueryException("cursor must not be negative");
+        }
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidMeterQueryException("limit must be between 1 and " + maxPageSize);
+        }
+        validate(filter);
+    }
+
+    private void validate(MeterFilter filter) {
+        if (filter.getSiteIdFrom() != null && filter.getSiteIdTo() != null
+                && filter.getSiteIdFrom() > filter.getSiteIdTo()) {
+            throw new InvalidMeterQueryException("siteIdFrom must not be greater than siteIdTo");
+        }
+        if (filter.getSocMin() != null && filter.getSocMax() != null && filter.getSocMin() > filter.getSocMax()) {
+            throw new InvalidMeterQueryException("socMin must not be greater than socMax");
+        }
+    }
+
+    private boolean matches(MeterFilter filter, int slot) {
+        long siteId = meterStateStore.getSiteId(slot);
+        if (filter.getSiteIdFrom() != null && siteId < filter.getSiteIdFrom()) {
+            return false;
+        }
+        if (filter.getSiteIdTo() != null && siteId > filter.getSiteIdTo()) {
+            return false;
+        }
+
+        int soc = meterStateStore.getBatterySoc(slot);
+        if (filter.getSocMin() != null && soc < filter.getSocMin()) {
+            return false;
+        }
+        if (filter.getSocMax() != null && soc > filter.getSocMax()) {
+            return false;
+        }
+
+        ChargingStatus chargingStatus = meterStateStore.getChargingStatus(slot);
+        Set<ChargingStatus> chargingStatuses = filter.getChargingStatuses();
+        if (chargingStatuses != null && !chargingStatuses.isEmpty() && !chargingStatuses.contains(chargingStatus)) {
+            return false;
+        }
+        Set<ChargingStatus> excludedChargingStatuses = filter.getExcludedChargingStatuses();
+        if (excludedChargingStatuses != null && chargingStatus != null
+                && excludedChargingStatuses.contains(chargingStatus)) {
+            return false;
+        }
+
+        Set<BatteryMode> batteryModes = filter.getBatteryModes();
+        return batteryModes == null || batteryModes.isEmpty()
+                || batteryModes.contains(meterStateStore.getBatteryMode(slot));
+    }
+
+    // Same representation as the snapshot's JSON: absent ids, enums and site settings are null
+    private void writeValue(JsonGenerator generator, MeterField field, int slot) throws IOException {
+        MeterStateStore store = meterStateStore;
+        switch (field) {
+            case METER_ID -> {
+                long meterId = store.getMeterId(slot);
+                if (meterId == 0L) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(meterId);
+                }
+            }
+            case SITE_ID -> generator.writeNumber(store.getSiteId(slot));
+            case TIMESTAMP -> generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(store.getTimestampMillis(slot)),
+                            ZoneId.systemDefault())));
+            case SOLAR_PRODUCTION_W -> generator.writeNumber(store.getSolarProductionW(slot));
+            case HOME_CONSUMPTION_W -> generator.writeNumber(store.getHomeConsumptionW(slot));
+            case BATTERY_POWER_W -> generator.writeNumber(store.getBatteryPowerW(slot));
+            case GRID_POWER_W -> generator.writeNumber(store.getGridPowerW(slot));
+            case TOTAL_SOLAR_YIELD_KWH -> generator.writeNumber(store.getTotalSolarYieldKwh(slot));
+            case TOTAL_GRID_IMPORT_KWH -> generator.writeNumber(store.getTotalGridImportKwh(slot));
+            case TOTAL_GRID_EXPORT_KWH -> generator.writeNumber(store.getTotalGridExportKwh(slot));
+            case TOTAL_HOME_USAGE_KWH -> generator.writeNumber(store.getTotalHomeUsageKwh(slot));
+            case BATTERY_CAPACITY_WH -> generator.writeNumber(store.getBatteryCapacityWh(slot));
+            case BATTERY_REMAINING_WH -> generator.writeNumber(store.getBatteryRemainingWh(slot));
+            case CHARGING_STATUS -> writeEnum(generator, store.getChargingStatus(slot));
+            case BATTERY_MODE -> writeEnum(generator, store.getBatteryMode(slot));
+            case CURRENT_VOLTAGE -> generator.writeNumber(store.getCurrentVoltage(slot));
+            case CURRENT_AMPS -> generator.writeNumber(store.getCurrentAmps(slot));
+            case BATTERY_SOC -> generator.writeNumber(store.getBatterySoc(slot));
+            case LATITUDE -> writeSetting(generator, store.getLatitude(slot));
+            case LONGITUDE -> writeSetting(generator, store.getLongitude(slot));
+            case PV_CAPACITY_W -> writeSetting(generator, store.getPvCapacityW(slot));
+        }
+    }
+
+    private static void writeEnum(JsonGenerator generator, Enum<?> value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value.name());
+        }
+    }
+
+    // NaN marks a site setting that was never configured
+    private static void writeSetting(JsonGenerator generator, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -1,40 +1,104 @@
 package com.project.hems.simulator_service_testing.service;
 
+import com.project.hems.simulator_service_testing.config.MeterModelMapper;
 import com.project.hems.simulator_service_testing.domain.MeterEntity;
 import com.project.hems.simulator_service_testing.model.BatteryMode;
 import com.project.hems.simulator_service_testing.model.ChargingStatus;
 import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.repository.MeterIdAllocator;
 import com.project.hems.simulator_service_testing.repository.MeterRepository;
-
-import jakarta.transaction.Transactional;
+import com.project.hems.simulator_service_testing.state.EnergyJournal;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.state.ShutdownSpill;
+import com.project.hems.simulator_service_testing.web.exception.MeterNotDurableException;
+import com.project.hems.simulator_service_testing.web.exception.MeterStatusAlreadyPresentException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 @Setter
 @Service
 public class MeterManagementService {
-    private final Map<String, MeterSnapshot> meterReadings;
+    private final MeterStateStore meterStateStore;
     private final MeterRepository meterRepository;
-    private final ModelMapper mapper;
+    private final MeterModelMapper mapper;
+    private final MeterIdAllocator meterIdAllocator;
+    private final MeterWriteBehind meterWriteBehind;
+    private final EnergyJournal energyJournal;
+    private final ShutdownSpill shutdownSpill;
+    private final MeterRegistry meterRegistry;
+
+    // 1. Create / Activate a meter (Cache to state store, persist behind)
+    // latitude, longitude and pvCapacityW are optional; the solar defaults apply when null
+    public void activateMeter(Long siteId, Double batteryCapacity, Double latitude, Double longitude,
+            Double pvCapacityW) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            activate(siteId, batteryCapacity, latitude, longitude, pvCapacityW);
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("simulator.api.activation")
+                    .description("Meter activation, from request to state store")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
 
-    // 1. Create / Activate a meter (Persist to DB + Cache to Bean Map)
-    @Transactional
-    public void activateMeter(Long siteId, Double batteryCapacity) {
+    private void activate(Long siteId, Double batteryCapacity, Double latitude, Double longitude,
+            Double pvCapacityW) {
 
         // Entry log — helps trace meter lifecycle events
         log.info("activateMeter: activating meter for siteId={}", siteId);
 
+        MeterSnapshot snapshot = newMeterSnapshot(siteId, batteryCapacity, latitude, longitude, pvCapacityW);
+
+        // Same id source as bulk activation; the database never assigns ids
+        snapshot.setMeterId(meterIdAllocator.next());
+
+        log.debug("activateMeter: initial meter snapshot created for siteId={}, meterId={}", siteId,
+                snapshot.getMeterId());
+
+        // The database's unique siteId used to reject this, but the row is now written later, so the
+        // store checks and inserts under one lock; the id of a rejected activation is simply never used
+        if (meterStateStore.insert(snapshot) == MeterStateStore.NO_SLOT) {
+            throw new MeterStatusAlreadyPresentException("meter already active for siteId=" + siteId);
+        }
+
+        log.info("activateMeter: meter state cached in state store for siteId={}", siteId);
+
+        saveNewEntityToDb(snapshot);
+    }
+
+    // For callers that need the activation in the database before they answer
+    public void awaitDurable(Long siteId) {
+        if (!meterWriteBehind.awaitDurable(siteId)) {
+            log.warn("awaitDurable: meter for siteId={} is not yet durable", siteId);
+            throw new MeterNotDurableException("meter for siteId=" + siteId
+                    + " is active but not yet persisted; it will be written by the next flush at the latest");
+        }
+    }
+
+    /**
+     * Initial state of a newly activated meter, before its meterId is
+     * assigned. Shared by single and bulk activation.
+     */
+    public MeterSnapshot newMeterSnapshot(Long siteId, Double batteryCapacity, Double latitude, Double longitude,
+            Double pvCapacityW) {
+
         // Create an initial snapshot with default electrical values
-        MeterSnapshot snapshot = MeterSnapshot.builder()
+        return MeterSnapshot.builder()
                 .siteId(siteId)
                 .timestamp(LocalDateTime.now())
                 // Physical Hardware Limits
@@ -59,46 +123,32 @@ public class MeterManagementService {
 
                 .currentVoltage(230.0)
                 .currentAmps(0.0)
-                .build();
-
-        log.debug("activateMeter: initial meter snapshot created for siteId={}", siteId);
-
-        // Persist the meter entity in the database
-        MeterEntity saveNewEntityToDb = saveNewEntityToDb(snapshot);
 
-        // Link generated DB meterId back to the snapshot
-        snapshot.setMeterId(saveNewEntityToDb.getId());
-
-        log.debug("activateMeter: meter persisted to DB with meterId={}", saveNewEntityToDb.getId());
-
-        // Cache the snapshot in bean map for fast access
-        meterReadings.put(siteId.toString(), snapshot);
-
-        log.info("activateMeter: meter snapshot cached in Bean Map for siteId={} with TTL=10s", siteId);
+                // Site Configuration for the solar model
+                .latitude(latitude)
+                .longitude(longitude)
+                .pvCapacityW(pvCapacityW)
+                .build();
     }
 
-    private MeterEntity saveNewEntityToDb(MeterSnapshot snapshot) {
-
-        // Async persistence — does not block calling thread
-        log.debug("saveNewEntityToDb: saving meter entity for siteId={}", snapshot.getSiteId());
+    private void saveNewEntityToDb(MeterSnapshot snapshot) {
 
-        MeterEntity savedEntity = meterRepository.save(mapper.map(snapshot, MeterEntity.class));
+        // Async persistence — does not block calling thread; written from the state store later
+        meterWriteBehind.submit(snapshot.getSiteId());
 
-        log.debug("saveNewEntityToDb: meter entity saved successfully [meterId={}, siteId={}]",
-                savedEntity.getId(), savedEntity.getSiteId());
-
-        return savedEntity;
+        log.debug("saveNewEntityToDb: meter entity queued for write-behind [meterId={}, siteId={}]",
+                snapshot.getMeterId(), snapshot.getSiteId());
     }
 
     // 3. Get Data (Read from map by siteId)
     public MeterSnapshot getMeterData(Long siteId) {
 
-        log.debug("getMeterData: fetching meter snapshot from Bean Map for siteId={}", siteId);
+        log.debug("getMeterData: fetching meter snapshot from state store for siteId={}", siteId);
 
-        MeterSnapshot snapshot = meterReadings.get(siteId.toString());
+        MeterSnapshot snapshot = meterStateStore.get(siteId);
 
         if (snapshot == null) {
-            log.warn("getMeterData: no meter snapshot found in Bean Map for siteId={}", siteId);
+            log.warn("getMeterData: no meter snapshot found in state store for siteId={}", siteId);
         } else {
             log.debug("getMeterData: meter snapshot retrieved successfully for siteId={}", siteId);
         }
@@ -109,19 +159,16 @@ public class MeterManagementService {
     // Fetch all meter snapshots as a list
     public List<MeterSnapshot> getAllMeters() {
 
-        log.debug("getAllMeters: fetching all meter keys from Bean Map");
+        log.debug("getAllMeters: materializing all meters from state store");
 
-        List<MeterSnapshot> snapshots = meterReadings.entrySet().stream()
-                .map(entry -> entry.getValue())
-                .collect(Collectors.toList());
+        List<MeterSnapshot> snapshots = meterStateStore.materializeAll();
 
-        log.info("getAllMeters: fetched {} meter snapshots from Bean Map",
-                snapshots != null ? snapshots.size() : 0);
+        log.info("getAllMeters: fetched {} meter snapshots from state store", snapshots.size());
 
         return snapshots;
     }
 
-    // Load all meter data from DB into Bean Map (cache warm-up / recovery path)
+    // Load all meter data from DB into the state store (warm-up / recovery path)
     public void getValuesFromDB() {
 
         List<MeterEntity> allMeterReading = meterRepository.findAll();
@@ -131,15 +178,56 @@ public class MeterManagementService {
         allMeterReading.forEach(meterEntity -> {
 
             // Convert DB entity → snapshot before caching
-            MeterSnapshot snapshot = mapper.map(meterEntity, MeterSnapshot.class);
+            MeterSnapshot snapshot = mapper.toSnapshot(meterEntity);
+
+            meterStateStore.upsert(snapshot);
+
+            log.trace("getValuesFromDB: cached meter state for siteId={}", meterEntity.getSiteId());
+        });
 
-            meterReadings.put(meterEntity.getSiteId().toString(), snapshot);
+        // Accumulators journaled after the last DB flush are newer than the DB rows
+        int replayed = energyJournal.replayInto(meterStateStore);
+
+        // Meters the last shutdown sync could not write in time are newer still
+        int spilled = shutdownSpill.replayInto(meterStateStore);
+
+        // Rows are only ever written with an allocated id, never an IDENTITY one
+        int assigned = assignMissingMeterIds();
+
+        log.info("getValuesFromDB: state store successfully repopulated from database "
+                + "({} sites replayed from journal, {} from shutdown spill, {} given a meterId)",
+                replayed, spilled, assigned);
+    }
+
+    // Spilled meters that were never persisted may still lack an id
+    private int assignMissingMeterIds() {
+
+        int[] missing = meterStateStore.read(() -> {
+            int[] slots = new int[meterStateStore.size()];
+            int found = 0;
+            for (int slot = 0; slot < slots.length; slot++) {
+                if (meterStateStore.getMeterId(slot) == MeterStateStore.NO_METER_ID) {
+                    slots[found++] = slot;
+                }
+            }
+            return Arrays.copyOf(slots, found);
+        });
+
+        // The allocator may reserve a block, so ids are taken outside the lock
+        long[] meterIds = new long[missing.length];
+        for (int i = 0; i < meterIds.length; i++) {
+            meterIds[i] = meterIdAllocator.next();
+        }
 
-            log.trace("getValuesFromDB: cached meter snapshot for siteId={} with TTL=10s",
-                    meterEntity.getSiteId());
+        meterStateStore.read(() -> {
+            for (int i = 0; i < missing.length; i++) {
+                meterStateStore.setMeterId(missing[i], meterIds[i]);
+                meterStateStore.markModified(missing[i]);
+            }
+            return null;
         });
 
-        log.info("getValuesFromDB: Bean Map cache successfully repopulated from database");
+        return missing.length;
     }
 
 }
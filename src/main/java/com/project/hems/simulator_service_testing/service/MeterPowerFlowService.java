@@ -1,81 +1,259 @@
 package com.project.hems.simulator_service_testing.service;
 
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.BulkDispatchRequest;
+import com.project.hems.simulator_service_testing.model.BulkDispatchResult;
 import com.project.hems.simulator_service_testing.model.ChargingStatus;
-import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.model.MeterFilter;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.web.exception.InvalidMeterQueryException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
-
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MeterPowerFlowService {
 
-    private final Map<String, MeterSnapshot> meterReadings;
+    private final MeterStateStore meterStateStore;
+    private final MeterFleetReader meterFleetReader;
+    private final FleetAggregator fleetAggregator;
+    private final MeterRegistry meterRegistry;
 
     public void startDispatchingPower(Long siteId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            startDispatching(siteId);
+        } finally {
+            sample.stop(dispatchTimer("start"));
+        }
+    }
 
-        log.info("startDispatchingPower: Power dispatch requested for siteId={}", siteId);
+    public void stopDispatchingPower(Long siteId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            stopDispatching(siteId);
+        } finally {
+            sample.stop(dispatchTimer("stop"));
+        }
+    }
 
-        // Fetch current snapshot without deleting it (safer & atomic update below)
+    /**
+     * Switches every meter of the request's site list, or every meter matching
+     * its predicate, to the target state in a single pass over the state
+     * store, logging once for the whole request.
+     */
+    public BulkDispatchResult dispatchAll(BulkDispatchRequest request) {
+        long start = System.nanoTime();
+        validate(request);
 
-        MeterSnapshot meterSnapshot = meterReadings.get(siteId.toString());
+        ChargingStatus status = request.getAction() == null ? null : request.getAction().getChargingStatus();
+        BatteryMode mode = request.getBatteryMode();
+        // matched, changed, unknown sites
+        long[] counts = new long[3];
 
-        if (meterSnapshot == null) {
-            log.warn("startDispatchingPower: No meter snapshot found in Bean Map for siteId={}", siteId);
-            return;
+        if (request.getSiteIds() != null && !request.getSiteIds().isEmpty()) {
+            List<Long> siteIds = request.getSiteIds();
+            meterStateStore.read(() -> {
+                for (Long siteId : siteIds) {
+                    int slot = siteId == null ? MeterStateStore.NO_SLOT : meterStateStore.slotOf(siteId);
+                    if (slot == MeterStateStore.NO_SLOT) {
+                        counts[2]++;
+                        continue;
+                    }
+                    counts[0]++;
+                    if (applyDispatch(slot, status, mode)) {
+                        counts[1]++;
+                    }
+                }
+                return null;
+            });
+        } else {
+            MeterFilter filter = request.getFilter() == null ? new MeterFilter() : request.getFilter();
+            long[] siteRanges = siteRangesOf(request);
+            meterFleetReader.forEachMatch(filter, slot -> {
+                if (siteRanges != null && !inRanges(siteRanges, meterStateStore.getSiteId(slot))) {
+                    return;
+                }
+                counts[0]++;
+                if (applyDispatch(slot, status, mode)) {
+                    counts[1]++;
+                }
+            });
         }
 
-        // Idempotent state transition: only switch if not already discharging
-        if (meterSnapshot.getChargingStatus() == ChargingStatus.DISCHARGING) {
-            log.debug("startDispatchingPower: Meter already in DISCHARGING state [siteId={}]", siteId);
-            return;
-        }
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("simulator.api.dispatch.bulk")
+                .description("Bulk dispatch, from request to the last meter switched")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("simulator.api.dispatch.bulk.meters")
+                .description("Meters matched by one bulk dispatch")
+                .register(meterRegistry)
+                .record(counts[0]);
 
-        log.info(
-                "startDispatchingPower: Switching meter to DISCHARGING state [siteId={}, previousStatus={}]",
-                siteId,
-                meterSnapshot.getChargingStatus());
+        BulkDispatchResult result = BulkDispatchResult.builder()
+                .matched(counts[0])
+                .changed(counts[1])
+                .unchanged(counts[0] - counts[1])
+                .unknownSites(counts[2])
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .build();
 
-        // Update battery flow direction
-        meterSnapshot.setChargingStatus(ChargingStatus.DISCHARGING);
+        log.info("dispatchAll: action={}, batteryMode={}: {} meters matched, {} changed, {} unknown sites in {} ms",
+                request.getAction(), mode, result.getMatched(), result.getChanged(), result.getUnknownSites(),
+                result.getElapsedMs());
 
-        // Persist updated snapshot back to Bean Map
-        meterReadings.put(siteId.toString(), meterSnapshot);
+        return result;
+    }
 
-        log.info("startDispatchingPower: Power dispatch started successfully for siteId={}", siteId);
+    private void validate(BulkDispatchRequest request) {
+        if (request.getAction() == null && request.getBatteryMode() == null) {
+            throw new InvalidMeterQueryException("action or batteryMode is required");
+        }
+
+        boolean hasSites = request.getSiteIds() != null && !request.getSiteIds().isEmpty();
+        boolean hasPredicate = request.getFilter() != null || request.getRegion() != null
+                || request.getFeeder() != null;
+        if (hasSites == hasPredicate) {
+            throw new InvalidMeterQueryException("exactly one of siteIds or filter, region and feeder is required");
+        }
+        if (request.getRegion() != null && request.getFeeder() != null) {
+            throw new InvalidMeterQueryException("region and feeder cannot be combined");
+        }
+        // An empty filter matches every meter; dispatching the whole fleet by accident is too costly
+        if (request.getFilter() != null && request.getRegion() == null && request.getFeeder() == null
+                && !constrains(request.getFilter())) {
+            throw new InvalidMeterQueryException("filter must set at least one constraint");
+        }
     }
 
-    public void stopDispatchingPower(Long siteId) {
-        log.info("stopDispatchingPower: Power dispatch requested for siteId={}", siteId);
+    private static boolean constrains(MeterFilter filter) {
+        return filter.getSiteIdFrom() != null || filter.getSiteIdTo() != null
+                || filter.getSocMin() != null || filter.getSocMax() != null
+                || (filter.getChargingStatuses() != null && !filter.getChargingStatuses().isEmpty())
+                || (filter.getExcludedChargingStatuses() != null && !filter.getExcludedChargingStatuses().isEmpty())
+                || (filter.getBatteryModes() != null && !filter.getBatteryModes().isEmpty());
+    }
+
+    // Null when the request names no region or feeder
+    private long[] siteRangesOf(BulkDispatchRequest request) {
+        if (request.getRegion() != null) {
+            return fleetAggregator.regionSiteRanges(request.getRegion());
+        }
+        if (request.getFeeder() != null) {
+            return fleetAggregator.feederSiteRanges(request.getFeeder());
+        }
+        return null;
+    }
 
-        // Fetch current snapshot without deleting it (safer & atomic update below)
-        MeterSnapshot meterSnapshot = meterReadings.get(siteId.toString());
+    private static boolean inRanges(long[] ranges, long siteId) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (siteId >= ranges[i] && siteId <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        if (meterSnapshot == null) {
-            log.warn("stopDispatchingPower: No meter snapshot found in Bean Map for siteId={}", siteId);
-            return;
+    /**
+     * Applies a dispatch to one slot without logging, for callers that change
+     * many meters in one pass. Must be called while the store's read lock is
+     * held. {@code null} leaves the status or mode as it is.
+     *
+     * @return true if the slot changed
+     */
+    public boolean applyDispatch(int slot, ChargingStatus status, BatteryMode mode) {
+        boolean changed = false;
+        if (status != null && meterStateStore.getChargingStatus(slot) != status) {
+            meterStateStore.setChargingStatus(slot, status);
+            changed = true;
         }
+        if (mode != null && meterStateStore.getBatteryMode(slot) != mode) {
+            meterStateStore.setBatteryMode(slot, mode);
+            changed = true;
+        }
+        if (changed) {
+            meterStateStore.markModified(slot);
+        }
+        return changed;
+    }
+
+    private Timer dispatchTimer(String action) {
+        return Timer.builder("simulator.api.dispatch")
+                .description("Dispatch state change for one meter")
+                .tag("action", action)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void startDispatching(Long siteId) {
+
+        log.info("startDispatchingPower: Power dispatch requested for siteId={}", siteId);
+
+        // Update the slot in place; the store guards it against concurrent growth
+        boolean found = meterStateStore.withSlot(siteId, slot -> {
 
-        // Idempotent state transition: only switch if not already charging
-        if (meterSnapshot.getChargingStatus() == ChargingStatus.CHARGING) {
-            log.debug("stopDispatchingPower: Meter already in CHARGING state [siteId={}]", siteId);
+            // Idempotent state transition: only switch if not already discharging
+            if (meterStateStore.getChargingStatus(slot) == ChargingStatus.DISCHARGING) {
+                log.debug("startDispatchingPower: Meter already in DISCHARGING state [siteId={}]", siteId);
+                return;
+            }
+
+            log.info(
+                    "startDispatchingPower: Switching meter to DISCHARGING state [siteId={}, previousStatus={}]",
+                    siteId,
+                    meterStateStore.getChargingStatus(slot));
+
+            // Update battery flow direction
+            meterStateStore.setChargingStatus(slot, ChargingStatus.DISCHARGING);
+            meterStateStore.markModified(slot);
+        });
+
+        if (!found) {
+            log.warn("startDispatchingPower: No meter state found in state store for siteId={}", siteId);
             return;
         }
 
-        log.info(
-                "stopDispatchingPower: Switching meter to DISCHARGING state [siteId={}, previousStatus={}]",
-                siteId,
-                meterSnapshot.getChargingStatus());
+        log.info("startDispatchingPower: Power dispatch started successfully for siteId={}", siteId);
+    }
+
+    private void stopDispatching(Long siteId) {
+        log.info("stopDispatchingPower: Power dispatch requested for siteId={}", siteId);
+
+        // Update the slot in place; the store guards it against concurrent growth
+        boolean found = meterStateStore.withSlot(siteId, slot -> {
+
+            // Idempotent state transition: only switch if not already charging
+            if (meterStateStore.getChargingStatus(slot) == ChargingStatus.CHARGING) {
+                log.debug("stopDispatchingPower: Meter already in CHARGING state [siteId={}]", siteId);
+                return;
+            }
 
-        // Update battery flow direction
-        meterSnapshot.setChargingStatus(ChargingStatus.CHARGING);
+            log.info(
+                    "stopDispatchingPower: Switching meter to DISCHARGING state [siteId={}, previousStatus={}]",
+                    siteId,
+                    meterStateStore.getChargingStatus(slot));
 
-        // Persist updated snapshot back to Bean Map
-        meterReadings.put(siteId.toString(), meterSnapshot);
+            // Update battery flow direction
+            meterStateStore.setChargingStatus(slot, ChargingStatus.CHARGING);
+            meterStateStore.markModified(slot);
+        });
+
+        if (!found) {
+            log.warn("stopDispatchingPower: No meter state found in state store for siteId={}", siteId);
+            return;
+        }
 
         log.info("stopDispatchingPower: Power dispatch started successfully for siteId={}", siteId);
     }
@@ -0,0 +1,279 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.model.PublisherStats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes meter readings to RAW_ENERGY_READINGS keyed by siteId, so every
+ * reading of a site lands on the same partition and keeps its order.
+ *
+ * <p>
+ * Sends are asynchronous and bounded by an in-flight budget. When the broker
+ * slows down and the budget is used up, the configured
+ * {@link BackpressurePolicy} decides what happens to new readings, so a slow
+ * broker never stalls the simulation tick unless {@code BLOCK} is chosen.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.kafka")
+public class MeterReadingPublisher {
+
+    public enum PublishMode {
+        KEYED, // Producer's default partitioner picks the partition from the key
+        PARTITION_AWARE // Partition is computed up front and shards are aligned to it
+    }
+
+    public enum BackpressurePolicy {
+        COALESCE, // Keep only the latest pending reading per site, send when budget frees up
+        DROP, // Discard readings that do not fit the budget
+        BLOCK // Wait for budget; stalls the tick while the broker is slow
+    }
+
+    private record PendingReading(int partition, MeterSnapshot meter) {
+    }
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private String rawEnergyTopic;
+    @Getter
+    private Integer rawEnergyPartitionCount = 1;
+    @Getter
+    private PublishMode rawEnergyPublishMode = PublishMode.KEYED;
+    private Integer rawEnergyMaxInFlight = 10000;
+    private BackpressurePolicy rawEnergyBackpressurePolicy = BackpressurePolicy.COALESCE;
+
+    private Semaphore inFlight;
+    private final Map<Long, PendingReading> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Drains coalesced readings off the producer I/O thread; sending from a
+    // send callback can deadlock when the producer buffer is full
+    private final ExecutorService drainExecutor = Executors
+            .newSingleThreadExecutor(new CustomizableThreadFactory("meter-publish-drain-"));
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Send to broker acknowledgement
+    private Timer sendSucceeded;
+    private Timer sendFailed;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(rawEnergyMaxInFlight);
+        registerMetrics();
+        log.info("init: publishing to {} with maxInFlight={} policy={} mode={}",
+                rawEnergyTopic, rawEnergyMaxInFlight, rawEnergyBackpressurePolicy, rawEnergyPublishMode);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainExecutor.shutdown();
+    }
+
+    private void registerMetrics() {
+        sendSucceeded = sendTimer("success");
+        sendFailed = sendTimer("failure");
+
+        readingCounter("sent", sent);
+        readingCounter("coalesced", coalesced);
+        readingCounter("dropped", dropped);
+        readingCounter("failed", failed);
+
+        Gauge.builder("simulator.kafka.in.flight", this, publisher -> publisher.rawEnergyMaxInFlight
+                - publisher.inFlight.availablePermits())
+                .description("Readings sent but not yet acknowledged")
+                .register(meterRegistry);
+        Gauge.builder("simulator.kafka.coalesce.queue", pending, Map::size)
+                .description("Sites with a coalesced reading waiting for in-flight budget")
+                .register(meterRegistry);
+    }
+
+    private Timer sendTimer(String outcome) {
+        return Timer.builder("simulator.kafka.send")
+                .description("Time from handing a reading to the producer to its acknowledgement")
+                .tag("topic", String.valueOf(rawEnergyTopic))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void readingCounter(String result, AtomicLong count) {
+        FunctionCounter.builder("simulator.kafka.readings", count, AtomicLong::get)
+                .description("Readings by what happened to them")
+                .tag("topic", String.valueOf(rawEnergyTopic))
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public boolean isPartitionAware() {
+        return rawEnergyPublishMode == PublishMode.PARTITION_AWARE;
+    }
+
+    /**
+     * Same partition the Kafka default partitioner picks for this key, so both
+     * publish modes put a site on the same partition.
+     */
+    public int partitionOf(long siteId) {
+        byte[] keyBytes = Long.toString(siteId).getBytes(StandardCharsets.UTF_8);
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % rawEnergyPartitionCount;
+    }
+
+    /**
+     * @param partition target partition from the shard plan, or a negative
+     *                  value to let the producer partition by key
+     */
+    public void publish(long siteId, int partition, MeterSnapshot meter) {
+
+        if (rawEnergyBackpressurePolicy == BackpressurePolicy.COALESCE) {
+            coalesce(siteId, partition, meter);
+            return;
+        }
+
+        if (inFlight.tryAcquire()) {
+            send(siteId, partition, meter);
+            return;
+        }
+
+        if (rawEnergyBackpressurePolicy == BackpressurePolicy.DROP) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        try {
+            inFlight.acquire();
+            send(siteId, partition, meter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    public PublisherStats getStats() {
+        return PublisherStats.builder()
+                .sent(sent.get())
+                .coalesced(coalesced.get())
+                .dropped(dropped.get())
+                .failed(failed.get())
+                .inFlight(rawEnergyMaxInFlight - inFlight.availablePermits())
+                .queueDepth(pending.size())
+                .build();
+    }
+
+    /**
+     * Sends the reading directly only if the site has nothing pending;
+     * otherwise it replaces the pending reading, so a newer reading never
+     * overtakes an older one of the same site. Runs under the site's entry in
+     * {@code pending}, as does the drain's removal and send.
+     */
+    private void coalesce(long siteId, int partition, MeterSnapshot meter) {
+        PendingReading queued = pending.compute(siteId, (site, waiting) -> {
+            if (waiting != null) {
+                coalesced.incrementAndGet();
+                return new PendingReading(partition, meter);
+            }
+            if (inFlight.tryAcquire()) {
+                send(site, partition, meter);
+                return null;
+            }
+            return new PendingReading(partition, meter);
+        });
+
+        if (queued != null) {
+            // Budget may have freed up between tryAcquire and the entry being stored
+            scheduleDrain();
+        }
+    }
+
+    // Caller must already hold one in-flight permit
+    private void send(long siteId, int partition, MeterSnapshot meter) {
+        String key = Long.toString(siteId);
+        long sendStart = System.nanoTime();
+
+        try {
+            var future = partition >= 0
+                    ? kafkaTemplate.send(rawEnergyTopic, partition, key, meter)
+                    : kafkaTemplate.send(rawEnergyTopic, key, meter);
+
+            future.whenComplete((result, ex) -> {
+                inFlight.release();
+                (ex == null ? sendSucceeded : sendFailed).record(System.nanoTime() - sendStart, TimeUnit.NANOSECONDS);
+                if (ex == null) {
+                    sent.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                    log.debug("send: reading for siteId={} failed: {}", siteId, ex.getMessage());
+                }
+                if (!pending.isEmpty()) {
+                    scheduleDrain();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            failed.incrementAndGet();
+            log.warn("send: could not hand reading for siteId={} to the producer: {}", siteId, e.getMessage());
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                drainExecutor.execute(this::drainPending);
+            } catch (RuntimeException e) {
+                // Executor shut down during application close
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    private void drainPending() {
+        drainScheduled.set(false);
+
+        for (Long siteId : pending.keySet()) {
+            if (!inFlight.tryAcquire()) {
+                return;
+            }
+            // Removed and sent under the site's entry, so publish cannot send a newer reading in between
+            pending.compute(siteId, (site, reading) -> {
+                if (reading == null) {
+                    inFlight.release();
+                } else {
+                    send(site, reading.partition(), reading.meter());
+                }
+                return null;
+            });
+        }
+    }
+}
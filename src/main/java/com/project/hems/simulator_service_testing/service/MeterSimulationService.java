@@ -1,145 +1,233 @@
 package com.project.hems.simulator_service_testing.service;
 
-import com.project.hems.simulator_service_testing.domain.MeterEntity;
-import com.project.hems.simulator_service_testing.model.MeterSnapshot;
-import com.project.hems.simulator_service_testing.repository.MeterRepository;
+import com.project.hems.simulator_service_testing.clock.WallClock;
+import com.project.hems.simulator_service_testing.model.PublisherStats;
+import com.project.hems.simulator_service_testing.model.ShardTiming;
+import com.project.hems.simulator_service_testing.model.TickReport;
+import com.project.hems.simulator_service_testing.model.TickStage;
+import com.project.hems.simulator_service_testing.random.RandomStreams;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.EnergyJournal;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.trace.PublishEvent;
+import com.project.hems.simulator_service_testing.trace.TickEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
-@Setter
 @RequiredArgsConstructor
-@ConfigurationProperties(prefix = "property.config.kafka")
 public class MeterSimulationService {
 
-    private final Map<String, MeterSnapshot> meterReadings;
+    private final MeterStateStore meterStateStore;
     private final MeterManagementService meterManagementService;
-    private final MeterRepository meterRepository;
-    private final ModelMapper mapper;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final EnergyPhysicsEngine energyPhysicsEngine;
+    private final MeterSnapshotWriter meterSnapshotWriter;
+    private final MeterReadingPublisher meterReadingPublisher;
+    private final MeterSimulationStep meterSimulationStep;
     private final EnvironmentSimulator environmentSimulator;
+    private final WallClock wallClock;
+    private final RandomStreams randomStreams;
+    private final ShardedTickEngine shardedTickEngine;
+    private final EnergyJournal energyJournal;
+    private final FleetAggregator fleetAggregator;
+    private final FleetAggregatePublisher fleetAggregatePublisher;
+    private final LiveFeedService liveFeedService;
+    private final MeterRegistry meterRegistry;
+
+    private Timer tickTimer;
+    private Counter tickOverruns;
+    private final Map<TickStage, Timer> stageTimers = new EnumMap<>(TickStage.class);
+    private final TickStageRecorder stageRecorder = this::recordStage;
+
+    @PostConstruct
+    public void registerMetrics() {
+        tickTimer = Timer.builder("simulator.tick.duration")
+                .description("Wall time of one live tick, journaling included")
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(Duration.ofMillis(WallClock.TICK_MILLIS))
+                .register(meterRegistry);
+
+        tickOverruns = Counter.builder("simulator.tick.overruns")
+                .description("Live ticks that took longer than the tick rate")
+                .register(meterRegistry);
+
+        for (TickStage stage : TickStage.values()) {
+            stageTimers.put(stage, Timer.builder("simulator.tick.stage")
+                    .description("Time one shard spent in a stage of the live tick")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
 
-    private String rawEnergyTopic;
+        Gauge.builder("simulator.meters.active", meterStateStore, MeterStateStore::size)
+                .description("Meters in the state store")
+                .register(meterRegistry);
+    }
 
     @Scheduled(fixedRate = 60000)
     public void saveMeterSnapshotToDB() {
         log.debug("saveMeterSnapshotToDB: scheduler triggered");
 
-        if (meterReadings.isEmpty()) {
-            log.warn("saveMeterSnapshotToDB: map is empty, returning back");
+        if (meterStateStore.isEmpty()) {
+            log.warn("saveMeterSnapshotToDB: state store is empty, returning back");
             return;
         }
 
-        log.info("saveMeterSnapshotToDB: storing {} meters", meterReadings.size());
-
-        for (Map.Entry<String, MeterSnapshot> entry : meterReadings.entrySet()) {
-
-            MeterSnapshot meter = entry.getValue();
+        log.info("saveMeterSnapshotToDB: flushing meters changed since last checkpoint");
 
-            meterRepository.save(mapper.map(meter, MeterEntity.class));
-        }
+        // Only dirty meters, as batched multi-row upserts
+        meterSnapshotWriter.flushDirty();
     }
 
-    @Scheduled(fixedRate = 5000)
+    @Scheduled(fixedRate = WallClock.TICK_MILLIS)
     public void simulateLiveReadings() {
 
         log.debug("simulateLiveReadings: scheduler triggered");
 
-        if (meterReadings.isEmpty()) {
+        if (meterStateStore.isEmpty()) {
             log.warn(
-                    "simulateLiveReadings: meterReadings map is empty, loading initial values from DB");
+                    "simulateLiveReadings: state store is empty, loading initial values from DB");
             meterManagementService.getValuesFromDB();
             return;
         }
 
         log.info(
                 "simulateLiveReadings: starting simulation cycle for {} meters",
-                meterReadings.size());
-
-        for (Map.Entry<String, MeterSnapshot> entry : meterReadings.entrySet()) {
-
-            String siteId = entry.getKey();
-            MeterSnapshot meter = entry.getValue();
-
-            log.debug(
-                    "simulateLiveReadings: simulating meter for siteId={}, meterId={}",
-                    siteId,
-                    meter.getMeterId());
-
-            // 1. Environmental Inputs
-            double solarW = environmentSimulator.calculateSolarProduction();
-            double loadW = environmentSimulator.calculateHomeConsumption();
-
-            log.debug(
-                    "simulateLiveReadings: siteId={} solarW={}W loadW={}W",
-                    siteId,
-                    solarW,
-                    loadW);
+                meterStateStore.size());
+
+        TickEvent tickEvent = new TickEvent();
+        tickEvent.begin();
+        long tickStart = System.nanoTime();
+
+        // Hold off inserts and column growth until every shard has finished
+        TickReport report = meterStateStore.read(() -> {
+            int[][] shards = shardedTickEngine.planShards(meterStateStore);
+            long tickMillis = wallClock.currentTimeMillis();
+            tickEvent.tickMillis = tickMillis;
+            tickEvent.shardCount = shards.length;
+
+            // One irradiance lookup per region; meters only scale it by their PV rating
+            SolarTick solar = environmentSimulator.prepareSolar(tickMillis);
+            fleetAggregator.beginTick(meterStateStore, shards.length);
+
+            TickReport tickReport = shardedTickEngine.runTick(shards, (shardIndex, slots) -> {
+                SplittableRandom random = randomStreams.forShard(shardIndex, tickMillis);
+                meterSimulationStep.advanceShard(meterStateStore, slots, solar, tickMillis,
+                        wallClock.tickSeconds(), random, stageRecorder);
+
+                long aggregateStart = System.nanoTime();
+                fleetAggregator.accumulate(shardIndex, meterStateStore, slots);
+                recordStage(TickStage.AGGREGATE, System.nanoTime() - aggregateStart);
+
+                long publishStart = System.nanoTime();
+                boolean tracePublish = PublishEvent.isRecording();
+                for (int slot : slots) {
+                    if (tracePublish) {
+                        tracePublishMeter(slot);
+                    } else {
+                        publishMeter(slot);
+                    }
+                }
+                recordStage(TickStage.PUBLISH, System.nanoTime() - publishStart);
+            });
+
+            // Shards' partial sums become this tick's feeder, region and fleet totals
+            fleetAggregator.completeTick(tickMillis);
+
+            // Journal accumulators once per tick so a crash never waits on the next DB flush
+            energyJournal.append(meterStateStore, tickMillis);
+
+            // Still under the read lock, so live subscribers see this tick and nothing of the next
+            liveFeedService.onTick(tickMillis);
+            return tickReport;
+        });
+
+        // Off the lock; the next tick is the only writer of the latest aggregates
+        fleetAggregatePublisher.publish(fleetAggregator.getLatest());
+
+        long tickNanos = System.nanoTime() - tickStart;
+        tickTimer.record(tickNanos, TimeUnit.NANOSECONDS);
+        boolean overran = tickNanos > TimeUnit.MILLISECONDS.toNanos(WallClock.TICK_MILLIS);
+
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.meterCount = report.getMeterCount();
+            tickEvent.overran = overran;
+            tickEvent.commit();
+        }
 
-            // 2. Physics Engine (Priority Logic)
-            energyPhysicsEngine.processEnergyBalance(meter, solarW, loadW);
+        if (overran) {
+            tickOverruns.increment();
+            log.warn("simulateLiveReadings: tick took {} ms, longer than the {} ms tick rate",
+                    TimeUnit.NANOSECONDS.toMillis(tickNanos), WallClock.TICK_MILLIS);
+        }
 
+        for (ShardTiming timing : report.getShardTimings()) {
             log.debug(
-                    "simulateLiveReadings: siteId={} after physics batteryPowerW={} gridPowerW={}",
-                    siteId,
-                    meter.getBatteryPowerW(),
-                    meter.getGridPowerW());
-
-            // 3. Electrical Noise (Voltage/Amps for realism)
-            environmentSimulator.applyElectricalMetadata(meter);
-
-            Boolean invalidCapacity = meter.getBatteryCapacityWh() == null || meter.getBatteryCapacityWh() <= 0;
+                    "simulateLiveReadings: shard={} meters={} durationMs={} completed={}",
+                    timing.getShardIndex(),
+                    timing.getMeterCount(),
+                    TimeUnit.NANOSECONDS.toMillis(timing.getDurationNanos()),
+                    timing.isCompleted());
+        }
 
-            if (invalidCapacity) {
-                log.warn(
-                        "simulateLiveReadings: siteId={} invalid batteryCapacityWh={}, forcing SOC=0",
-                        siteId,
-                        meter.getBatteryCapacityWh());
-            }
+        log.info(
+                "simulateLiveReadings: simulation cycle completed for {} meters in {} ms (slowest shard {} ms)",
+                report.getMeterCount(),
+                TimeUnit.NANOSECONDS.toMillis(report.getDurationNanos()),
+                TimeUnit.NANOSECONDS.toMillis(report.slowestShardNanos()));
 
-            meter.setBatterySoc(
-                    invalidCapacity
-                            ? 0
-                            : (int) Math.round(
-                                    (meter.getBatteryRemainingWh() / meter.getBatteryCapacityWh()) * 100));
+        PublisherStats publisherStats = meterReadingPublisher.getStats();
+        log.info(
+                "simulateLiveReadings: publisher inFlight={} queueDepth={} sent={} coalesced={} dropped={} failed={}",
+                publisherStats.getInFlight(),
+                publisherStats.getQueueDepth(),
+                publisherStats.getSent(),
+                publisherStats.getCoalesced(),
+                publisherStats.getDropped(),
+                publisherStats.getFailed());
+    }
 
-            meter.setTimestamp(LocalDateTime.now());
+    private void recordStage(TickStage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
 
-            log.debug(
-                    "simulateLiveReadings: siteId={} SOC={}%, voltage={}V current={}A",
-                    siteId,
-                    meter.getBatterySoc(),
-                    meter.getCurrentVoltage(),
-                    meter.getCurrentAmps());
+    private void publishMeter(int slot) {
 
-            log.debug(
-                    "simulateLiveReadings: publishing meter snapshot to Kafka topic={}",
-                    rawEnergyTopic);
+        meterStateStore.markModified(slot);
 
-            kafkaTemplate.send(rawEnergyTopic, meter);
+        // Kafka still speaks MeterSnapshot, so materialize one for the wire
+        meterReadingPublisher.publish(meterStateStore.getSiteId(slot), shardedTickEngine.partitionOfSlot(slot),
+                meterStateStore.materialize(slot));
+    }
 
-            log.info(
-                    "simulateLiveReadings: published snapshot siteId={} meterId={} timestamp={}",
-                    siteId,
-                    meter.getMeterId(),
-                    meter.getTimestamp());
+    private void tracePublishMeter(int slot) {
+        PublishEvent event = new PublishEvent();
+        event.begin();
+        publishMeter(slot);
+        event.end();
 
-            meterReadings.put(siteId, meter);
+        event.siteId = meterStateStore.getSiteId(slot);
+        if (event.shouldCommit()) {
+            event.partition = shardedTickEngine.partitionOfSlot(slot);
+            event.commit();
         }
-
-        log.info("simulateLiveReadings: simulation cycle completed successfully");
     }
 
 }
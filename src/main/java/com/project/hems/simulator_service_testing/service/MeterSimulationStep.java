@@ -0,0 +1,168 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.util.SplittableRandom;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.project.hems.simulator_service_testing.model.TickStage;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.trace.MeterPhysicsEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Advances one meter by one tick: environment inputs, physics, electrical
+ * metadata and SoC. Shared by the live simulation and batch generation; what
+ * happens to the result (dirty tracking, publishing, files) is up to the
+ * caller.
+ */
+@Slf4j
+@Component
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.simulation")
+public class MeterSimulationStep {
+
+    // One scratch batch per tick thread; virtual threads get a fresh one per shard
+    private static final ThreadLocal<EnergyPhysicsKernel.Batch> SCRATCH = ThreadLocal
+            .withInitial(EnergyPhysicsKernel.Batch::new);
+
+    private final EnergyPhysicsEngine energyPhysicsEngine;
+    private final EnvironmentSimulator environmentSimulator;
+
+    // false falls back to the per-meter engine, e.g. to time each meter's physics in MeterPhysicsEvent
+    private Boolean batchPhysics = true;
+
+    /**
+     * Advances every slot of a shard by one tick. Produces the same readings
+     * as calling {@link #advance} for each slot in order.
+     *
+     * @param stages receives the shard's time per stage; the per-meter
+     *               fallback interleaves stages per meter and reports none
+     */
+    public void advanceShard(MeterStateStore store, int[] slots, SolarTick solar, long tickMillis,
+            double deltaSeconds, SplittableRandom random, TickStageRecorder stages) {
+
+        if (!batchPhysics) {
+            for (int slot : slots) {
+                advance(store, slot, solar, tickMillis, deltaSeconds, random);
+            }
+            return;
+        }
+
+        EnergyPhysicsKernel.Batch batch = SCRATCH.get();
+        batch.resize(slots.length);
+
+        long environmentStart = System.nanoTime();
+
+        // Gather, drawing noise per meter in the scalar path's order (load when it has no profile, then voltage)
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            batch.loadW[i] = environmentSimulator.sampleHomeConsumption(store, slot, tickMillis, random);
+            batch.voltage[i] = environmentSimulator.sampleVoltage(random);
+
+            batch.solarW[i] = environmentSimulator.calculateSolarProduction(store, slot, solar);
+            batch.batteryCapacityWh[i] = store.getBatteryCapacityWh(slot);
+            batch.batteryRemainingWh[i] = store.getBatteryRemainingWh(slot);
+            batch.totalSolarYieldKwh[i] = store.getTotalSolarYieldKwh(slot);
+            batch.totalHomeUsageKwh[i] = store.getTotalHomeUsageKwh(slot);
+            batch.totalGridImportKwh[i] = store.getTotalGridImportKwh(slot);
+            batch.totalGridExportKwh[i] = store.getTotalGridExportKwh(slot);
+            batch.chargingStatus[i] = store.getChargingStatusOrdinal(slot);
+        }
+
+        long physicsStart = System.nanoTime();
+
+        EnergyPhysicsKernel.run(batch, deltaSeconds);
+
+        // Scatter
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            store.setSolarProductionW(slot, batch.solarW[i]);
+            store.setHomeConsumptionW(slot, batch.loadW[i]);
+            store.setBatteryPowerW(slot, batch.batteryPowerW[i]);
+            store.setGridPowerW(slot, batch.gridPowerW[i]);
+            store.setBatteryRemainingWh(slot, batch.batteryRemainingWh[i]);
+            store.setTotalSolarYieldKwh(slot, batch.totalSolarYieldKwh[i]);
+            store.setTotalHomeUsageKwh(slot, batch.totalHomeUsageKwh[i]);
+            store.setTotalGridImportKwh(slot, batch.totalGridImportKwh[i]);
+            store.setTotalGridExportKwh(slot, batch.totalGridExportKwh[i]);
+            store.setChargingStatusOrdinal(slot, batch.chargingStatus[i]);
+            store.setBatterySoc(slot, batch.batterySoc[i]);
+
+            if (batch.batteryCapacityWh[i] <= 0) {
+                log.warn(
+                        "advanceShard: siteId={} invalid batteryCapacityWh={}, forcing SOC=0",
+                        store.getSiteId(slot),
+                        batch.batteryCapacityWh[i]);
+            }
+        }
+
+        long metadataStart = System.nanoTime();
+
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            store.setCurrentVoltage(slot, batch.voltage[i]);
+            store.setCurrentAmps(slot, Math.abs(batch.loadW[i]) / batch.voltage[i]);
+            store.setTimestampMillis(slot, tickMillis);
+        }
+
+        long metadataEnd = System.nanoTime();
+        stages.record(TickStage.ENVIRONMENT, physicsStart - environmentStart);
+        stages.record(TickStage.PHYSICS, metadataStart - physicsStart);
+        stages.record(TickStage.METADATA, metadataEnd - metadataStart);
+
+        if (MeterPhysicsEvent.isRecording()) {
+            for (int slot : slots) {
+                new MeterPhysicsEvent().commit(store, slot);
+            }
+        }
+    }
+
+    /**
+     * @param solar        irradiance for this tick
+     * @param tickMillis   simulated time stamped on the reading
+     * @param deltaSeconds simulated time covered by the tick
+     * @param random       the shard's noise stream for this tick
+     */
+    public void advance(MeterStateStore store, int slot, SolarTick solar, long tickMillis, double deltaSeconds,
+            SplittableRandom random) {
+
+        // 1. Environmental Inputs
+        double solarW = environmentSimulator.calculateSolarProduction(store, slot, solar);
+        double loadW = environmentSimulator.sampleHomeConsumption(store, slot, tickMillis, random);
+
+        // 2. Physics Engine (Priority Logic)
+        MeterPhysicsEvent physicsEvent = new MeterPhysicsEvent();
+        physicsEvent.begin();
+        energyPhysicsEngine.processEnergyBalance(store, slot, solarW, loadW, deltaSeconds);
+        physicsEvent.end();
+
+        // 3. Electrical Noise (Voltage/Amps for realism)
+        environmentSimulator.applyElectricalMetadata(store, slot, random);
+
+        double capacityWh = store.getBatteryCapacityWh(slot);
+        boolean invalidCapacity = capacityWh <= 0;
+
+        if (invalidCapacity) {
+            log.warn(
+                    "advance: siteId={} invalid batteryCapacityWh={}, forcing SOC=0",
+                    store.getSiteId(slot),
+                    capacityWh);
+        }
+
+        store.setBatterySoc(slot,
+                invalidCapacity
+                        ? 0
+                        : (int) Math.round(
+                                (store.getBatteryRemainingWh(slot) / capacityWh) * 100));
+
+        store.setTimestampMillis(slot, tickMillis);
+
+        physicsEvent.commit(store, slot);
+    }
+}
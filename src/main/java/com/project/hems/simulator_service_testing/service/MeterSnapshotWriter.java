@@ -0,0 +1,289 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import com.project.hems.simulator_service_testing.model.FlushReport;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.repository.MeterJdbcRepository;
+import com.project.hems.simulator_service_testing.state.MeterRowBuffer;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.state.ShutdownSpill;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Flushes meters changed since the last checkpoint to the database using
+ * batched multi-row upserts, spread over the persistence executor.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.persistence")
+public class MeterSnapshotWriter {
+
+    // 15 bind parameters per row; MySQL allows 65535 per statement
+    private static final int MAX_BATCH_SIZE = 4000;
+
+    private final MeterStateStore meterStateStore;
+    private final MeterJdbcRepository meterJdbcRepository;
+    private final ExecutorService persistenceExecutor;
+    private final ShutdownSpill shutdownSpill;
+    private final MeterRegistry meterRegistry;
+
+    private Integer batchSize = 500;
+
+    // Every modification stamped at or below this version is already in the DB
+    private long checkpointVersion = 0L;
+
+    public synchronized FlushReport flushDirty() {
+
+        long flushStart = System.nanoTime();
+
+        // Modifications racing with this flush get a newer version and wait for the next one
+        long flushVersion = meterStateStore.advanceVersion();
+
+        // Only the copy runs under the lock; the tick is not held up by JDBC round trips
+        MeterRowBuffer dirtyRows = meterStateStore.read(() -> MeterRowBuffer.capture(meterStateStore,
+                meterStateStore.modifiedSlots(checkpointVersion, flushVersion)));
+        FlushReport report = writeRows(dirtyRows, flushStart);
+
+        checkpointVersion = flushVersion;
+        recordMetrics("flush", report);
+
+        log.info("flushDirty: wrote {}/{} dirty meters in {} batches ({} failed) in {} ms",
+                report.getRowsWritten(),
+                report.getDirtyMeters(),
+                report.getBatches(),
+                report.getFailedBatches(),
+                TimeUnit.NANOSECONDS.toMillis(report.getDurationNanos()));
+
+        return report;
+    }
+
+    /**
+     * Writes the whole fleet before shutdown. Existing rows are loaded in one
+     * query; updates and inserts then run as parallel batches. Whatever has not
+     * been written when the deadline passes is spilled to a local file that is
+     * replayed on the next start.
+     */
+    public synchronized FlushReport syncAll(Duration deadline) {
+
+        long syncStart = System.nanoTime();
+        long deadlineAt = syncStart + deadline.toNanos();
+        long syncVersion = meterStateStore.advanceVersion();
+
+        Map<Long, Long> persistedMeterIds = meterJdbcRepository.findMeterIdsBySiteId();
+
+        // Split slots into rows that exist (update by id) and rows to insert, copying
+        // both under the lock so the batches below run without it
+        MeterRowBuffer[] rows = meterStateStore.read(() -> {
+            int count = meterStateStore.size();
+            int[] updateSlots = new int[count];
+            int[] insertSlots = new int[count];
+            int updates = 0;
+            int inserts = 0;
+            for (int slot = 0; slot < count; slot++) {
+                if (persistedMeterIds.containsKey(meterStateStore.getSiteId(slot))) {
+                    updateSlots[updates++] = slot;
+                } else {
+                    insertSlots[inserts++] = slot;
+                }
+            }
+            return new MeterRowBuffer[] {
+                    MeterRowBuffer.capture(meterStateStore, Arrays.copyOf(updateSlots, updates)),
+                    MeterRowBuffer.capture(meterStateStore, Arrays.copyOf(insertSlots, inserts)) };
+        });
+        MeterRowBuffer updateRows = rows[0];
+        MeterRowBuffer insertRows = rows[1];
+        int count = updateRows.size() + insertRows.size();
+
+        long[] updateIds = new long[updateRows.size()];
+        for (int row = 0; row < updateIds.length; row++) {
+            updateIds[row] = persistedMeterIds.get(updateRows.getSiteId(row));
+        }
+
+        log.info("syncAll: syncing {} meters ({} updates, {} inserts) within {} ms",
+                count, updateRows.size(), insertRows.size(), deadline.toMillis());
+
+        int effectiveBatchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        List<MeterRowBuffer> batchRows = new ArrayList<>();
+        List<int[]> batchRanges = new ArrayList<>();
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        for (int from = 0; from < updateRows.size(); from += effectiveBatchSize) {
+            int batchFrom = from;
+            int batchTo = Math.min(from + effectiveBatchSize, updateRows.size());
+            batchRows.add(updateRows);
+            batchRanges.add(new int[] { batchFrom, batchTo });
+            futures.add(persistenceExecutor.submit(
+                    () -> meterJdbcRepository.updateState(updateRows, updateIds, batchFrom, batchTo)));
+        }
+        for (int from = 0; from < insertRows.size(); from += effectiveBatchSize) {
+            int batchFrom = from;
+            int batchTo = Math.min(from + effectiveBatchSize, insertRows.size());
+            batchRows.add(insertRows);
+            batchRanges.add(new int[] { batchFrom, batchTo });
+            futures.add(persistenceExecutor.submit(
+                    () -> meterJdbcRepository.upsert(insertRows, batchFrom, batchTo)));
+        }
+
+        int rowsWritten = 0;
+        int failedBatches = 0;
+        List<Integer> unsyncedSlots = new ArrayList<>();
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                long remaining = Math.max(0, deadlineAt - System.nanoTime());
+                rowsWritten += futures.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                continue;
+            } catch (TimeoutException e) {
+                futures.get(i).cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("syncAll: batch {} failed: {}", i, e.getCause().getMessage());
+            }
+
+            failedBatches++;
+            int[] range = batchRanges.get(i);
+            for (int row = range[0]; row < range[1]; row++) {
+                unsyncedSlots.add(batchRows.get(i).getSlot(row));
+            }
+        }
+
+        if (!unsyncedSlots.isEmpty()) {
+            List<MeterSnapshot> unsynced = meterStateStore.read(() -> {
+                List<MeterSnapshot> meters = new ArrayList<>(unsyncedSlots.size());
+                for (int slot : unsyncedSlots) {
+                    meters.add(meterStateStore.materialize(slot));
+                }
+                return meters;
+            });
+            try {
+                shutdownSpill.write(unsynced);
+            } catch (IOException e) {
+                log.error("syncAll: failed to spill {} unsynced meters: {}", unsynced.size(), e.getMessage());
+            }
+        }
+
+        FlushReport report = FlushReport.builder()
+                .dirtyMeters(count)
+                .rowsWritten(rowsWritten)
+                .batches(futures.size())
+                .failedBatches(failedBatches)
+                .spilledMeters(unsyncedSlots.size())
+                .durationNanos(System.nanoTime() - syncStart)
+                .build();
+
+        checkpointVersion = syncVersion;
+        recordMetrics("shutdown-sync", report);
+
+        log.info("syncAll: wrote {} of {} meters in {} ms, spilled {}",
+                report.getRowsWritten(),
+                report.getDirtyMeters(),
+                TimeUnit.NANOSECONDS.toMillis(report.getDurationNanos()),
+                report.getSpilledMeters());
+
+        return report;
+    }
+
+    /**
+     * Upserts the buffered rows in parallel batches without holding the
+     * store's lock. Slots from failed batches are marked modified again so the
+     * next flush retries them.
+     */
+    public FlushReport writeRows(MeterRowBuffer rows, long startNanos) {
+
+        int effectiveBatchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += effectiveBatchSize) {
+            int batchFrom = from;
+            int batchTo = Math.min(from + effectiveBatchSize, rows.size());
+            futures.add(persistenceExecutor.submit(() -> meterJdbcRepository.upsert(rows, batchFrom, batchTo)));
+        }
+
+        int rowsWritten = 0;
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                rowsWritten += futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(i);
+            } catch (ExecutionException e) {
+                failed.add(i);
+                log.error("writeRows: batch {} failed: {}", i, e.getCause().getMessage());
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            meterStateStore.read(() -> {
+                for (int batch : failed) {
+                    remarkBatch(rows, batch * effectiveBatchSize, effectiveBatchSize);
+                }
+                return null;
+            });
+        }
+
+        return FlushReport.builder()
+                .dirtyMeters(rows.size())
+                .rowsWritten(rowsWritten)
+                .batches(futures.size())
+                .failedBatches(failed.size())
+                .durationNanos(System.nanoTime() - startNanos)
+                .build();
+    }
+
+    private void recordMetrics(String operation, FlushReport report) {
+        Timer.builder("simulator.db.flush")
+                .description("Duration of a database flush of the state store")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(report.getDurationNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("simulator.db.flush.rows")
+                .description("Rows written by one flush")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(report.getRowsWritten());
+        Counter.builder("simulator.db.flush.failed.batches")
+                .description("Upsert batches that failed or missed the deadline")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment(report.getFailedBatches());
+        Counter.builder("simulator.db.flush.spilled")
+                .description("Meters spilled to the local file instead of the database")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment(report.getSpilledMeters());
+    }
+
+    // Runs under the store's read lock
+    private void remarkBatch(MeterRowBuffer rows, int from, int length) {
+        int to = Math.min(from + length, rows.size());
+        for (int row = from; row < to; row++) {
+            meterStateStore.markModified(rows.getSlot(row));
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.repository.MeterJdbcRepository;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists sites in the background after they are already live in the state
+ * store. A site submitted again before it is written is written once, with
+ * whatever state it has by then; a site is never written by two writers at
+ * the same time, so a later write cannot be overtaken by an older one.
+ *
+ * <p>
+ * A drainer collects pending sites into batches of up to {@code batchSize}
+ * and hands them to virtual threads, at most {@code maxConcurrentWrites} at a
+ * time. Submitting blocks once {@code maxPending} sites are waiting. A batch
+ * that fails is retried up to {@code maxAttempts} times; after that its sites
+ * are left to the periodic flush, which picks them up as modified.
+ *
+ * <p>
+ * Every submit returns a future that completes once the site is in the
+ * database; {@link #awaitDurable(long)} and
+ * {@link #flush(Duration)} wait for one site or for everything submitted.
+ */
+@Slf4j
+@Service
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.write-behind")
+public class MeterWriteBehind {
+
+    private final MeterStateStore meterStateStore;
+    private final MeterJdbcRepository meterJdbcRepository;
+    private final ExecutorService writeBehindExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private Integer batchSize = 500;
+    private Integer maxConcurrentWrites = 2;
+    private Integer maxPending = 10000;
+    private Integer maxAttempts = 5;
+    private Long retryDelayMs = 1000L;
+    // How long awaitDurable waits for one site
+    private Long durableTimeoutMs = 5000L;
+
+    // Submitted and not yet taken by a writer
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Taken by a writer; a site here is not taken again until its write ends
+    private final Map<Long, Pending> inFlight = new ConcurrentHashMap<>();
+    // Sites to take, in submit order; a site is queued at most once per pending entry
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+
+    private Semaphore capacity;
+    private Semaphore writers;
+    private Thread drainer;
+    private volatile boolean running;
+
+    private Counter coalescedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void start() {
+        capacity = new Semaphore(maxPending);
+        writers = new Semaphore(maxConcurrentWrites);
+
+        Gauge.builder("simulator.persistence.write-behind.pending", this, MeterWriteBehind::pendingCount)
+                .description("Sites live in the state store but not yet in the database")
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder("simulator.persistence.write-behind.coalesced")
+                .description("Submits merged into a write already pending for the site")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("simulator.persistence.write-behind.sites")
+                .description("Sites written behind, by outcome")
+                .tag("result", "written")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("simulator.persistence.write-behind.sites")
+                .description("Sites written behind, by outcome")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("simulator.persistence.write-behind.batch")
+                .description("One write-behind batch, from materializing to commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        running = true;
+        drainer = Thread.ofVirtual().name("meter-write-behind-drainer").start(this::drain);
+
+        log.info("start: write-behind with batches of {}, {} concurrent writes and {} pending sites at most",
+                batchSize, maxConcurrentWrites, maxPending);
+    }
+
+    /**
+     * Queues the site for writing; it must already be in the state store.
+     * Blocks while {@code maxPending} sites are waiting.
+     *
+     * @return completes once the site's state from at least this call is in
+     *         the database
+     */
+    public CompletableFuture<Void> submit(long siteId) {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        boolean[] created = { false };
+        Pending entry = pending.computeIfAbsent(siteId, site -> {
+            created[0] = true;
+            return new Pending(1, true);
+        });
+
+        if (created[0]) {
+            queue.add(siteId);
+        } else {
+            capacity.release();
+            coalescedCounter.increment();
+        }
+        return entry.durable;
+    }
+
+    /**
+     * Completes when the site's last submitted state is in the database, or
+     * right away when nothing is waiting for it.
+     */
+    public CompletableFuture<Void> whenDurable(long siteId) {
+        Pending entry = pending.get(siteId);
+        if (entry == null) {
+            entry = inFlight.get(siteId);
+        }
+        return entry == null ? CompletableFuture.completedFuture(null) : entry.durable;
+    }
+
+    /**
+     * Waits up to {@code durableTimeoutMs} until the site is durable.
+     *
+     * @return {@code false} if the wait timed out or the write gave up
+     */
+    public boolean awaitDurable(long siteId) {
+        return await(whenDurable(siteId), Duration.ofMillis(durableTimeoutMs));
+    }
+
+    /**
+     * Waits until every site submitted before this call is durable.
+     *
+     * @return {@code false} if the wait timed out or a write gave up
+     */
+    public boolean flush(Duration timeout) {
+        List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        pending.values().forEach(entry -> waiting.add(entry.durable));
+        inFlight.values().forEach(entry -> waiting.add(entry.durable));
+        return await(CompletableFuture.allOf(waiting.toArray(CompletableFuture<?>[]::new)), timeout);
+    }
+
+    public int pendingCount() {
+        return pending.size() + inFlight.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        drainer.interrupt();
+        // The shutdown sync writes the whole fleet anyway, including whatever is still pending here
+        log.info("stop: write-behind stopped with {} sites pending", pendingCount());
+    }
+
+    private void drain() {
+        List<Long> sites = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                writers.acquire();
+
+                sites.clear();
+                sites.add(first);
+                queue.drainTo(sites, batchSize - 1);
+
+                Map<Long, Pending> batch = take(sites);
+                if (batch.isEmpty()) {
+                    writers.release();
+                    continue;
+                }
+                writeBehindExecutor.execute(() -> {
+                    try {
+                        write(batch);
+                    } finally {
+                        writers.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Moves the sites from pending to in flight, skipping those still being written
+    private Map<Long, Pending> take(List<Long> sites) {
+        Map<Long, Pending> batch = new LinkedHashMap<>();
+        for (Long site : sites) {
+            if (inFlight.containsKey(site)) {
+                // Queued again when the running write ends
+                continue;
+            }
+            Pending entry = pending.remove(site);
+            if (entry != null) {
+                inFlight.put(site, entry);
+                batch.put(site, entry);
+                if (entry.holdsCapacity) {
+                    capacity.release();
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void write(Map<Long, Pending> batch) {
+        long batchStart = System.nanoTime();
+
+        // Current state, so every change made while the site waited goes in the same write
+        List<MeterSnapshot> meters = new ArrayList<>(batch.size());
+        for (Long site : batch.keySet()) {
+            MeterSnapshot meter = meterStateStore.get(site);
+            if (meter != null) {
+                meters.add(meter);
+            }
+        }
+
+        Throwable failure = null;
+        try {
+            meterJdbcRepository.upsert(meters);
+            batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+            writtenCounter.increment(meters.size());
+            log.debug("write: wrote {} sites behind", meters.size());
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+            finish(entry.getKey(), entry.getValue(), failure);
+        }
+    }
+
+    private void finish(long site, Pending entry, Throwable failure) {
+        if (failure != null && entry.attempts < maxAttempts) {
+            // Merge into a newer submit if there is one, so both complete on the retry.
+            // Retries never block on capacity; the writer must not wait for submitters
+            Pending retry = new Pending(entry.attempts + 1, false);
+            Pending newer = pending.putIfAbsent(site, retry);
+            Pending target = newer == null ? retry : newer;
+            target.durable.whenComplete((ignored, error) -> complete(entry, error));
+            inFlight.remove(site);
+            CompletableFuture.delayedExecutor(retryDelayMs, TimeUnit.MILLISECONDS, writeBehindExecutor)
+                    .execute(() -> queue.add(site));
+            if (entry.attempts == 1) {
+                log.warn("finish: write-behind of siteId={} failed, retrying: {}", site, failure.getMessage());
+            }
+            return;
+        }
+
+        inFlight.remove(site);
+        // A submit that arrived during the write was skipped by the drainer; queue it now
+        if (pending.containsKey(site)) {
+            queue.add(site);
+        }
+
+        if (failure != null) {
+            failedCounter.increment();
+            log.error("finish: write-behind of siteId={} gave up after {} attempts, left to the periodic flush: {}",
+                    site, entry.attempts, failure.getMessage());
+        }
+        complete(entry, failure);
+    }
+
+    private static void complete(Pending entry, Throwable failure) {
+        if (failure == null) {
+            entry.durable.complete(null);
+        } else {
+            entry.durable.completeExceptionally(failure);
+        }
+    }
+
+    private static boolean await(CompletableFuture<?> future, Duration timeout) {
+        try {
+            future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    private static final class Pending {
+
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+        private final int attempts;
+        // Whether a capacity permit is held until a writer takes the entry
+        private final boolean holdsCapacity;
+
+        private Pending(int attempts, boolean holdsCapacity) {
+            this.attempts = attempts;
+            this.holdsCapacity = holdsCapacity;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.project.hems.simulator_service_testing.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.project.hems.simulator_service_testing.model.ShardTiming;
+import com.project.hems.simulator_service_testing.model.TickReport;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+import com.project.hems.simulator_service_testing.trace.ShardEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Splits the fleet into stable shards and runs one simulation tick across all
+ * of them in parallel. A tick only returns once every shard has finished, so
+ * callers still observe a tick as a single unit of work.
+ *
+ * <p>
+ * In partition-aware publish mode shards are aligned to Kafka partitions:
+ * every shard targets one partition (or, with fewer shards than partitions,
+ * holds its partitions as contiguous runs), so each shard hands the producer
+ * large per-partition batches.
+ */
+@Slf4j
+@Component
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.simulation")
+public class ShardedTickEngine {
+
+    private final ExecutorService simulationTickExecutor;
+    private final MeterReadingPublisher meterReadingPublisher;
+
+    private Integer shardCount = Runtime.getRuntime().availableProcessors();
+
+    // Shard plan is only rebuilt when the fleet size changes; slots never move
+    private volatile int[][] cachedPlan = new int[0][];
+    private volatile int cachedPlanSize = -1;
+    // Target partition per slot; empty unless publishing is partition-aware
+    private volatile int[] cachedPartitions = new int[0];
+
+    // Stable assignment: a site always lands in the same shard for a given shardCount
+    public int shardOf(long siteId) {
+        if (meterReadingPublisher.isPartitionAware()) {
+            int partitions = meterReadingPublisher.getRawEnergyPartitionCount();
+            int shardsPerPartition = Math.max(1, shardCount / partitions);
+            int partition = meterReadingPublisher.partitionOf(siteId);
+            return (partition * shardsPerPartition + Math.floorMod(mix(siteId), shardsPerPartition)) % shardCount;
+        }
+        return Math.floorMod(mix(siteId), shardCount);
+    }
+
+    /**
+     * Kafka partition planned for the slot, or -1 when the producer should
+     * partition by key.
+     */
+    public int partitionOfSlot(int slot) {
+        int[] partitions = cachedPartitions;
+        return slot < partitions.length ? partitions[slot] : -1;
+    }
+
+    /**
+     * Groups the store's slots by shard. Must be called while the store's read
+     * lock is held so the slot range cannot change during planning.
+     */
+    public int[][] planShards(MeterStateStore store) {
+
+        int fleetSize = store.size();
+        if (cachedPlanSize == fleetSize) {
+            return cachedPlan;
+        }
+
+        int[][] plan = groupByShard(store, fleetSize);
+
+        if (meterReadingPublisher.isPartitionAware()) {
+            int[] partitions = new int[fleetSize];
+            for (int slot = 0; slot < fleetSize; slot++) {
+                partitions[slot] = meterReadingPublisher.partitionOf(store.getSiteId(slot));
+            }
+            for (int[] shard : plan) {
+                sortByPartition(shard, partitions);
+            }
+            cachedPartitions = partitions;
+        } else {
+            cachedPartitions = new int[0];
+        }
+
+        log.info("planShards: rebuilt shard plan for {} meters across {} shards", fleetSize, shardCount);
+
+        cachedPlan = plan;
+        cachedPlanSize = fleetSize;
+        return plan;
+    }
+
+    /**
+     * Groups the slots of a store other than the live one, such as a batch
+     * generation fleet, without touching the cached live plan. Slots are left
+     * in slot order.
+     */
+    public int[][] planDetached(MeterStateStore store) {
+        return store.read(() -> groupByShard(store, store.size()));
+    }
+
+    public TickReport runTick(int[][] shards, BiConsumer<Integer, int[]> shardWork) {
+        return runTick(simulationTickExecutor, shards, shardWork);
+    }
+
+    /**
+     * Runs a tick on the given executor instead of the live tick executor,
+     * e.g. for a detached fleet that must not compete with the live tick.
+     */
+    public TickReport runTick(ExecutorService executor, int[][] shards, BiConsumer<Integer, int[]> shardWork) {
+
+        long tickStart = System.nanoTime();
+
+        List<Future<ShardTiming>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shardIndex = i;
+            int[] shard = shards[i];
+            futures.add(executor.submit(() -> runShard(shardIndex, shard, shardWork)));
+        }
+
+        // Join every shard so the tick completes as a unit
+        List<ShardTiming> timings = new ArrayList<>(shards.length);
+        int meterCount = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                timings.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timings.add(failedShard(i, shards[i].length));
+            } catch (ExecutionException e) {
+                timings.add(failedShard(i, shards[i].length));
+            }
+            meterCount += shards[i].length;
+        }
+
+        return TickReport.builder()
+                .meterCount(meterCount)
+                .durationNanos(System.nanoTime() - tickStart)
+                .shardTimings(timings)
+                .build();
+    }
+
+    private ShardTiming runShard(int shardIndex, int[] shard, BiConsumer<Integer, int[]> shardWork) {
+
+        ShardEvent event = new ShardEvent();
+        event.begin();
+        long shardStart = System.nanoTime();
+        boolean completed = true;
+
+        try {
+            shardWork.accept(shardIndex, shard);
+        } catch (Exception e) {
+            completed = false;
+            log.error("runShard: shard {} failed after {} ns: {}", shardIndex, System.nanoTime() - shardStart,
+                    e.getMessage(), e);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.shardIndex = shardIndex;
+            event.meterCount = shard.length;
+            event.completed = completed;
+            event.commit();
+        }
+
+        return ShardTiming.builder()
+                .shardIndex(shardIndex)
+                .meterCount(shard.length)
+                .durationNanos(System.nanoTime() - shardStart)
+                .completed(completed)
+                .build();
+    }
+
+    private int[][] groupByShard(MeterStateStore store, int fleetSize) {
+
+        // First pass sizes each shard exactly, second pass fills it in slot order
+        int[] shardSizes = new int[shardCount];
+        for (int slot = 0; slot < fleetSize; slot++) {
+            shardSizes[shardOf(store.getSiteId(slot))]++;
+        }
+
+        int[][] plan = new int[shardCount][];
+        for (int i = 0; i < shardCount; i++) {
+            plan[i] = new int[shardSizes[i]];
+        }
+
+        int[] fill = new int[shardCount];
+        for (int slot = 0; slot < fleetSize; slot++) {
+            int shard = shardOf(store.getSiteId(slot));
+            plan[shard][fill[shard]++] = slot;
+        }
+        return plan;
+    }
+
+    // Contiguous runs per partition so the producer fills one batch at a time
+    private static void sortByPartition(int[] shard, int[] partitions) {
+        long[] keyed = new long[shard.length];
+        for (int i = 0; i < shard.length; i++) {
+            keyed[i] = ((long) partitions[shard[i]] << 32) | shard[i];
+        }
+        Arrays.sort(keyed);
+        for (int i = 0; i < shard.length; i++) {
+            shard[i] = (int) keyed[i];
+        }
+    }
+
+    private static int mix(long siteId) {
+        return Long.hashCode(siteId * 0x9E3779B97F4A7C15L);
+    }
+
+    private ShardTiming failedShard(int shardIndex, int meterCount) {
+        return ShardTiming.builder()
+                .shardIndex(shardIndex)
+                .meterCount(meterCount)
+                .completed(false)
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.project.hems.simulator_service_testing.service;
+
+import com.project.hems.simulator_service_testing.model.TickStage;
+
+/**
+ * Receives how long one shard spent in each stage of a tick. The live tick
+ * feeds its stage timers; batch generation passes {@link #NONE} so its
+ * accelerated runs do not skew them.
+ */
+@FunctionalInterface
+public interface TickStageRecorder {
+
+    TickStageRecorder NONE = (stage, nanos) -> {
+    };
+
+    void record(TickStage stage, long nanos);
+}
@@ -0,0 +1,148 @@
+package com.project.hems.simulator_service_testing.solar;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Clear-sky PV output from site location and date. Sites are snapped to a
+ * grid of regions; each (region, day of year) gets a precomputed table of
+ * output per UTC minute, shared by every site in the region. A tick then costs
+ * one table read per region plus one multiply per meter.
+ *
+ * <p>
+ * Solar position uses the usual declination and equation-of-time
+ * approximations; horizontal irradiance uses the Haurwitz clear-sky model,
+ * scaled to a fraction of the 1000 W/m² rating and a performance ratio.
+ */
+@Slf4j
+@Component
+@Setter
+@ConfigurationProperties(prefix = "property.config.solar")
+public class SolarIrradianceModel {
+
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final double STC_IRRADIANCE = 1000.0;
+
+    // Used for sites activated without a location or PV rating
+    @Getter
+    private Double defaultLatitude = 51.0;
+    @Getter
+    private Double defaultLongitude = 10.0;
+    @Getter
+    private Double defaultPvCapacityW = 5000.0;
+
+    // Sites within the same grid cell share tables
+    private Double regionResolutionDeg = 0.5;
+    // Inverter, wiring, soiling and temperature losses
+    private Double performanceRatio = 0.85;
+    // A year for ~50 regions; cleared wholesale when exceeded
+    private Integer maxCachedTables = 20000;
+
+    private final Map<Long, Integer> regionIds = new ConcurrentHashMap<>();
+    // Region id -> {latitude, longitude} of the cell centre; copy-on-write
+    private volatile double[][] regionCenters = new double[0][];
+    private final Map<Long, float[]> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Region id for a location, registering the region on first use. NaN
+     * coordinates fall back to the defaults. Ids are dense and never change.
+     */
+    public int regionOf(double latitude, double longitude) {
+        double lat = Double.isNaN(latitude) ? defaultLatitude : latitude;
+        double lon = Double.isNaN(longitude) ? defaultLongitude : longitude;
+
+        long cellLat = Math.round(lat / regionResolutionDeg);
+        long cellLon = Math.round(lon / regionResolutionDeg);
+        long key = (cellLat << 32) ^ (cellLon & 0xFFFFFFFFL);
+
+        Integer id = regionIds.get(key);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = regionIds.get(key);
+            if (id != null) {
+                return id;
+            }
+            int newId = regionCenters.length;
+            double[][] centers = Arrays.copyOf(regionCenters, newId + 1);
+            centers[newId] = new double[] { cellLat * regionResolutionDeg, cellLon * regionResolutionDeg };
+            regionCenters = centers;
+            regionIds.put(key, newId);
+
+            log.info("regionOf: registered solar region {} at lat={} lon={}", newId, centers[newId][0],
+                    centers[newId][1]);
+            return newId;
+        }
+    }
+
+    /**
+     * Output fractions of every known region for one instant, looked up once
+     * so the tick only indexes an array per meter.
+     */
+    public SolarTick forTick(long epochMillis) {
+        long epochMinute = Math.floorDiv(epochMillis, 60_000L);
+        int minuteOfDay = (int) Math.floorMod(epochMinute, (long) MINUTES_PER_DAY);
+        int dayOfYear = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, (long) MINUTES_PER_DAY)).getDayOfYear();
+
+        int regions = regionCenters.length;
+        double[] fractions = new double[regions];
+        for (int region = 0; region < regions; region++) {
+            fractions[region] = table(region, dayOfYear)[minuteOfDay];
+        }
+        return new SolarTick(this, fractions, dayOfYear, minuteOfDay);
+    }
+
+    // For regions registered after the tick's lookup was built
+    double fraction(int region, int dayOfYear, int minuteOfDay) {
+        return table(region, dayOfYear)[minuteOfDay];
+    }
+
+    private float[] table(int region, int dayOfYear) {
+        long key = ((long) region << 9) | dayOfYear;
+        float[] table = tables.get(key);
+        if (table == null) {
+            if (tables.size() >= maxCachedTables) {
+                tables.clear();
+            }
+            double[] center = regionCenters[region];
+            table = tables.computeIfAbsent(key, k -> buildTable(center[0], center[1], dayOfYear));
+        }
+        return table;
+    }
+
+    private float[] buildTable(double latitude, double longitude, int dayOfYear) {
+        double latRad = Math.toRadians(latitude);
+        double declination = Math.toRadians(23.45 * Math.sin(2 * Math.PI * (284 + dayOfYear) / 365.0));
+
+        // Equation of time in minutes
+        double b = 2 * Math.PI * (dayOfYear - 81) / 364.0;
+        double equationOfTime = 9.87 * Math.sin(2 * b) - 7.53 * Math.cos(b) - 1.5 * Math.sin(b);
+
+        double sinProduct = Math.sin(latRad) * Math.sin(declination);
+        double cosProduct = Math.cos(latRad) * Math.cos(declination);
+
+        float[] table = new float[MINUTES_PER_DAY];
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            double solarMinutes = minute + 4 * longitude + equationOfTime;
+            double hourAngle = Math.toRadians(solarMinutes / 4.0 - 180.0);
+            double cosZenith = sinProduct + cosProduct * Math.cos(hourAngle);
+
+            if (cosZenith > 0) {
+                double irradiance = 1098.0 * cosZenith * Math.exp(-0.059 / cosZenith);
+                table[minute] = (float) (performanceRatio * Math.min(irradiance / STC_IRRADIANCE, 1.0));
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.hems.simulator_service_testing.solar;
+
+/**
+ * Per-tick view of {@link SolarIrradianceModel}: PV output as a fraction of
+ * rated capacity, per region.
+ */
+public final class SolarTick {
+
+    private final SolarIrradianceModel model;
+    private final double[] fractionByRegion;
+    private final int dayOfYear;
+    private final int minuteOfDay;
+
+    SolarTick(SolarIrradianceModel model, double[] fractionByRegion, int dayOfYear, int minuteOfDay) {
+        this.model = model;
+        this.fractionByRegion = fractionByRegion;
+        this.dayOfYear = dayOfYear;
+        this.minuteOfDay = minuteOfDay;
+    }
+
+    public double fraction(int region) {
+        return region < fractionByRegion.length
+                ? fractionByRegion[region]
+                : model.fraction(region, dayOfYear, minuteOfDay);
+    }
+}
@@ -0,0 +1,295 @@
+package com.project.hems.simulator_service_testing.state;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only write-ahead journal for the energy accumulators, kept in
+ * memory-mapped segment files. Every tick appends one frame holding a
+ * fixed-size record per meter, so a crash between DB flushes loses at most
+ * one tick of billing data instead of a minute.
+ *
+ * <pre>
+ * frame  = [int FRAME_MAGIC][int count][long tickMillis] record * count [int COMMIT_MAGIC]
+ * record = [long siteId][double solarKwh][double importKwh][double exportKwh][double homeKwh]
+ * </pre>
+ *
+ * A frame only counts once its trailing commit marker is written, so a torn
+ * frame is ignored on replay. Each frame is a full fleet image, which makes
+ * compaction simple: when a segment fills up the next frame starts a new
+ * segment and every older segment is deleted once that frame is committed.
+ */
+@Slf4j
+@Component
+@Setter
+@ConfigurationProperties(prefix = "property.config.journal")
+public class EnergyJournal {
+
+    private static final int FRAME_MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int COMMIT_MAGIC = 0x434D4954; // "CMIT"
+    private static final int FRAME_HEADER_BYTES = 16;
+    private static final int FRAME_TRAILER_BYTES = 4;
+    private static final int RECORD_BYTES = 40;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private Boolean enabled = true;
+    private String directory = "data/journal";
+    private Integer segmentSizeMb = 64;
+    // msync every frame; only needed to survive a host crash, not a process crash
+    private Boolean forceOnTick = false;
+
+    private Path journalDir;
+    private final List<Path> segments = new ArrayList<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long segmentSequence;
+
+    // Latest journaled accumulators per site, held until the first DB load applies them
+    private Map<Long, JournalEntry> pendingReplay = Map.of();
+
+    private record JournalEntry(long tickMillis, double solarKwh, double importKwh, double exportKwh,
+            double homeKwh) {
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            log.info("open: energy journal disabled");
+            return;
+        }
+
+        try {
+            journalDir = Path.of(directory);
+            Files.createDirectories(journalDir);
+
+            List<Path> existing = listSegments();
+            pendingReplay = readSegments(existing);
+            segments.addAll(existing);
+
+            segmentSequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1));
+
+            log.info("open: energy journal at {} holds {} sites across {} segments",
+                    journalDir.toAbsolutePath(), pendingReplay.size(), existing.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open energy journal at " + directory, e);
+        }
+    }
+
+    /**
+     * Overrides accumulators in the store with journaled values that are newer
+     * than what the database had. Runs once, right after the initial DB load.
+     *
+     * @return number of sites whose accumulators were replayed
+     */
+    public synchronized int replayInto(MeterStateStore store) {
+
+        if (pendingReplay.isEmpty()) {
+            return 0;
+        }
+
+        int replayed = store.read(() -> {
+            int applied = 0;
+            for (Map.Entry<Long, JournalEntry> entry : pendingReplay.entrySet()) {
+                int slot = store.slotOf(entry.getKey());
+                JournalEntry journaled = entry.getValue();
+
+                if (slot == MeterStateStore.NO_SLOT || journaled.tickMillis() <= store.getTimestampMillis(slot)) {
+                    continue;
+                }
+
+                store.setTotalSolarYieldKwh(slot, journaled.solarKwh());
+                store.setTotalGridImportKwh(slot, journaled.importKwh());
+                store.setTotalGridExportKwh(slot, journaled.exportKwh());
+                store.setTotalHomeUsageKwh(slot, journaled.homeKwh());
+                store.setTimestampMillis(slot, journaled.tickMillis());
+                store.markModified(slot);
+                applied++;
+            }
+            return applied;
+        });
+
+        log.info("replayInto: replayed journaled accumulators for {} of {} sites", replayed, pendingReplay.size());
+
+        pendingReplay = Map.of();
+        return replayed;
+    }
+
+    /**
+     * Appends one frame with the accumulators of every meter. Must run under
+     * the store's read lock, after all shards of the tick have finished.
+     */
+    public synchronized void append(MeterStateStore store, long tickMillis) {
+
+        if (!enabled) {
+            return;
+        }
+
+        int count = store.size();
+        int frameBytes = FRAME_HEADER_BYTES + count * RECORD_BYTES + FRAME_TRAILER_BYTES;
+
+        try {
+            boolean rolled = false;
+            if (buffer == null || position + frameBytes > buffer.capacity()) {
+                rollSegment(frameBytes);
+                rolled = true;
+            }
+
+            int frameStart = position;
+            buffer.putInt(frameStart, FRAME_MAGIC);
+            buffer.putInt(frameStart + 4, count);
+            buffer.putLong(frameStart + 8, tickMillis);
+
+            int p = frameStart + FRAME_HEADER_BYTES;
+            for (int slot = 0; slot < count; slot++) {
+                buffer.putLong(p, store.getSiteId(slot));
+                buffer.putDouble(p + 8, store.getTotalSolarYieldKwh(slot));
+                buffer.putDouble(p + 16, store.getTotalGridImportKwh(slot));
+                buffer.putDouble(p + 24, store.getTotalGridExportKwh(slot));
+                buffer.putDouble(p + 32, store.getTotalHomeUsageKwh(slot));
+                p += RECORD_BYTES;
+            }
+
+            // Commit marker last: the frame becomes visible to replay only now
+            buffer.putInt(p, COMMIT_MAGIC);
+            position = p + FRAME_TRAILER_BYTES;
+
+            if (forceOnTick || rolled) {
+                buffer.force();
+            }
+
+            if (rolled) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.error("append: failed to journal tick {}: {}", tickMillis, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+        }
+        closeChannel();
+    }
+
+    private void rollSegment(int frameBytes) throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        closeChannel();
+
+        long segmentBytes = Math.max((long) segmentSizeMb * 1024 * 1024, (long) frameBytes * 2);
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IOException("journal frame of " + frameBytes + " bytes does not fit a mapped segment");
+        }
+
+        Path segment = journalDir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, ++segmentSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+        segments.add(segment);
+
+        log.info("rollSegment: started journal segment {} ({} MB)", segment.getFileName(), segmentBytes >> 20);
+    }
+
+    // The frame just committed to the newest segment supersedes every older segment
+    private void compact() {
+        while (segments.size() > 1) {
+            Path obsolete = segments.remove(0);
+            try {
+                Files.deleteIfExists(obsolete);
+                log.debug("compact: deleted superseded journal segment {}", obsolete.getFileName());
+            } catch (IOException e) {
+                log.warn("compact: could not delete journal segment {}: {}", obsolete, e.getMessage());
+            }
+        }
+    }
+
+    private Map<Long, JournalEntry> readSegments(List<Path> existing) throws IOException {
+        Map<Long, JournalEntry> latest = new HashMap<>();
+
+        for (Path segment : existing) {
+            try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer readBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                int p = 0;
+                int frames = 0;
+
+                while (p + FRAME_HEADER_BYTES <= readBuffer.capacity() && readBuffer.getInt(p) == FRAME_MAGIC) {
+                    int count = readBuffer.getInt(p + 4);
+                    long tickMillis = readBuffer.getLong(p + 8);
+                    int commitAt = p + FRAME_HEADER_BYTES + count * RECORD_BYTES;
+
+                    if (count < 0 || commitAt + FRAME_TRAILER_BYTES > readBuffer.capacity()
+                            || readBuffer.getInt(commitAt) != COMMIT_MAGIC) {
+                        log.warn("readSegments: ignoring torn frame at offset {} in {}", p, segment.getFileName());
+                        break;
+                    }
+
+                    for (int r = p + FRAME_HEADER_BYTES; r < commitAt; r += RECORD_BYTES) {
+                        latest.put(readBuffer.getLong(r), new JournalEntry(tickMillis,
+                                readBuffer.getDouble(r + 8),
+                                readBuffer.getDouble(r + 16),
+                                readBuffer.getDouble(r + 24),
+                                readBuffer.getDouble(r + 32)));
+                    }
+
+                    p = commitAt + FRAME_TRAILER_BYTES;
+                    frames++;
+                }
+
+                log.debug("readSegments: read {} committed frames from {}", frames, segment.getFileName());
+            }
+        }
+
+        return latest;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("closeChannel: failed to close journal segment: {}", e.getMessage());
+        }
+        channel = null;
+        buffer = null;
+    }
+}
@@ -0,0 +1,145 @@
+package com.project.hems.simulator_service_testing.state;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+
+/**
+ * Copy of the persisted columns of some slots, taken under the store's read
+ * lock so the rows can be written to the database after the lock has been
+ * released. Row {@code i} holds the values of {@code getSlot(i)} at capture
+ * time.
+ */
+public final class MeterRowBuffer {
+
+    private final int[] slots;
+    private final long[] meterId;
+    private final long[] siteId;
+    private final long[] timestampMillis;
+    private final double[] totalSolarYieldKwh;
+    private final double[] totalGridImportKwh;
+    private final double[] totalGridExportKwh;
+    private final double[] totalHomeUsageKwh;
+    private final double[] batteryCapacityWh;
+    private final double[] batteryRemainingWh;
+    private final ChargingStatus[] chargingStatus;
+    private final BatteryMode[] batteryMode;
+    private final int[] batterySoc;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final double[] pvCapacityW;
+
+    private MeterRowBuffer(int[] slots) {
+        int rows = slots.length;
+        this.slots = slots;
+        meterId = new long[rows];
+        siteId = new long[rows];
+        timestampMillis = new long[rows];
+        totalSolarYieldKwh = new double[rows];
+        totalGridImportKwh = new double[rows];
+        totalGridExportKwh = new double[rows];
+        totalHomeUsageKwh = new double[rows];
+        batteryCapacityWh = new double[rows];
+        batteryRemainingWh = new double[rows];
+        chargingStatus = new ChargingStatus[rows];
+        batteryMode = new BatteryMode[rows];
+        batterySoc = new int[rows];
+        latitude = new double[rows];
+        longitude = new double[rows];
+        pvCapacityW = new double[rows];
+    }
+
+    /**
+     * Copies the slots' persisted columns. Must be called while the store's
+     * read lock is held, e.g. inside {@link MeterStateStore#read}.
+     */
+    public static MeterRowBuffer capture(MeterStateStore store, int[] slots) {
+        MeterRowBuffer rows = new MeterRowBuffer(slots);
+        for (int row = 0; row < slots.length; row++) {
+            int slot = slots[row];
+            rows.meterId[row] = store.getMeterId(slot);
+            rows.siteId[row] = store.getSiteId(slot);
+            rows.timestampMillis[row] = store.getTimestampMillis(slot);
+            rows.totalSolarYieldKwh[row] = store.getTotalSolarYieldKwh(slot);
+            rows.totalGridImportKwh[row] = store.getTotalGridImportKwh(slot);
+            rows.totalGridExportKwh[row] = store.getTotalGridExportKwh(slot);
+            rows.totalHomeUsageKwh[row] = store.getTotalHomeUsageKwh(slot);
+            rows.batteryCapacityWh[row] = store.getBatteryCapacityWh(slot);
+            rows.batteryRemainingWh[row] = store.getBatteryRemainingWh(slot);
+            rows.chargingStatus[row] = store.getChargingStatus(slot);
+            rows.batteryMode[row] = store.getBatteryMode(slot);
+            rows.batterySoc[row] = store.getBatterySoc(slot);
+            rows.latitude[row] = store.getLatitude(slot);
+            rows.longitude[row] = store.getLongitude(slot);
+            rows.pvCapacityW[row] = store.getPvCapacityW(slot);
+        }
+        return rows;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    public int getSlot(int row) {
+        return slots[row];
+    }
+
+    public long getMeterId(int row) {
+        return meterId[row];
+    }
+
+    public long getSiteId(int row) {
+        return siteId[row];
+    }
+
+    public long getTimestampMillis(int row) {
+        return timestampMillis[row];
+    }
+
+    public double getTotalSolarYieldKwh(int row) {
+        return totalSolarYieldKwh[row];
+    }
+
+    public double getTotalGridImportKwh(int row) {
+        return totalGridImportKwh[row];
+    }
+
+    public double getTotalGridExportKwh(int row) {
+        return totalGridExportKwh[row];
+    }
+
+    public double getTotalHomeUsageKwh(int row) {
+        return totalHomeUsageKwh[row];
+    }
+
+    public double getBatteryCapacityWh(int row) {
+        return batteryCapacityWh[row];
+    }
+
+    public double getBatteryRemainingWh(int row) {
+        return batteryRemainingWh[row];
+    }
+
+    public ChargingStatus getChargingStatus(int row) {
+        return chargingStatus[row];
+    }
+
+    public BatteryMode getBatteryMode(int row) {
+        return batteryMode[row];
+    }
+
+    public int getBatterySoc(int row) {
+        return batterySoc[row];
+    }
+
+    public double getLatitude(int row) {
+        return latitude[row];
+    }
+
+    public double getLongitude(int row) {
+        return longitude[row];
+    }
+
+    public double getPvCapacityW(int row) {
+        return pvCapacityW[row];
+    }
+}
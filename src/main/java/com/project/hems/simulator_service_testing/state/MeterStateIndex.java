@@ -0,0 +1,210 @@
+package com.project.hems.simulator_service_testing.state;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Set;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterFilter;
+
+/**
+ * Bitset secondary indexes over {@link MeterStateStore} slots: one bitset per
+ * {@link ChargingStatus}, per {@link BatteryMode} and per SoC bucket.
+ *
+ * <p>
+ * The store moves a slot's bit whenever one of its setters changes an indexed
+ * value, so the tick, dispatch commands and upserts all keep the indexes
+ * current. Bits are flipped atomically because shards sharing a 64-slot word
+ * update it concurrently, and the store never moves one slot's bit in two
+ * threads at once, so a slot ends up in exactly one bucket per index. A
+ * query racing a tick may briefly miss a slot that is changing buckets; it
+ * never sees a slot that does not match, since callers re-check candidates
+ * against the columns.
+ */
+public final class MeterStateIndex {
+
+    // SoC buckets of 10 points: 0-9, 10-19, ..., 90-99 and 100
+    static final int SOC_BUCKET_WIDTH = 10;
+    static final int SOC_BUCKETS = 100 / SOC_BUCKET_WIDTH + 1;
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int CHARGING_STATUS_COUNT = ChargingStatus.values().length;
+    private static final int BATTERY_MODE_COUNT = BatteryMode.values().length;
+
+    private long[][] byChargingStatus;
+    private long[][] byBatteryMode;
+    private long[][] bySocBucket;
+
+    MeterStateIndex(int capacity) {
+        int words = wordsFor(capacity);
+        byChargingStatus = new long[CHARGING_STATUS_COUNT][words];
+        byBatteryMode = new long[BATTERY_MODE_COUNT][words];
+        bySocBucket = new long[SOC_BUCKETS][words];
+    }
+
+    /**
+     * Index of the first set bit at or after {@code fromIndex}, or {@code -1}.
+     */
+    public static int nextSetBit(long[] words, int fromIndex) {
+        int wordIndex = fromIndex >>> 6;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (word == 0) {
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    static int socBucket(int soc) {
+        return Math.min(Math.max(soc, 0), 100) / SOC_BUCKET_WIDTH;
+    }
+
+    // Caller holds the store's write lock
+    void grow(int capacity) {
+        int words = wordsFor(capacity);
+        byChargingStatus = grow(byChargingStatus, words);
+        byBatteryMode = grow(byBatteryMode, words);
+        bySocBucket = grow(bySocBucket, words);
+    }
+
+    /**
+     * @param from previous ordinal, negative for none
+     * @param to   new ordinal, negative for none
+     */
+    void moveChargingStatus(int slot, int from, int to) {
+        move(byChargingStatus, slot, from, to);
+    }
+
+    void moveBatteryMode(int slot, int from, int to) {
+        move(byBatteryMode, slot, from, to);
+    }
+
+    void moveSoc(int slot, int fromSoc, int toSoc) {
+        int from = socBucket(fromSoc);
+        int to = socBucket(toSoc);
+        if (from != to) {
+            move(bySocBucket, slot, from, to);
+        }
+    }
+
+    /**
+     * Indexes a new slot as having no charging status or battery mode and a
+     * SoC of 0, matching the columns of a freshly inserted slot.
+     */
+    void insert(int slot) {
+        move(bySocBucket, slot, -1, socBucket(0));
+    }
+
+    /**
+     * Candidate slots for the filter's indexed constraints (charging status,
+     * battery mode and SoC range), as a fresh bitset covering {@code size}
+     * slots. Candidates still have to be checked against the columns: SoC
+     * buckets are coarser than the range, and siteId is not indexed.
+     *
+     * @return {@code null} if the filter has no indexed constraint
+     */
+    long[] candidates(MeterFilter filter, int size) {
+        int words = wordsFor(size);
+        long[] result = null;
+
+        Set<ChargingStatus> statuses = filter.getChargingStatuses();
+        if (statuses != null && !statuses.isEmpty()) {
+            long[] union = new long[words];
+            for (ChargingStatus status : statuses) {
+                or(union, byChargingStatus[status.ordinal()]);
+            }
+            result = union;
+        }
+
+        Set<ChargingStatus> excluded = filter.getExcludedChargingStatuses();
+        if (excluded != null && !excluded.isEmpty()) {
+            if (result == null) {
+                result = allSlots(size);
+            }
+            for (ChargingStatus status : excluded) {
+                andNot(result, byChargingStatus[status.ordinal()]);
+            }
+        }
+
+        Set<BatteryMode> modes = filter.getBatteryModes();
+        if (modes != null && !modes.isEmpty()) {
+            long[] union = new long[words];
+            for (BatteryMode mode : modes) {
+                or(union, byBatteryMode[mode.ordinal()]);
+            }
+            result = result == null ? union : and(result, union);
+        }
+
+        if (filter.getSocMin() != null || filter.getSocMax() != null) {
+            int first = socBucket(filter.getSocMin() == null ? 0 : filter.getSocMin());
+            int last = socBucket(filter.getSocMax() == null ? 100 : filter.getSocMax());
+            long[] union = new long[words];
+            for (int bucket = first; bucket <= last; bucket++) {
+                or(union, bySocBucket[bucket]);
+            }
+            result = result == null ? union : and(result, union);
+        }
+
+        return result;
+    }
+
+    private static void move(long[][] bitsets, int slot, int from, int to) {
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        if (from >= 0) {
+            WORDS.getAndBitwiseAnd(bitsets[from], word, ~bit);
+        }
+        if (to >= 0) {
+            WORDS.getAndBitwiseOr(bitsets[to], word, bit);
+        }
+    }
+
+    private static long[] allSlots(int size) {
+        long[] words = new long[wordsFor(size)];
+        Arrays.fill(words, -1L);
+        if ((size & 63) != 0) {
+            words[words.length - 1] = (1L << size) - 1;
+        }
+        return words;
+    }
+
+    // Index bitsets may be longer than the target; bits past size are never set
+    private static void or(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= bits[i];
+        }
+    }
+
+    private static long[] and(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= bits[i];
+        }
+        return target;
+    }
+
+    private static void andNot(long[] target, long[] bits) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= ~bits[i];
+        }
+    }
+
+    private static long[][] grow(long[][] bitsets, int words) {
+        long[][] grown = new long[bitsets.length][];
+        for (int i = 0; i < bitsets.length; i++) {
+            grown[i] = Arrays.copyOf(bitsets[i], words);
+        }
+        return grown;
+    }
+
+    private static int wordsFor(int slots) {
+        return (slots + 63) >>> 6;
+    }
+}
@@ -0,0 +1,760 @@
+package com.project.hems.simulator_service_testing.state;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterFilter;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dense struct-of-arrays store for live meter state, keyed by {@code long}
+ * siteId. Each field lives in its own primitive column indexed by slot, so the
+ * simulation tick reads and writes state without allocating. A
+ * {@link MeterSnapshot} is only materialized when REST or Kafka needs one.
+ *
+ * <p>
+ * Slots are append-only and never move, so a slot handed out for a site stays
+ * valid for the lifetime of the store. Structural changes (inserts and column
+ * growth) take the write lock; a tick holds the read lock via
+ * {@link #read(Supplier)} so columns cannot be swapped underneath it.
+ */
+@Slf4j
+@Component
+public class MeterStateStore {
+
+    public static final int NO_SLOT = -1;
+    public static final long NO_METER_ID = 0L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte NO_ENUM = -1;
+    // Held by an indexed byte column while its slot's index bit moves; ordinals never reach it
+    private static final byte MOVING = Byte.MIN_VALUE;
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    // The same for the SoC column, which is an int column as SoC exceeds 100 when remaining > capacity;
+    // setBatterySoc stores negative values as 0, so no real SoC is this marker
+    private static final int SOC_MOVING = Integer.MIN_VALUE;
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int NO_REGION = -1;
+    private static final int NO_PROFILE = -1;
+    private static final ChargingStatus[] CHARGING_STATUSES = ChargingStatus.values();
+    private static final BatteryMode[] BATTERY_MODES = BatteryMode.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SiteSlotIndex index = new SiteSlotIndex(INITIAL_CAPACITY);
+    private final MeterStateIndex stateIndex = new MeterStateIndex(INITIAL_CAPACITY);
+    private final IndexMove chargingStatusMove = stateIndex::moveChargingStatus;
+    private final IndexMove batteryModeMove = stateIndex::moveBatteryMode;
+
+    // Dirty tracking: each modified slot is stamped with the current version
+    private final AtomicLong stateVersion = new AtomicLong(1L);
+
+    private volatile int size;
+    private int capacity;
+
+    // --- Identity ---
+    private long[] siteId;
+    private long[] meterId;
+    private long[] timestampMillis;
+    private long[] modifiedVersion;
+
+    // --- 1. Real-Time Power Flow (Watts) ---
+    private double[] solarProductionW;
+    private double[] homeConsumptionW;
+    private double[] batteryPowerW;
+    private double[] gridPowerW;
+
+    // --- 2. Energy Accumulators (kWh) ---
+    private double[] totalSolarYieldKwh;
+    private double[] totalGridImportKwh;
+    private double[] totalGridExportKwh;
+    private double[] totalHomeUsageKwh;
+
+    // --- 3. Battery State ---
+    private double[] batteryCapacityWh;
+    private double[] batteryRemainingWh;
+    private byte[] chargingStatus;
+    private byte[] batteryMode;
+    private int[] batterySoc;
+
+    // --- 4. Electrical Metadata ---
+    private double[] currentVoltage;
+    private double[] currentAmps;
+
+    // --- 5. Site Configuration (NaN when not configured) ---
+    private double[] latitude;
+    private double[] longitude;
+    private double[] pvCapacityW;
+    // Solar region resolved lazily by the environment model, -1 until then
+    private int[] solarRegion;
+    // Load profile assignment, derived from the siteId on first use; -1 until then
+    private int[] loadProfile;
+    private int[] loadPhaseMinutes;
+    private double[] loadScale;
+
+    public MeterStateStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Runs {@code action} while holding off inserts and column growth. Slots and
+     * column references obtained inside the action stay valid until it returns.
+     */
+    public <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code action} against the site's slot, guarded against concurrent
+     * column growth. Value updates themselves are plain column writes.
+     *
+     * @return false if the site is not in the store
+     */
+    public boolean withSlot(long site, IntConsumer action) {
+        lock.readLock().lock();
+        try {
+            int slot = index.get(site);
+            if (slot == NO_SLOT) {
+                return false;
+            }
+            action.accept(slot);
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int slotOf(long site) {
+        lock.readLock().lock();
+        try {
+            return index.get(site);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long site) {
+        return slotOf(site) != NO_SLOT;
+    }
+
+    /**
+     * Inserts a new site or overwrites the state of an existing one.
+     *
+     * @return the slot holding the site
+     */
+    public int upsert(MeterSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotFor(snapshot.getSiteId());
+            write(slot, snapshot);
+            markModified(slot);
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts a new site. The presence check and the insert happen under the
+     * same write lock, so of two concurrent activations of a site exactly one
+     * wins.
+     *
+     * @return the slot holding the site, or {@link #NO_SLOT} if it was
+     *         already present, in which case the store is unchanged
+     */
+    public int insert(MeterSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            if (index.get(snapshot.getSiteId()) != NO_SLOT) {
+                return NO_SLOT;
+            }
+            int slot = slotFor(snapshot.getSiteId());
+            write(slot, snapshot);
+            markModified(slot);
+            return slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts a batch of new sites under a single write lock, so a tick sees
+     * either none or all of it. A site already in the store is left as it is:
+     * the check and the insert happen under the same lock, so a site
+     * activated concurrently is never overwritten.
+     *
+     * @param initializer run under the same lock for each inserted snapshot
+     *                    and its slot, e.g. to set columns a snapshot does not
+     *                    carry; may be {@code null}
+     * @return the slot of each snapshot, in order, or {@link #NO_SLOT} for a
+     *         site that was already present
+     */
+    public int[] insertAll(List<MeterSnapshot> snapshots, ObjIntConsumer<MeterSnapshot> initializer) {
+        int[] slots = new int[snapshots.size()];
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < slots.length; i++) {
+                MeterSnapshot snapshot = snapshots.get(i);
+                if (index.get(snapshot.getSiteId()) != NO_SLOT) {
+                    slots[i] = NO_SLOT;
+                    continue;
+                }
+                int slot = slotFor(snapshot.getSiteId());
+                write(slot, snapshot);
+                markModified(slot);
+                if (initializer != null) {
+                    initializer.accept(snapshot, slot);
+                }
+                slots[i] = slot;
+            }
+            return slots;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Candidate slots for the filter's charging status, battery mode and SoC
+     * constraints, from the secondary indexes rather than a scan. Must be
+     * called while the read lock is held, e.g. inside {@link #read(Supplier)}.
+     *
+     * @return a bitset over slots, or {@code null} if the filter has no
+     *         indexed constraint; see {@link MeterStateIndex#candidates}
+     */
+    public long[] candidates(MeterFilter filter) {
+        return stateIndex.candidates(filter, size);
+    }
+
+    public MeterSnapshot get(long site) {
+        lock.readLock().lock();
+        try {
+            int slot = index.get(site);
+            return slot == NO_SLOT ? null : materialize(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<MeterSnapshot> materializeAll() {
+        lock.readLock().lock();
+        try {
+            int count = size;
+            List<MeterSnapshot> snapshots = new ArrayList<>(count);
+            for (int slot = 0; slot < count; slot++) {
+                snapshots.add(materialize(slot));
+            }
+            return snapshots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public MeterSnapshot materialize(int slot) {
+        return MeterSnapshot.builder()
+                .meterId(meterId[slot] == NO_METER_ID ? null : meterId[slot])
+                .siteId(siteId[slot])
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis[slot]), ZoneId.systemDefault()))
+                .solarProductionW(solarProductionW[slot])
+                .homeConsumptionW(homeConsumptionW[slot])
+                .batteryPowerW(batteryPowerW[slot])
+                .gridPowerW(gridPowerW[slot])
+                .totalSolarYieldKwh(totalSolarYieldKwh[slot])
+                .totalGridImportKwh(totalGridImportKwh[slot])
+                .totalGridExportKwh(totalGridExportKwh[slot])
+                .totalHomeUsageKwh(totalHomeUsageKwh[slot])
+                .batteryCapacityWh(batteryCapacityWh[slot])
+                .batteryRemainingWh(batteryRemainingWh[slot])
+                .chargingStatus(getChargingStatus(slot))
+                .batteryMode(getBatteryMode(slot))
+                .currentVoltage(currentVoltage[slot])
+                .currentAmps(currentAmps[slot])
+                .batterySoc(getBatterySoc(slot))
+                .latitude(valueOrNull(latitude[slot]))
+                .longitude(valueOrNull(longitude[slot]))
+                .pvCapacityW(valueOrNull(pvCapacityW[slot]))
+                .build();
+    }
+
+    // --- Dirty tracking ---
+
+    public void markModified(int slot) {
+        modifiedVersion[slot] = stateVersion.get();
+    }
+
+    /**
+     * Closes the current version: every modification made so far is stamped
+     * with a version at or below the returned value, later ones above it.
+     */
+    public long advanceVersion() {
+        return stateVersion.getAndIncrement();
+    }
+
+    /**
+     * Slots modified after {@code afterVersion} and at or before
+     * {@code upToVersion}, in slot order.
+     */
+    public int[] modifiedSlots(long afterVersion, long upToVersion) {
+        lock.readLock().lock();
+        try {
+            int count = size;
+            int[] slots = new int[count];
+            int found = 0;
+            for (int slot = 0; slot < count; slot++) {
+                long version = modifiedVersion[slot];
+                if (version > afterVersion && version <= upToVersion) {
+                    slots[found++] = slot;
+                }
+            }
+            return Arrays.copyOf(slots, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Column accessors (slot must come from this store) ---
+
+    public long getSiteId(int slot) {
+        return siteId[slot];
+    }
+
+    public long getMeterId(int slot) {
+        return meterId[slot];
+    }
+
+    public void setMeterId(int slot, long value) {
+        meterId[slot] = value;
+    }
+
+    public long getTimestampMillis(int slot) {
+        return timestampMillis[slot];
+    }
+
+    public void setTimestampMillis(int slot, long value) {
+        timestampMillis[slot] = value;
+    }
+
+    public double getSolarProductionW(int slot) {
+        return solarProductionW[slot];
+    }
+
+    public void setSolarProductionW(int slot, double value) {
+        solarProductionW[slot] = value;
+    }
+
+    public double getHomeConsumptionW(int slot) {
+        return homeConsumptionW[slot];
+    }
+
+    public void setHomeConsumptionW(int slot, double value) {
+        homeConsumptionW[slot] = value;
+    }
+
+    public double getBatteryPowerW(int slot) {
+        return batteryPowerW[slot];
+    }
+
+    public void setBatteryPowerW(int slot, double value) {
+        batteryPowerW[slot] = value;
+    }
+
+    public double getGridPowerW(int slot) {
+        return gridPowerW[slot];
+    }
+
+    public void setGridPowerW(int slot, double value) {
+        gridPowerW[slot] = value;
+    }
+
+    public double getTotalSolarYieldKwh(int slot) {
+        return totalSolarYieldKwh[slot];
+    }
+
+    public void setTotalSolarYieldKwh(int slot, double value) {
+        totalSolarYieldKwh[slot] = value;
+    }
+
+    public double getTotalGridImportKwh(int slot) {
+        return totalGridImportKwh[slot];
+    }
+
+    public void setTotalGridImportKwh(int slot, double value) {
+        totalGridImportKwh[slot] = value;
+    }
+
+    public double getTotalGridExportKwh(int slot) {
+        return totalGridExportKwh[slot];
+    }
+
+    public void setTotalGridExportKwh(int slot, double value) {
+        totalGridExportKwh[slot] = value;
+    }
+
+    public double getTotalHomeUsageKwh(int slot) {
+        return totalHomeUsageKwh[slot];
+    }
+
+    public void setTotalHomeUsageKwh(int slot, double value) {
+        totalHomeUsageKwh[slot] = value;
+    }
+
+    public double getBatteryCapacityWh(int slot) {
+        return batteryCapacityWh[slot];
+    }
+
+    public void setBatteryCapacityWh(int slot, double value) {
+        batteryCapacityWh[slot] = value;
+    }
+
+    public double getBatteryRemainingWh(int slot) {
+        return batteryRemainingWh[slot];
+    }
+
+    public void setBatteryRemainingWh(int slot, double value) {
+        batteryRemainingWh[slot] = value;
+    }
+
+    public ChargingStatus getChargingStatus(int slot) {
+        byte ordinal = readIndexed(chargingStatus, slot);
+        return ordinal == NO_ENUM ? null : CHARGING_STATUSES[ordinal];
+    }
+
+    public void setChargingStatus(int slot, ChargingStatus value) {
+        setChargingStatusOrdinal(slot, value == null ? NO_ENUM : (byte) value.ordinal());
+    }
+
+    // Raw ordinal, -1 for null; lets batch kernels skip the enum lookup
+    public byte getChargingStatusOrdinal(int slot) {
+        return readIndexed(chargingStatus, slot);
+    }
+
+    // The tick and dispatch commands may set the same slot concurrently; see writeIndexed
+    public void setChargingStatusOrdinal(int slot, byte ordinal) {
+        writeIndexed(chargingStatus, slot, ordinal, chargingStatusMove);
+    }
+
+    public BatteryMode getBatteryMode(int slot) {
+        byte ordinal = readIndexed(batteryMode, slot);
+        return ordinal == NO_ENUM ? null : BATTERY_MODES[ordinal];
+    }
+
+    public void setBatteryMode(int slot, BatteryMode value) {
+        writeIndexed(batteryMode, slot, value == null ? NO_ENUM : (byte) value.ordinal(), batteryModeMove);
+    }
+
+    public int getBatterySoc(int slot) {
+        return readSoc(batterySoc, slot);
+    }
+
+    // Negative values are stored as 0; values above 100 are kept, see SOC_MOVING
+    public void setBatterySoc(int slot, int value) {
+        int soc = Math.max(value, 0);
+        int[] column = batterySoc;
+        while (true) {
+            int previous = readSoc(column, slot);
+            if (previous == soc) {
+                return;
+            }
+            // Most SoC changes stay in their bucket and have no bit to move
+            boolean done = MeterStateIndex.socBucket(previous) == MeterStateIndex.socBucket(soc)
+                    ? INTS.compareAndSet(column, slot, previous, soc)
+                    : claimSoc(column, slot, previous, soc);
+            if (done) {
+                return;
+            }
+        }
+    }
+
+    public double getCurrentVoltage(int slot) {
+        return currentVoltage[slot];
+    }
+
+    public void setCurrentVoltage(int slot, double value) {
+        currentVoltage[slot] = value;
+    }
+
+    public double getCurrentAmps(int slot) {
+        return currentAmps[slot];
+    }
+
+    public void setCurrentAmps(int slot, double value) {
+        currentAmps[slot] = value;
+    }
+
+    public double getLatitude(int slot) {
+        return latitude[slot];
+    }
+
+    public double getLongitude(int slot) {
+        return longitude[slot];
+    }
+
+    public double getPvCapacityW(int slot) {
+        return pvCapacityW[slot];
+    }
+
+    public int getSolarRegion(int slot) {
+        return solarRegion[slot];
+    }
+
+    public void setSolarRegion(int slot, int value) {
+        solarRegion[slot] = value;
+    }
+
+    public int getLoadProfile(int slot) {
+        return loadProfile[slot];
+    }
+
+    public int getLoadPhaseMinutes(int slot) {
+        return loadPhaseMinutes[slot];
+    }
+
+    public double getLoadScale(int slot) {
+        return loadScale[slot];
+    }
+
+    public void setLoadProfile(int slot, int profile, int phaseMinutes, double scale) {
+        loadProfile[slot] = profile;
+        loadPhaseMinutes[slot] = phaseMinutes;
+        loadScale[slot] = scale;
+    }
+
+    /**
+     * Sets an indexed byte column and moves the slot's index bit as one step.
+     * The column holds {@link #MOVING} while the bit moves, so a concurrent
+     * setter of the same slot waits for the move instead of interleaving its
+     * own, which could leave the slot in two buckets or in none, and getters
+     * never see a value whose bit is not in place yet.
+     */
+    private static void writeIndexed(byte[] column, int slot, byte value, IndexMove move) {
+        // Storing the marker itself would leave every later reader of the slot spinning
+        if (value == MOVING) {
+            throw new IllegalArgumentException("not a valid ordinal: " + value);
+        }
+        while (true) {
+            byte previous = readIndexed(column, slot);
+            if (previous == value || claim(column, slot, previous, value, move)) {
+                return;
+            }
+        }
+    }
+
+    // false if another setter changed the column since previous was read
+    private static boolean claim(byte[] column, int slot, byte previous, byte value, IndexMove move) {
+        if (!BYTES.compareAndSet(column, slot, previous, MOVING)) {
+            return false;
+        }
+        try {
+            move.move(slot, previous, value);
+        } finally {
+            BYTES.setRelease(column, slot, value);
+        }
+        return true;
+    }
+
+    private static byte readIndexed(byte[] column, int slot) {
+        byte value = (byte) BYTES.getAcquire(column, slot);
+        while (value == MOVING) {
+            Thread.onSpinWait();
+            value = (byte) BYTES.getAcquire(column, slot);
+        }
+        return value;
+    }
+
+    // claim for the SoC column
+    private boolean claimSoc(int[] column, int slot, int previous, int value) {
+        if (!INTS.compareAndSet(column, slot, previous, SOC_MOVING)) {
+            return false;
+        }
+        try {
+            stateIndex.moveSoc(slot, previous, value);
+        } finally {
+            INTS.setRelease(column, slot, value);
+        }
+        return true;
+    }
+
+    private static int readSoc(int[] column, int slot) {
+        int value = (int) INTS.getAcquire(column, slot);
+        while (value == SOC_MOVING) {
+            Thread.onSpinWait();
+            value = (int) INTS.getAcquire(column, slot);
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface IndexMove {
+        void move(int slot, int from, int to);
+    }
+
+    // Existing slot of the site, or a new one; caller holds the write lock
+    private int slotFor(long site) {
+        int slot = index.get(site);
+        if (slot != NO_SLOT) {
+            return slot;
+        }
+
+        if (size == capacity) {
+            grow();
+        }
+        slot = size;
+        index.put(site, slot);
+        siteId[slot] = site;
+        // Start unindexed at SoC 0 so write() moves the slot into its real buckets
+        chargingStatus[slot] = NO_ENUM;
+        batteryMode[slot] = NO_ENUM;
+        batterySoc[slot] = 0;
+        stateIndex.insert(slot);
+        size = slot + 1;
+        return slot;
+    }
+
+    private void write(int slot, MeterSnapshot snapshot) {
+        meterId[slot] = snapshot.getMeterId() == null ? NO_METER_ID : snapshot.getMeterId();
+        timestampMillis[slot] = snapshot.getTimestamp() == null
+                ? System.currentTimeMillis()
+                : snapshot.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        solarProductionW[slot] = valueOrZero(snapshot.getSolarProductionW());
+        homeConsumptionW[slot] = valueOrZero(snapshot.getHomeConsumptionW());
+        batteryPowerW[slot] = valueOrZero(snapshot.getBatteryPowerW());
+        gridPowerW[slot] = valueOrZero(snapshot.getGridPowerW());
+
+        totalSolarYieldKwh[slot] = valueOrZero(snapshot.getTotalSolarYieldKwh());
+        totalGridImportKwh[slot] = valueOrZero(snapshot.getTotalGridImportKwh());
+        totalGridExportKwh[slot] = valueOrZero(snapshot.getTotalGridExportKwh());
+        totalHomeUsageKwh[slot] = valueOrZero(snapshot.getTotalHomeUsageKwh());
+
+        batteryCapacityWh[slot] = valueOrZero(snapshot.getBatteryCapacityWh());
+        batteryRemainingWh[slot] = valueOrZero(snapshot.getBatteryRemainingWh());
+        setChargingStatus(slot, snapshot.getChargingStatus());
+        setBatteryMode(slot, snapshot.getBatteryMode());
+        setBatterySoc(slot, snapshot.getBatterySoc() == null ? 0 : snapshot.getBatterySoc());
+
+        currentVoltage[slot] = valueOrZero(snapshot.getCurrentVoltage());
+        currentAmps[slot] = valueOrZero(snapshot.getCurrentAmps());
+
+        latitude[slot] = valueOrNaN(snapshot.getLatitude());
+        longitude[slot] = valueOrNaN(snapshot.getLongitude());
+        pvCapacityW[slot] = valueOrNaN(snapshot.getPvCapacityW());
+        solarRegion[slot] = NO_REGION;
+        loadProfile[slot] = NO_PROFILE;
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        log.info("grow: growing meter state columns from {} to {} slots", capacity, newCapacity);
+
+        siteId = Arrays.copyOf(siteId, newCapacity);
+        meterId = Arrays.copyOf(meterId, newCapacity);
+        timestampMillis = Arrays.copyOf(timestampMillis, newCapacity);
+        modifiedVersion = Arrays.copyOf(modifiedVersion, newCapacity);
+
+        solarProductionW = Arrays.copyOf(solarProductionW, newCapacity);
+        homeConsumptionW = Arrays.copyOf(homeConsumptionW, newCapacity);
+        batteryPowerW = Arrays.copyOf(batteryPowerW, newCapacity);
+        gridPowerW = Arrays.copyOf(gridPowerW, newCapacity);
+
+        totalSolarYieldKwh = Arrays.copyOf(totalSolarYieldKwh, newCapacity);
+        totalGridImportKwh = Arrays.copyOf(totalGridImportKwh, newCapacity);
+        totalGridExportKwh = Arrays.copyOf(totalGridExportKwh, newCapacity);
+        totalHomeUsageKwh = Arrays.copyOf(totalHomeUsageKwh, newCapacity);
+
+        batteryCapacityWh = Arrays.copyOf(batteryCapacityWh, newCapacity);
+        batteryRemainingWh = Arrays.copyOf(batteryRemainingWh, newCapacity);
+        chargingStatus = Arrays.copyOf(chargingStatus, newCapacity);
+        batteryMode = Arrays.copyOf(batteryMode, newCapacity);
+        batterySoc = Arrays.copyOf(batterySoc, newCapacity);
+
+        currentVoltage = Arrays.copyOf(currentVoltage, newCapacity);
+        currentAmps = Arrays.copyOf(currentAmps, newCapacity);
+
+        latitude = Arrays.copyOf(latitude, newCapacity);
+        longitude = Arrays.copyOf(longitude, newCapacity);
+        pvCapacityW = Arrays.copyOf(pvCapacityW, newCapacity);
+        solarRegion = Arrays.copyOf(solarRegion, newCapacity);
+        loadProfile = Arrays.copyOf(loadProfile, newCapacity);
+        loadPhaseMinutes = Arrays.copyOf(loadPhaseMinutes, newCapacity);
+        loadScale = Arrays.copyOf(loadScale, newCapacity);
+
+        stateIndex.grow(newCapacity);
+        capacity = newCapacity;
+    }
+
+    private void allocate(int initialCapacity) {
+        siteId = new long[initialCapacity];
+        meterId = new long[initialCapacity];
+        timestampMillis = new long[initialCapacity];
+        modifiedVersion = new long[initialCapacity];
+
+        solarProductionW = new double[initialCapacity];
+        homeConsumptionW = new double[initialCapacity];
+        batteryPowerW = new double[initialCapacity];
+        gridPowerW = new double[initialCapacity];
+
+        totalSolarYieldKwh = new double[initialCapacity];
+        totalGridImportKwh = new double[initialCapacity];
+        totalGridExportKwh = new double[initialCapacity];
+        totalHomeUsageKwh = new double[initialCapacity];
+
+        batteryCapacityWh = new double[initialCapacity];
+        batteryRemainingWh = new double[initialCapacity];
+        chargingStatus = new byte[initialCapacity];
+        batteryMode = new byte[initialCapacity];
+        batterySoc = new int[initialCapacity];
+
+        currentVoltage = new double[initialCapacity];
+        currentAmps = new double[initialCapacity];
+
+        latitude = new double[initialCapacity];
+        longitude = new double[initialCapacity];
+        pvCapacityW = new double[initialCapacity];
+        solarRegion = new int[initialCapacity];
+        loadProfile = new int[initialCapacity];
+        loadPhaseMinutes = new int[initialCapacity];
+        loadScale = new double[initialCapacity];
+
+        capacity = initialCapacity;
+    }
+
+    private static double valueOrZero(Double value) {
+        return value == null ? 0.0 : value;
+    }
+
+    private static double valueOrNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static Double valueOrNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
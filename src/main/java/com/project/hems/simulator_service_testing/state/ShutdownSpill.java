@@ -0,0 +1,89 @@
+package com.project.hems.simulator_service_testing.state;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local NDJSON file holding meters the shutdown sync could not write before
+ * its deadline. Replayed into the state store on the next start, after which
+ * the regular dirty flush persists them.
+ */
+@Slf4j
+@Component
+@Setter
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "property.config.shutdown")
+public class ShutdownSpill {
+
+    private final ObjectMapper objectMapper;
+
+    private String spillFile = "data/shutdown-spill.ndjson";
+
+    public void write(List<MeterSnapshot> snapshots) throws IOException {
+        Path target = Path.of(spillFile);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (MeterSnapshot snapshot : snapshots) {
+                writer.write(objectMapper.writeValueAsString(snapshot));
+                writer.newLine();
+            }
+        }
+
+        // Readers only ever see a complete spill file
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.warn("write: spilled {} unsynced meters to {}", snapshots.size(), target.toAbsolutePath());
+    }
+
+    /**
+     * Upserts spilled snapshots into the store and removes the spill file.
+     *
+     * @return number of meters replayed
+     */
+    public int replayInto(MeterStateStore store) {
+        Path source = Path.of(spillFile);
+
+        if (!Files.exists(source)) {
+            return 0;
+        }
+
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                store.upsert(objectMapper.readValue(line, MeterSnapshot.class));
+                replayed++;
+            }
+            Files.delete(source);
+        } catch (IOException e) {
+            log.error("replayInto: failed to replay shutdown spill {}: {}", source, e.getMessage());
+        }
+
+        log.info("replayInto: replayed {} meters from shutdown spill {}", replayed, source);
+        return replayed;
+    }
+}
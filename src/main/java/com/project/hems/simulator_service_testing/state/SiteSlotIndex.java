@@ -0,0 +1,79 @@
+package com.project.hems.simulator_service_testing.state;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> int} hash index from siteId to state slot.
+ * Avoids boxing and the {@code Long.toString()} keys of the old bean map.
+ * Not thread-safe on its own; {@link MeterStateStore} guards it.
+ */
+class SiteSlotIndex {
+
+    private static final int NO_SLOT = -1;
+
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    SiteSlotIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    int get(long siteId) {
+        int i = hash(siteId) & mask;
+        while (slots[i] != NO_SLOT) {
+            if (keys[i] == siteId) {
+                return slots[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_SLOT;
+    }
+
+    void put(long siteId, int slot) {
+        // Keep load factor at or below 0.5 so probe chains stay short
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+
+        int i = hash(siteId) & mask;
+        while (slots[i] != NO_SLOT) {
+            if (keys[i] == siteId) {
+                slots[i] = slot;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = siteId;
+        slots[i] = slot;
+        size++;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != NO_SLOT) {
+                put(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, NO_SLOT);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static int hash(long siteId) {
+        long h = siteId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
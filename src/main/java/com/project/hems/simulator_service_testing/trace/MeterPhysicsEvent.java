@@ -0,0 +1,92 @@
+package com.project.hems.simulator_service_testing.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * The flows one meter settled on in a tick. Disabled by default; enable it,
+ * usually with a {@code sampleEvery} above 1, to trace individual sites:
+ *
+ * <pre>
+ * jcmd &lt;pid&gt; JFR.start settings=profile +hems.simulator.MeterPhysics#enabled=true +hems.simulator.MeterPhysics#sampleEvery=1000
+ * </pre>
+ *
+ * The batch kernel settles a whole shard at once, so only the per-meter
+ * engine ({@code batch-physics: false}) gives these events a duration.
+ */
+@Name(MeterPhysicsEvent.NAME)
+@Label("Meter Physics")
+@Category({ "HEMS Simulator", "Meter" })
+@Description("Energy balance of one meter for one tick")
+@StackTrace(false)
+@Enabled(false)
+public class MeterPhysicsEvent extends Event {
+
+    public static final String NAME = "hems.simulator.MeterPhysics";
+
+    @Label("Site")
+    public long siteId;
+
+    @Label("Solar (W)")
+    public double solarW;
+
+    @Label("Load (W)")
+    public double loadW;
+
+    @Label("Battery (W)")
+    @Description("Positive while charging")
+    public double batteryPowerW;
+
+    @Label("Grid (W)")
+    @Description("Positive while importing")
+    public double gridPowerW;
+
+    @Label("Battery Remaining (Wh)")
+    public double batteryRemainingWh;
+
+    @Label("Charging Status")
+    public String chargingStatus;
+
+    /**
+     * Checked once per shard, so a disabled event costs nothing per meter.
+     */
+    public static boolean isRecording() {
+        return new MeterPhysicsEvent().isEnabled();
+    }
+
+    /**
+     * Commits the slot's settled flows if the site is sampled. Sets the siteId
+     * first so unsampled sites skip reading the rest of the slot.
+     */
+    public void commit(MeterStateStore store, int slot) {
+        siteId = store.getSiteId(slot);
+        if (!shouldCommit()) {
+            return;
+        }
+        solarW = store.getSolarProductionW(slot);
+        loadW = store.getHomeConsumptionW(slot);
+        batteryPowerW = store.getBatteryPowerW(slot);
+        gridPowerW = store.getGridPowerW(slot);
+        batteryRemainingWh = store.getBatteryRemainingWh(slot);
+        ChargingStatus status = store.getChargingStatus(slot);
+        chargingStatus = status == null ? null : status.name();
+        commit();
+    }
+
+    @Label("Sample Every")
+    @Description("Record one site in every N, by siteId")
+    @Name("sampleEvery")
+    @SettingDefinition
+    protected boolean sampleEvery(SiteSampling sampling) {
+        return sampling.accept(siteId);
+    }
+}
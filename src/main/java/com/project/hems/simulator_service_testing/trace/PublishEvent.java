@@ -0,0 +1,51 @@
+package com.project.hems.simulator_service_testing.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Handing one meter's reading to the publisher: materializing the snapshot
+ * and the send, or the backpressure policy when the in-flight budget is
+ * spent. Disabled by default; sampled by siteId like
+ * {@link MeterPhysicsEvent}.
+ */
+@Name(PublishEvent.NAME)
+@Label("Meter Publish")
+@Category({ "HEMS Simulator", "Meter" })
+@Description("Publishing one meter reading")
+@StackTrace(false)
+@Enabled(false)
+@Threshold("1 ms")
+public class PublishEvent extends Event {
+
+    public static final String NAME = "hems.simulator.Publish";
+
+    @Label("Site")
+    public long siteId;
+
+    @Label("Partition")
+    @Description("-1 when the producer's partitioner chooses")
+    public int partition;
+
+    /**
+     * Checked once per shard, so a disabled event costs nothing per meter.
+     */
+    public static boolean isRecording() {
+        return new PublishEvent().isEnabled();
+    }
+
+    @Label("Sample Every")
+    @Description("Record one site in every N, by siteId")
+    @Name("sampleEvery")
+    @SettingDefinition
+    protected boolean sampleEvery(SiteSampling sampling) {
+        return sampling.accept(siteId);
+    }
+}
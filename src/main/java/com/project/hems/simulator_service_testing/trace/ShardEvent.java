@@ -0,0 +1,34 @@
+package com.project.hems.simulator_service_testing.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One shard of a tick: environment, physics, metadata and publishing for its
+ * meters. Only shards slower than the threshold are recorded by default.
+ */
+@Name(ShardEvent.NAME)
+@Label("Simulation Shard")
+@Category({ "HEMS Simulator", "Tick" })
+@Description("One shard of a simulation tick")
+@StackTrace(false)
+@Threshold("10 ms")
+public class ShardEvent extends Event {
+
+    public static final String NAME = "hems.simulator.Shard";
+
+    @Label("Shard")
+    public int shardIndex;
+
+    @Label("Meters")
+    public int meterCount;
+
+    @Label("Completed")
+    @Description("false when the shard threw and its meters kept their previous reading")
+    public boolean completed;
+}
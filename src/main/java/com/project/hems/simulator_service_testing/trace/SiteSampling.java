@@ -0,0 +1,62 @@
+package com.project.hems.simulator_service_testing.trace;
+
+import java.util.Set;
+
+import jdk.jfr.SettingControl;
+
+/**
+ * JFR setting that keeps per-meter events for one site in every
+ * {@code sampleEvery}, chosen by siteId so a sampled site is traced on every
+ * tick. {@code 1} (the default) keeps every site.
+ *
+ * <p>
+ * Concurrent recordings combine to the smallest positive value, so a
+ * recording never sees fewer sites than it asked for. JDK 21 drops the
+ * combined value of custom settings and sets {@code null} instead, which
+ * keeps every site for as long as the recordings overlap.
+ */
+public final class SiteSampling extends SettingControl {
+
+    private static final long ALL_SITES = 1;
+
+    private volatile long sampleEvery = ALL_SITES;
+
+    @Override
+    public String combine(Set<String> values) {
+        long smallest = Long.MAX_VALUE;
+        for (String value : values) {
+            long parsed = parse(value);
+            if (parsed < smallest) {
+                smallest = parsed;
+            }
+        }
+        return Long.toString(smallest == Long.MAX_VALUE ? ALL_SITES : smallest);
+    }
+
+    @Override
+    public void setValue(String value) {
+        sampleEvery = parse(value);
+    }
+
+    @Override
+    public String getValue() {
+        return Long.toString(sampleEvery);
+    }
+
+    boolean accept(long siteId) {
+        long every = sampleEvery;
+        return every <= ALL_SITES || Math.floorMod(siteId, every) == 0;
+    }
+
+    // Missing, unparseable or non-positive values fall back to every site rather than failing the recording
+    private static long parse(String value) {
+        if (value == null) {
+            return ALL_SITES;
+        }
+        try {
+            return Math.max(ALL_SITES, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return ALL_SITES;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.hems.simulator_service_testing.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timestamp;
+
+/**
+ * One live simulation tick, journaling included. Recorded at the default
+ * {@code 0 ms} threshold; raise it (e.g. to the 5 s tick rate) to keep only
+ * overruns.
+ */
+@Name(TickEvent.NAME)
+@Label("Simulation Tick")
+@Category({ "HEMS Simulator", "Tick" })
+@Description("One live tick across every shard")
+@StackTrace(false)
+@Threshold("0 ms")
+public class TickEvent extends Event {
+
+    public static final String NAME = "hems.simulator.Tick";
+
+    @Label("Tick Time")
+    @Description("Simulated time stamped on the tick's readings")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long tickMillis;
+
+    @Label("Meters")
+    public int meterCount;
+
+    @Label("Shards")
+    public int shardCount;
+
+    @Label("Overran")
+    @Description("Took longer than the tick rate")
+    public boolean overran;
+}
@@ -0,0 +1,49 @@
+package com.project.hems.simulator_service_testing.web.controller;
+
+import com.project.hems.simulator_service_testing.batch.BatchGenerationService;
+import com.project.hems.simulator_service_testing.model.BatchGenerationRequest;
+import com.project.hems.simulator_service_testing.model.BatchGenerationStatus;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/simulation/batch-generation")
+@RequiredArgsConstructor
+public class BatchGenerationController {
+
+    private final BatchGenerationService batchGenerationService;
+
+    @PostMapping
+    public ResponseEntity<BatchGenerationStatus> startBatchGeneration(
+            @Valid @RequestBody BatchGenerationRequest request) {
+        log.info("start batch generation: {}", request);
+        return new ResponseEntity<>(batchGenerationService.start(request), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BatchGenerationStatus> getBatchGenerationStatus(@PathVariable String jobId) {
+        BatchGenerationStatus status = batchGenerationService.getStatus(jobId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<BatchGenerationStatus> cancelBatchGeneration(@PathVariable String jobId) {
+        log.info("cancel batch generation: {}", jobId);
+        BatchGenerationStatus status = batchGenerationService.cancel(jobId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+}
@@ -1,15 +1,38 @@
 package com.project.hems.simulator_service_testing.web.controller;
 
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.BulkActivationStatus;
+import com.project.hems.simulator_service_testing.model.BulkDispatchRequest;
+import com.project.hems.simulator_service_testing.model.BulkDispatchResult;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.FleetAggregate;
+import com.project.hems.simulator_service_testing.model.FleetAggregates;
+import com.project.hems.simulator_service_testing.model.FleetPage;
+import com.project.hems.simulator_service_testing.model.MeterField;
+import com.project.hems.simulator_service_testing.model.MeterFilter;
+import com.project.hems.simulator_service_testing.model.MeterSelection;
 import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.model.PublisherStats;
+import com.project.hems.simulator_service_testing.service.BulkActivationService;
+import com.project.hems.simulator_service_testing.service.FleetAggregator;
+import com.project.hems.simulator_service_testing.service.LiveFeedService;
+import com.project.hems.simulator_service_testing.service.MeterFleetReader;
 import com.project.hems.simulator_service_testing.service.MeterManagementService;
 import com.project.hems.simulator_service_testing.service.MeterPowerFlowService;
+import com.project.hems.simulator_service_testing.service.MeterReadingPublisher;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,7 +40,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -27,7 +53,12 @@ public class MeterController {
 
     private final MeterManagementService meterManagementService;
     private final MeterPowerFlowService meterPowerFlowService;
-    private final Map<String, MeterSnapshot> meterReadings;
+    private final MeterStateStore meterStateStore;
+    private final MeterReadingPublisher meterReadingPublisher;
+    private final MeterFleetReader meterFleetReader;
+    private final LiveFeedService liveFeedService;
+    private final FleetAggregator fleetAggregator;
+    private final BulkActivationService bulkActivationService;
 
     @GetMapping("/get-meter-data/{userId}")
     public ResponseEntity<MeterSnapshot> getMeterData(@PathVariable Long userId) {
@@ -35,16 +66,149 @@ public class MeterController {
         return new ResponseEntity<>(meterManagementService.getMeterData(userId), HttpStatus.OK);
     }
 
+    // Whole fleet in one buffered response; dashboards should page through /meters instead
     @GetMapping("/get-all-meter-data")
     public Map<String, MeterSnapshot> getAllMeterData() {
         log.info("get meter data");
+
+        // Keep the original response shape: siteId -> snapshot
+        Map<String, MeterSnapshot> meterReadings = new LinkedHashMap<>();
+        for (MeterSnapshot snapshot : meterStateStore.materializeAll()) {
+            meterReadings.put(snapshot.getSiteId().toString(), snapshot);
+        }
         return meterReadings;
     }
 
+    /**
+     * One page of the fleet as NDJSON, one meter per line in slot order. Pass
+     * the {@code X-Next-Cursor} response header back as {@code cursor} for the
+     * next page; it is absent on the last one.
+     *
+     * @param fields snapshot properties to include; every property when omitted
+     */
+    @GetMapping(value = "/meters", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMeters(
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long siteIdFrom,
+            @RequestParam(required = false) Long siteIdTo,
+            @RequestParam(required = false) Integer socMin,
+            @RequestParam(required = false) Integer socMax,
+            @RequestParam(required = false) Set<ChargingStatus> chargingStatus,
+            @RequestParam(required = false) Set<ChargingStatus> excludeChargingStatus,
+            @RequestParam(required = false) Set<BatteryMode> batteryMode,
+            @RequestParam(required = false) List<String> fields) {
+
+        MeterFilter filter = filterOf(siteIdFrom, siteIdTo, socMin, socMax, chargingStatus, excludeChargingStatus,
+                batteryMode);
+
+        // Resolve the page up front so bad parameters still get a 400 and the cursor fits in a header
+        Set<MeterField> projection = meterFleetReader.fields(fields);
+        FleetPage page = meterFleetReader.page(filter, cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor().toString());
+        }
+        return response.body(out -> meterFleetReader.write(page, projection, out));
+    }
+
+    /**
+     * Server-Sent Events feed: one {@code tick} event after every tick with
+     * the readings of the given sites and, if asked for, fleet aggregates.
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeLive(
+            @RequestParam(required = false) List<Long> siteId,
+            @RequestParam(defaultValue = "false") boolean aggregates) {
+        log.info("subscribe live feed: sites={} aggregates={}", siteId, aggregates);
+        return liveFeedService.subscribe(siteId, aggregates);
+    }
+
+    /**
+     * SiteIds matching the same filters as {@code /meters}, answered from the
+     * state store's secondary indexes, e.g. dispatch candidates:
+     * {@code socMin=60&batteryMode=AUTO&excludeChargingStatus=DISCHARGING}.
+     */
+    @GetMapping("/meters/select")
+    public MeterSelection selectMeters(
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long siteIdFrom,
+            @RequestParam(required = false) Long siteIdTo,
+            @RequestParam(required = false) Integer socMin,
+            @RequestParam(required = false) Integer socMax,
+            @RequestParam(required = false) Set<ChargingStatus> chargingStatus,
+            @RequestParam(required = false) Set<ChargingStatus> excludeChargingStatus,
+            @RequestParam(required = false) Set<BatteryMode> batteryMode) {
+
+        return meterFleetReader.select(
+                filterOf(siteIdFrom, siteIdTo, socMin, socMax, chargingStatus, excludeChargingStatus, batteryMode),
+                cursor, limit);
+    }
+
+    /**
+     * Latest tick's totals per feeder, per region and for the fleet. Kept by
+     * the tick, so this never reads the fleet.
+     */
+    @GetMapping("/aggregates")
+    public FleetAggregates getAggregates() {
+        return fleetAggregator.getLatest();
+    }
+
+    @GetMapping("/aggregates/fleet")
+    public FleetAggregate getFleetAggregate() {
+        return fleetAggregator.fleet();
+    }
+
+    @GetMapping("/aggregates/regions/{region}")
+    public FleetAggregate getRegionAggregate(@PathVariable String region) {
+        return fleetAggregator.region(region);
+    }
+
+    @GetMapping("/aggregates/feeders/{feeder}")
+    public FleetAggregate getFeederAggregate(@PathVariable String feeder) {
+        return fleetAggregator.feeder(feeder);
+    }
+
+    @GetMapping("/publisher-stats")
+    public PublisherStats getPublisherStats() {
+        return meterReadingPublisher.getStats();
+    }
+
+    /**
+     * Answers once the meter is live; its row is written behind. With
+     * {@code durable=true} it also waits for the row.
+     */
     @PostMapping("/activate-meter/{siteId}")
-    public void activateMeterData(@PathVariable Long siteId, @RequestBody Double batteryCapacity) {
+    public void activateMeterData(@PathVariable Long siteId, @RequestBody Double batteryCapacity,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double pvCapacityW,
+            @RequestParam(defaultValue = "false") boolean durable) {
         log.info("activate meter: {}", siteId, batteryCapacity);
-        meterManagementService.activateMeter(siteId, batteryCapacity);
+        meterManagementService.activateMeter(siteId, batteryCapacity, latitude, longitude, pvCapacityW);
+        if (durable) {
+            meterManagementService.awaitDurable(siteId);
+        }
+    }
+
+    /**
+     * Activates every site in the streamed body: NDJSON with one
+     * {@code BulkActivationItem} per line, or a JSON array of them. Answers
+     * once all are processed; poll {@code GET /activate-meters} for progress
+     * meanwhile.
+     */
+    @PostMapping(value = "/activate-meters", consumes = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public BulkActivationStatus activateMeters(InputStream body) {
+        log.info("bulk activate meters");
+        return bulkActivationService.activate(body);
+    }
+
+    @GetMapping("/activate-meters")
+    public List<BulkActivationStatus> getBulkActivations() {
+        return bulkActivationService.getRecent();
     }
 
     @PutMapping("/start-dispatching/{siteId}")
@@ -59,4 +223,28 @@ public class MeterController {
         meterPowerFlowService.stopDispatchingPower(siteId);
     }
 
+    /**
+     * Switches many meters at once: an explicit site list, or every meter
+     * matching a filter, region or feeder. Answers with counts only.
+     */
+    @PutMapping("/dispatching")
+    public BulkDispatchResult dispatchMeters(@RequestBody BulkDispatchRequest request) {
+        log.info("bulk dispatch: action={}, batteryMode={}", request.getAction(), request.getBatteryMode());
+        return meterPowerFlowService.dispatchAll(request);
+    }
+
+    private static MeterFilter filterOf(Long siteIdFrom, Long siteIdTo, Integer socMin, Integer socMax,
+            Set<ChargingStatus> chargingStatus, Set<ChargingStatus> excludeChargingStatus,
+            Set<BatteryMode> batteryMode) {
+        return MeterFilter.builder()
+                .siteIdFrom(siteIdFrom)
+                .siteIdTo(siteIdTo)
+                .socMin(socMin)
+                .socMax(socMax)
+                .chargingStatuses(chargingStatus)
+                .excludedChargingStatuses(excludeChargingStatus)
+                .batteryModes(batteryMode)
+                .build();
+    }
+
 }
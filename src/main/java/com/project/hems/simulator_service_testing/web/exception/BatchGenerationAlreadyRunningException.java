@@ -0,0 +1,8 @@
+package com.project.hems.simulator_service_testing.web.exception;
+
+public class BatchGenerationAlreadyRunningException extends RuntimeException {
+
+    public BatchGenerationAlreadyRunningException(String msg) {
+        super(msg);
+    }
+}
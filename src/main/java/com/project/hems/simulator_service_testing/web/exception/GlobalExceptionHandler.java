@@ -28,6 +28,16 @@ public class GlobalExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(MeterNotDurableException.class)
+    @ResponseStatus(code = HttpStatus.ACCEPTED)
+    public CustomizedErrorResponse handleMeterNotDurableException(MeterNotDurableException ex) {
+        return CustomizedErrorResponse.builder()
+                .statusCode(HttpStatus.ACCEPTED.value())
+                .error("METER_NOT_DURABLE")
+                .message(ex.getMessage())
+                .build();
+    }
+
     @ExceptionHandler(InvalidBatteryStatusException.class)
     @ResponseStatus(code = HttpStatus.INTERNAL_SERVER_ERROR)
     public CustomizedErrorResponse handleInvalidBatteryStatusException(InvalidBatteryStatusException ex) {
@@ -37,4 +47,46 @@ public class GlobalExceptionHandler {
                 .message(ex.getMessage())
                 .build();
     }
+
+    @ExceptionHandler(InvalidBatchGenerationRequestException.class)
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    public CustomizedErrorResponse handleInvalidBatchGenerationRequestException(
+            InvalidBatchGenerationRequestException ex) {
+        return CustomizedErrorResponse.builder()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .error("INVALID_BATCH_GENERATION_REQUEST")
+                .message(ex.getMessage())
+                .build();
+    }
+
+    @ExceptionHandler(BatchGenerationAlreadyRunningException.class)
+    @ResponseStatus(code = HttpStatus.CONFLICT)
+    public CustomizedErrorResponse handleBatchGenerationAlreadyRunningException(
+            BatchGenerationAlreadyRunningException ex) {
+        return CustomizedErrorResponse.builder()
+                .statusCode(HttpStatus.CONFLICT.value())
+                .error("BATCH_GENERATION_ALREADY_RUNNING")
+                .message(ex.getMessage())
+                .build();
+    }
+
+    @ExceptionHandler(InvalidMeterQueryException.class)
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    public CustomizedErrorResponse handleInvalidMeterQueryException(InvalidMeterQueryException ex) {
+        return CustomizedErrorResponse.builder()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .error("INVALID_METER_QUERY")
+                .message(ex.getMessage())
+                .build();
+    }
+
+    @ExceptionHandler(LiveFeedFullException.class)
+    @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+    public CustomizedErrorResponse handleLiveFeedFullException(LiveFeedFullException ex) {
+        return CustomizedErrorResponse.builder()
+                .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("LIVE_FEED_FULL")
+                .message(ex.getMessage())
+                .build();
+    }
 }
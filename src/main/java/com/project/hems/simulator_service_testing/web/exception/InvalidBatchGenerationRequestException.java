@@ -0,0 +1,8 @@
+package com.project.hems.simulator_service_testing.web.exception;
+
+public class InvalidBatchGenerationRequestException extends RuntimeException {
+
+    public InvalidBatchGenerationRequestException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package com.project.hems.simulator_service_testing.web.exception;
+
+public class InvalidMeterQueryException extends RuntimeException {
+
+    public InvalidMeterQueryException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package com.project.hems.simulator_service_testing.web.exception;
+
+public class LiveFeedFullException extends RuntimeException {
+
+    public LiveFeedFullException(String msg) {
+        super(msg);
+    }
+}
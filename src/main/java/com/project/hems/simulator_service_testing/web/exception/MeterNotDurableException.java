@@ -0,0 +1,8 @@
+package com.project.hems.simulator_service_testing.web.exception;
+
+public class MeterNotDurableException extends RuntimeException {
+
+    public MeterNotDurableException(String msg) {
+        super(msg);
+    }
+}
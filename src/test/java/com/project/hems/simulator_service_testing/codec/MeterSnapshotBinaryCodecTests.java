@@ -0,0 +1,216 @@
+package com.project.hems.simulator_service_testing.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import com.project.hems.simulator_service_testing.codec.MeterReadingSerializer.WireFormat;
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+class MeterSnapshotBinaryCodecTests {
+
+    private static final String TOPIC = "RAW_ENERGY_READINGS";
+
+    @Test
+    void roundTripsEveryField() {
+        MeterSnapshot snapshot = fullSnapshot();
+
+        byte[] encoded = MeterSnapshotBinaryCodec.encode(snapshot);
+
+        assertThat(encoded).hasSize(MeterSnapshotBinaryCodec.V2_SIZE);
+        assertThat(encoded[0]).isEqualTo(MeterSnapshotBinaryCodec.VERSION_2);
+        assertThat(MeterSnapshotBinaryCodec.decode(encoded)).isEqualTo(snapshot);
+    }
+
+    @Test
+    void decodesV1RecordsWithoutSiteConfiguration() {
+        MeterSnapshot snapshot = withoutSiteConfiguration(fullSnapshot());
+
+        MeterSnapshot decoded = MeterSnapshotBinaryCodec.decode(v1Record(snapshot));
+
+        assertThat(decoded).isEqualTo(snapshot);
+        assertThat(decoded.getLatitude()).isNull();
+        assertThat(decoded.getLongitude()).isNull();
+        assertThat(decoded.getPvCapacityW()).isNull();
+    }
+
+    @Test
+    void v1ContentTypeIsStillDecodedAsBinary() {
+        MeterSnapshot snapshot = withoutSiteConfiguration(fullSnapshot());
+        Headers headers = new RecordHeaders();
+        headers.add(MeterReadingSerializer.CONTENT_TYPE_HEADER,
+                MeterSnapshotBinaryCodec.CONTENT_TYPE_V1.getBytes(StandardCharsets.UTF_8));
+
+        try (MeterReadingDeserializer deserializer = new MeterReadingDeserializer()) {
+            assertThat(deserializer.deserialize(TOPIC, headers, v1Record(snapshot))).isEqualTo(snapshot);
+        }
+    }
+
+    @Test
+    void roundTripsNullFieldsThroughThePresenceBitmask() {
+        MeterSnapshot snapshot = MeterSnapshot.builder()
+                .siteId(42L)
+                .batteryPowerW(0.0)
+                .batterySoc(0)
+                .chargingStatus(ChargingStatus.IDLE)
+                .pvCapacityW(0.0)
+                .build();
+
+        MeterSnapshot decoded = MeterSnapshotBinaryCodec.decode(MeterSnapshotBinaryCodec.encode(snapshot));
+
+        assertThat(decoded).isEqualTo(snapshot);
+        assertThat(decoded.getMeterId()).isNull();
+        assertThat(decoded.getTimestamp()).isNull();
+        assertThat(decoded.getBatteryMode()).isNull();
+        assertThat(decoded.getLatitude()).isNull();
+        // Present zeros stay zeros rather than turning into nulls
+        assertThat(decoded.getBatteryPowerW()).isZero();
+        assertThat(decoded.getBatterySoc()).isZero();
+        assertThat(decoded.getPvCapacityW()).isZero();
+    }
+
+    @Test
+    void roundTripsTimestampsBeforeTheEpoch() {
+        MeterSnapshot snapshot = MeterSnapshot.builder()
+                .siteId(1L)
+                .timestamp(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000))
+                .build();
+
+        assertThat(MeterSnapshotBinaryCodec.decode(MeterSnapshotBinaryCodec.encode(snapshot))).isEqualTo(snapshot);
+    }
+
+    @Test
+    void socAbove127RoundTripsAndSaturatesInsteadOfWrapping() {
+        MeterSnapshot full = MeterSnapshot.builder().siteId(1L).batterySoc(250).build();
+        MeterSnapshot beyond = MeterSnapshot.builder().siteId(1L).batterySoc(300).build();
+
+        assertThat(MeterSnapshotBinaryCodec.decode(MeterSnapshotBinaryCodec.encode(full)).getBatterySoc())
+                .isEqualTo(250);
+        assertThat(MeterSnapshotBinaryCodec.decode(MeterSnapshotBinaryCodec.encode(beyond)).getBatterySoc())
+                .isEqualTo(255);
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] encoded = MeterSnapshotBinaryCodec.encode(fullSnapshot());
+        encoded[0] = 99;
+
+        assertThatThrownBy(() -> MeterSnapshotBinaryCodec.decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void binaryFormatIsStampedAndDecodedByContentType() {
+        MeterSnapshot snapshot = fullSnapshot();
+        Headers headers = new RecordHeaders();
+
+        byte[] data;
+        try (MeterReadingSerializer serializer = new MeterReadingSerializer(WireFormat.BINARY)) {
+            data = serializer.serialize(TOPIC, headers, snapshot);
+        }
+
+        assertThat(contentType(headers)).isEqualTo(MeterSnapshotBinaryCodec.CONTENT_TYPE);
+        assertThat(data).isEqualTo(MeterSnapshotBinaryCodec.encode(snapshot));
+        try (MeterReadingDeserializer deserializer = new MeterReadingDeserializer()) {
+            assertThat(deserializer.deserialize(TOPIC, headers, data)).isEqualTo(snapshot);
+        }
+    }
+
+    @Test
+    void jsonFormatIsStampedAndDecodedByContentType() {
+        MeterSnapshot snapshot = fullSnapshot();
+        Headers headers = new RecordHeaders();
+
+        byte[] data;
+        try (MeterReadingSerializer serializer = new MeterReadingSerializer(WireFormat.JSON)) {
+            data = serializer.serialize(TOPIC, headers, snapshot);
+        }
+
+        assertThat(contentType(headers)).isEqualTo("application/json");
+        assertThat(new String(data, StandardCharsets.UTF_8)).startsWith("{");
+        try (MeterReadingDeserializer deserializer = new MeterReadingDeserializer()) {
+            assertThat(deserializer.deserialize(TOPIC, headers, data)).isEqualTo(snapshot);
+        }
+    }
+
+    @Test
+    void recordsWithoutContentTypeAreReadAsJson() {
+        MeterSnapshot snapshot = fullSnapshot();
+
+        byte[] data;
+        try (MeterReadingSerializer serializer = new MeterReadingSerializer(WireFormat.JSON)) {
+            data = serializer.serialize(TOPIC, new RecordHeaders(), snapshot);
+        }
+
+        try (MeterReadingDeserializer deserializer = new MeterReadingDeserializer()) {
+            assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), data)).isEqualTo(snapshot);
+        }
+    }
+
+    @Test
+    void serializerReplacesAnExistingContentType() {
+        Headers headers = new RecordHeaders();
+        headers.add(MeterReadingSerializer.CONTENT_TYPE_HEADER, "text/plain".getBytes(StandardCharsets.UTF_8));
+
+        try (MeterReadingSerializer serializer = new MeterReadingSerializer(WireFormat.BINARY)) {
+            serializer.serialize(TOPIC, headers, fullSnapshot());
+        }
+
+        assertThat(headers.headers(MeterReadingSerializer.CONTENT_TYPE_HEADER)).hasSize(1);
+        assertThat(contentType(headers)).isEqualTo(MeterSnapshotBinaryCodec.CONTENT_TYPE);
+    }
+
+    // v2 only appends to the v1 layout, so a v1 record is a v2 prefix with the old version byte
+    private static byte[] v1Record(MeterSnapshot snapshot) {
+        byte[] v1 = Arrays.copyOf(MeterSnapshotBinaryCodec.encode(snapshot), MeterSnapshotBinaryCodec.V1_SIZE);
+        v1[0] = MeterSnapshotBinaryCodec.VERSION_1;
+        return v1;
+    }
+
+    private static MeterSnapshot withoutSiteConfiguration(MeterSnapshot snapshot) {
+        snapshot.setLatitude(null);
+        snapshot.setLongitude(null);
+        snapshot.setPvCapacityW(null);
+        return snapshot;
+    }
+
+    private static String contentType(Headers headers) {
+        return new String(headers.lastHeader(MeterReadingSerializer.CONTENT_TYPE_HEADER).value(),
+                StandardCharsets.UTF_8);
+    }
+
+    private static MeterSnapshot fullSnapshot() {
+        return MeterSnapshot.builder()
+                .meterId(7L)
+                .siteId(1001L)
+                .timestamp(LocalDateTime.of(2025, 6, 21, 12, 30, 15, 123_000_000))
+                .solarProductionW(3250.5)
+                .homeConsumptionW(812.25)
+                .batteryPowerW(-1500.0)
+                .gridPowerW(-938.25)
+                .totalSolarYieldKwh(12.75)
+                .totalGridImportKwh(3.5)
+                .totalGridExportKwh(6.125)
+                .totalHomeUsageKwh(9.875)
+                .batteryCapacityWh(13500.0)
+                .batteryRemainingWh(6750.0)
+                .chargingStatus(ChargingStatus.CHARGING)
+                .batteryMode(BatteryMode.AUTO)
+                .currentVoltage(230.0)
+                .currentAmps(3.53)
+                .batterySoc(50)
+                .latitude(48.137)
+                .longitude(-11.575)
+                .pvCapacityW(6400.0)
+                .build();
+    }
+}
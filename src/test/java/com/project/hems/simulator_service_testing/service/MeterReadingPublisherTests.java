@@ -0,0 +1,94 @@
+package com.project.hems.simulator_service_testing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MeterReadingPublisherTests {
+
+    private static final long SITE = 7L;
+
+    private final List<Integer> sentReadings = new ArrayList<>();
+    private final List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>();
+
+    @Test
+    void coalescedReadingIsNotOvertakenByANewerOneOfTheSameSite() {
+        MeterReadingPublisher publisher = publisher(1);
+
+        // Reading 1 takes the only permit, reading 2 waits for it
+        publisher.publish(SITE, -1, reading(1));
+        publisher.publish(SITE, -1, reading(2));
+        assertThat(publisher.getStats().getQueueDepth()).isEqualTo(1);
+
+        // The permit frees up while reading 2 is still pending; reading 3 must not go around it
+        complete(0);
+        publisher.publish(SITE, -1, reading(3));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> {
+            completeAll();
+            return publisher.getStats().getQueueDepth() == 0 && publisher.getStats().getInFlight() == 0;
+        });
+
+        synchronized (sentReadings) {
+            assertThat(sentReadings).first().isEqualTo(1);
+            assertThat(sentReadings).last().isEqualTo(3);
+            assertThat(sentReadings).isSorted().doesNotHaveDuplicates();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MeterReadingPublisher publisher(int maxInFlight) {
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, Object>> send = new CompletableFuture<>();
+            synchronized (sentReadings) {
+                sentReadings.add(((MeterSnapshot) invocation.getArgument(2)).getBatterySoc());
+                sends.add(send);
+            }
+            return send;
+        });
+
+        MeterReadingPublisher publisher = new MeterReadingPublisher(kafkaTemplate, new SimpleMeterRegistry());
+        publisher.setRawEnergyTopic("RAW_ENERGY_READINGS");
+        publisher.setRawEnergyMaxInFlight(maxInFlight);
+        publisher.init();
+        return publisher;
+    }
+
+    private void complete(int send) {
+        CompletableFuture<SendResult<String, Object>> future;
+        synchronized (sentReadings) {
+            future = sends.get(send);
+        }
+        future.complete(null);
+    }
+
+    private void completeAll() {
+        List<CompletableFuture<SendResult<String, Object>>> outstanding;
+        synchronized (sentReadings) {
+            outstanding = new ArrayList<>(sends);
+        }
+        outstanding.forEach(send -> send.complete(null));
+    }
+
+    // The SoC carries the reading's sequence number
+    private static MeterSnapshot reading(int sequence) {
+        return MeterSnapshot.builder().siteId(SITE).batterySoc(sequence).build();
+    }
+}
@@ -0,0 +1,211 @@
+package com.project.hems.simulator_service_testing.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+import com.project.hems.simulator_service_testing.profile.LoadProfileLibrary;
+import com.project.hems.simulator_service_testing.solar.SolarIrradianceModel;
+import com.project.hems.simulator_service_testing.solar.SolarTick;
+import com.project.hems.simulator_service_testing.state.MeterStateStore;
+
+/**
+ * The batch kernel behind {@link MeterSimulationStep#advanceShard} must leave
+ * every column bit-identical to the per-meter {@link MeterSimulationStep#advance}.
+ */
+class MeterSimulationStepTests {
+
+    private static final long SEED = 0x5EEDL;
+    // Midsummer dawn, then every 90 minutes through the night, so ticks see surplus, deficit and darkness
+    private static final long START_MILLIS = Instant.parse("2025-06-21T03:00:00Z").toEpochMilli();
+    private static final long STEP_MILLIS = TimeUnit.MINUTES.toMillis(90);
+    private static final int TICKS = 16;
+    private static final int SHARDS = 3;
+
+    private static final double[] CAPACITIES_WH = { 5000.0, 13500.0 };
+    private static final double[] PV_CAPACITIES_W = { 0.0, 4000.0, 15000.0 };
+
+    @TempDir
+    Path profileDir;
+
+    @Test
+    void kernelMatchesPerMeterStepWithNoiseModel() {
+        LoadProfileLibrary profiles = new LoadProfileLibrary();
+        profiles.setEnabled(false);
+        profiles.open();
+
+        assertKernelMatchesPerMeterStep(profiles);
+    }
+
+    @Test
+    void kernelMatchesPerMeterStepWithLoadProfiles() {
+        LoadProfileLibrary profiles = new LoadProfileLibrary();
+        profiles.setDirectory(profileDir.toString());
+        profiles.setSyntheticProfileCount(4);
+        profiles.open();
+        assertThat(profiles.isEmpty()).isFalse();
+
+        assertKernelMatchesPerMeterStep(profiles);
+    }
+
+    private static void assertKernelMatchesPerMeterStep(LoadProfileLibrary profiles) {
+        EnvironmentSimulator environment = new EnvironmentSimulator(new SolarIrradianceModel(), profiles);
+        EnergyPhysicsEngine engine = new EnergyPhysicsEngine();
+
+        MeterSimulationStep kernelStep = new MeterSimulationStep(engine, environment);
+        MeterSimulationStep scalarStep = new MeterSimulationStep(engine, environment);
+        scalarStep.setBatchPhysics(false);
+
+        MeterStateStore kernelStore = fleet();
+        MeterStateStore scalarStore = fleet();
+        int[][] shards = shards(kernelStore.size());
+        double deltaSeconds = TimeUnit.MILLISECONDS.toSeconds(STEP_MILLIS);
+
+        for (int tick = 1; tick <= TICKS; tick++) {
+            long tickMillis = START_MILLIS + tick * STEP_MILLIS;
+            SolarTick solar = environment.prepareSolar(tickMillis);
+
+            for (int shard = 0; shard < shards.length; shard++) {
+                kernelStep.advanceShard(kernelStore, shards[shard], solar, tickMillis, deltaSeconds,
+                        random(shard, tick), TickStageRecorder.NONE);
+
+                // One stream per shard and tick, drawn in slot order on both paths
+                SplittableRandom random = random(shard, tick);
+                for (int slot : shards[shard]) {
+                    scalarStep.advance(scalarStore, slot, solar, tickMillis, deltaSeconds, random);
+                }
+            }
+
+            assertSameColumns(kernelStore, scalarStore, tick);
+        }
+    }
+
+    private static SplittableRandom random(int shard, int tick) {
+        return new SplittableRandom(SEED ^ ((long) shard << 32) ^ tick);
+    }
+
+    private static void assertSameColumns(MeterStateStore kernel, MeterStateStore scalar, int tick) {
+        assertThat(kernel.size()).isEqualTo(scalar.size());
+
+        for (int slot = 0; slot < kernel.size(); slot++) {
+            String at = "tick " + tick + ", siteId " + kernel.getSiteId(slot) + ": ";
+
+            assertThat(scalar.getSiteId(slot)).as(at + "siteId").isEqualTo(kernel.getSiteId(slot));
+            assertThat(scalar.getTimestampMillis(slot)).as(at + "timestampMillis")
+                    .isEqualTo(kernel.getTimestampMillis(slot));
+            assertSameBits(at + "solarProductionW", kernel.getSolarProductionW(slot), scalar.getSolarProductionW(slot));
+            assertSameBits(at + "homeConsumptionW", kernel.getHomeConsumptionW(slot), scalar.getHomeConsumptionW(slot));
+            assertSameBits(at + "batteryPowerW", kernel.getBatteryPowerW(slot), scalar.getBatteryPowerW(slot));
+            assertSameBits(at + "gridPowerW", kernel.getGridPowerW(slot), scalar.getGridPowerW(slot));
+            assertSameBits(at + "totalSolarYieldKwh", kernel.getTotalSolarYieldKwh(slot),
+                    scalar.getTotalSolarYieldKwh(slot));
+            assertSameBits(at + "totalGridImportKwh", kernel.getTotalGridImportKwh(slot),
+                    scalar.getTotalGridImportKwh(slot));
+            assertSameBits(at + "totalGridExportKwh", kernel.getTotalGridExportKwh(slot),
+                    scalar.getTotalGridExportKwh(slot));
+            assertSameBits(at + "totalHomeUsageKwh", kernel.getTotalHomeUsageKwh(slot),
+                    scalar.getTotalHomeUsageKwh(slot));
+            assertSameBits(at + "batteryCapacityWh", kernel.getBatteryCapacityWh(slot),
+                    scalar.getBatteryCapacityWh(slot));
+            assertSameBits(at + "batteryRemainingWh", kernel.getBatteryRemainingWh(slot),
+                    scalar.getBatteryRemainingWh(slot));
+            assertThat(scalar.getChargingStatusOrdinal(slot)).as(at + "chargingStatus")
+                    .isEqualTo(kernel.getChargingStatusOrdinal(slot));
+            assertThat(scalar.getBatteryMode(slot)).as(at + "batteryMode").isEqualTo(kernel.getBatteryMode(slot));
+            assertThat(scalar.getBatterySoc(slot)).as(at + "batterySoc").isEqualTo(kernel.getBatterySoc(slot));
+            assertSameBits(at + "currentVoltage", kernel.getCurrentVoltage(slot), scalar.getCurrentVoltage(slot));
+            assertSameBits(at + "currentAmps", kernel.getCurrentAmps(slot), scalar.getCurrentAmps(slot));
+            assertThat(scalar.getSolarRegion(slot)).as(at + "solarRegion").isEqualTo(kernel.getSolarRegion(slot));
+            assertThat(scalar.getLoadProfile(slot)).as(at + "loadProfile").isEqualTo(kernel.getLoadProfile(slot));
+            assertThat(scalar.getLoadPhaseMinutes(slot)).as(at + "loadPhaseMinutes")
+                    .isEqualTo(kernel.getLoadPhaseMinutes(slot));
+            assertSameBits(at + "loadScale", kernel.getLoadScale(slot), scalar.getLoadScale(slot));
+        }
+    }
+
+    private static void assertSameBits(String column, double kernel, double scalar) {
+        assertThat(Double.doubleToRawLongBits(scalar)).as(column + " (kernel %s, scalar %s)", kernel, scalar)
+                .isEqualTo(Double.doubleToRawLongBits(kernel));
+    }
+
+    /**
+     * Every combination of capacity, fill level, charging status (including
+     * none), battery mode (including none) and PV size, plus zero-capacity
+     * batteries with and without charge.
+     */
+    private static MeterStateStore fleet() {
+        MeterStateStore store = new MeterStateStore();
+        long siteId = 1;
+
+        ChargingStatus[] statuses = Arrays.copyOf(ChargingStatus.values(), ChargingStatus.values().length + 1);
+        BatteryMode[] modes = Arrays.copyOf(BatteryMode.values(), BatteryMode.values().length + 1);
+
+        for (double capacity : CAPACITIES_WH) {
+            for (double fill : new double[] { 0.0, 0.5, 1.0 }) {
+                for (ChargingStatus status : statuses) {
+                    for (BatteryMode mode : modes) {
+                        for (double pvCapacity : PV_CAPACITIES_W) {
+                            store.upsert(meter(siteId++, capacity, capacity * fill, status, mode, pvCapacity));
+                        }
+                    }
+                }
+            }
+        }
+
+        for (ChargingStatus status : statuses) {
+            store.upsert(meter(siteId++, 0.0, 0.0, status, BatteryMode.AUTO, 15000.0));
+            store.upsert(meter(siteId++, 0.0, 500.0, status, BatteryMode.AUTO, 15000.0));
+        }
+        return store;
+    }
+
+    private static MeterSnapshot meter(long siteId, double capacityWh, double remainingWh, ChargingStatus status,
+            BatteryMode mode, double pvCapacityW) {
+        return MeterSnapshot.builder()
+                .siteId(siteId)
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(START_MILLIS), ZoneId.systemDefault()))
+                .batteryCapacityWh(capacityWh)
+                .batteryRemainingWh(remainingWh)
+                .chargingStatus(status)
+                .batteryMode(mode)
+                .totalSolarYieldKwh(siteId * 0.125)
+                .totalGridImportKwh(siteId * 0.25)
+                .totalGridExportKwh(siteId * 0.0625)
+                .totalHomeUsageKwh(siteId * 0.5)
+                // Alternate between two solar regions
+                .latitude(siteId % 2 == 0 ? 48.1 : 53.6)
+                .longitude(siteId % 2 == 0 ? 11.6 : 10.0)
+                .pvCapacityW(pvCapacityW)
+                .build();
+    }
+
+    // Uneven, interleaved shards so the per-thread kernel scratch is reused at different sizes
+    private static int[][] shards(int fleetSize) {
+        int[] sizes = new int[SHARDS];
+        for (int slot = 0; slot < fleetSize; slot++) {
+            sizes[slot % SHARDS == 0 ? 0 : (slot % 5 == 0 ? 1 : 2)]++;
+        }
+        int[][] shards = new int[SHARDS][];
+        for (int shard = 0; shard < SHARDS; shard++) {
+            shards[shard] = new int[sizes[shard]];
+        }
+        int[] fill = new int[SHARDS];
+        for (int slot = 0; slot < fleetSize; slot++) {
+            int shard = slot % SHARDS == 0 ? 0 : (slot % 5 == 0 ? 1 : 2);
+            shards[shard][fill[shard]++] = slot;
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,131 @@
+package com.project.hems.simulator_service_testing.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+class EnergyJournalTests {
+
+    // 16 byte header, 40 bytes per meter, 4 byte commit marker
+    private static final int FRAME_BYTES = 16 + 3 * 40 + 4;
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void replaysOnlyCommittedFramesAcrossSegmentRoll() throws IOException {
+        MeterStateStore store = storeWithTimestamps(0L, 0L, 0L);
+
+        // A segment holds two frames of this fleet, so the third frame rolls
+        EnergyJournal journal = openJournal();
+        appendTick(journal, store, 1_000L, 1.0);
+        appendTick(journal, store, 2_000L, 2.0);
+        assertThat(segments()).hasSize(1);
+        appendTick(journal, store, 3_000L, 3.0);
+        appendTick(journal, store, 4_000L, 4.0);
+        journal.close();
+
+        // The roll compacted the first segment away; the last frame lost its commit marker
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        truncate(segments.get(0), 2L * FRAME_BYTES - 4);
+
+        MeterStateStore restored = storeWithTimestamps(500L, 500L, 500L);
+        EnergyJournal reopened = openJournal();
+        assertThat(reopened.replayInto(restored)).isEqualTo(3);
+
+        for (long site = 1; site <= 3; site++) {
+            int slot = restored.slotOf(site);
+            assertThat(restored.getTimestampMillis(slot)).isEqualTo(3_000L);
+            assertThat(restored.getTotalSolarYieldKwh(slot)).isEqualTo(3.0 * site);
+            assertThat(restored.getTotalGridImportKwh(slot)).isEqualTo(3.0 * site + 0.1);
+            assertThat(restored.getTotalGridExportKwh(slot)).isEqualTo(3.0 * site + 0.2);
+            assertThat(restored.getTotalHomeUsageKwh(slot)).isEqualTo(3.0 * site + 0.3);
+        }
+        reopened.close();
+    }
+
+    @Test
+    void appliesOnlyEntriesNewerThanTheStore() throws IOException {
+        EnergyJournal journal = openJournal();
+        appendTick(journal, storeWithTimestamps(0L, 0L, 0L), 3_000L, 3.0);
+        journal.close();
+
+        // Site 1 is behind the journal, site 2 ahead of it and site 3 at the same tick
+        MeterStateStore restored = storeWithTimestamps(1_000L, 5_000L, 3_000L);
+        EnergyJournal reopened = openJournal();
+        assertThat(reopened.replayInto(restored)).isEqualTo(1);
+
+        assertThat(restored.getTotalSolarYieldKwh(restored.slotOf(1L))).isEqualTo(3.0);
+        assertThat(restored.getTimestampMillis(restored.slotOf(1L))).isEqualTo(3_000L);
+        assertThat(restored.getTotalSolarYieldKwh(restored.slotOf(2L))).isZero();
+        assertThat(restored.getTimestampMillis(restored.slotOf(2L))).isEqualTo(5_000L);
+        assertThat(restored.getTotalSolarYieldKwh(restored.slotOf(3L))).isZero();
+        assertThat(restored.getTimestampMillis(restored.slotOf(3L))).isEqualTo(3_000L);
+
+        // Pending entries are dropped after the first replay
+        assertThat(reopened.replayInto(storeWithTimestamps(0L, 0L, 0L))).isZero();
+        reopened.close();
+    }
+
+    private EnergyJournal openJournal() {
+        EnergyJournal journal = new EnergyJournal();
+        journal.setDirectory(journalDir.toString());
+        // Segments are then sized to two frames
+        journal.setSegmentSizeMb(0);
+        journal.open();
+        return journal;
+    }
+
+    // Site n accumulates base * n, plus 0.1, 0.2 and 0.3 for the other totals
+    private static void appendTick(EnergyJournal journal, MeterStateStore store, long tickMillis, double base) {
+        store.read(() -> {
+            for (int slot = 0; slot < store.size(); slot++) {
+                double value = base * store.getSiteId(slot);
+                store.setTotalSolarYieldKwh(slot, value);
+                store.setTotalGridImportKwh(slot, value + 0.1);
+                store.setTotalGridExportKwh(slot, value + 0.2);
+                store.setTotalHomeUsageKwh(slot, value + 0.3);
+            }
+            journal.append(store, tickMillis);
+            return null;
+        });
+    }
+
+    private static MeterStateStore storeWithTimestamps(long... timestampMillis) {
+        MeterStateStore store = new MeterStateStore();
+        for (int i = 0; i < timestampMillis.length; i++) {
+            store.upsert(MeterSnapshot.builder()
+                    .siteId(i + 1L)
+                    .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis[i]), ZoneId.systemDefault()))
+                    .build());
+        }
+        return store;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void truncate(Path segment, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+}
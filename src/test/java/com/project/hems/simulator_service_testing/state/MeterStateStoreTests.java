@@ -0,0 +1,168 @@
+package com.project.hems.simulator_service_testing.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.hems.simulator_service_testing.model.BatteryMode;
+import com.project.hems.simulator_service_testing.model.ChargingStatus;
+import com.project.hems.simulator_service_testing.model.MeterFilter;
+import com.project.hems.simulator_service_testing.model.MeterSnapshot;
+
+class MeterStateStoreTests {
+
+    private static final int SITES = 8;
+    private static final int WRITERS = 4;
+    private static final int UPDATES_PER_WRITER = 500_000;
+
+    @Test
+    void concurrentSettersKeepEachSlotInExactlyOneBucket() throws Exception {
+        MeterStateStore store = new MeterStateStore();
+        for (long site = 1; site <= SITES; site++) {
+            store.upsert(MeterSnapshot.builder().siteId(site).build());
+        }
+
+        // Writers stand in for the tick and dispatch, all hitting the same few slots and index words
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            long seed = writer;
+            done.add(writers.submit(() -> {
+                start.await();
+                SplittableRandom random = new SplittableRandom(seed);
+                return store.read(() -> {
+                    for (int i = 0; i < UPDATES_PER_WRITER; i++) {
+                        int slot = random.nextInt(SITES);
+                        switch (random.nextInt(3)) {
+                            case 0 -> store.setChargingStatus(slot, chargingStatus(random));
+                            case 1 -> store.setBatteryMode(slot, batteryMode(random));
+                            default -> store.setBatterySoc(slot, random.nextInt(101));
+                        }
+                    }
+                    return null;
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : done) {
+            writer.get();
+        }
+        writers.shutdown();
+
+        for (int slot = 0; slot < SITES; slot++) {
+            ChargingStatus status = store.getChargingStatus(slot);
+            for (ChargingStatus candidate : ChargingStatus.values()) {
+                assertThat(indexed(store, MeterFilter.builder().chargingStatuses(Set.of(candidate)).build(), slot))
+                        .as("slot %d with status %s indexed under %s", slot, status, candidate)
+                        .isEqualTo(candidate == status);
+            }
+
+            BatteryMode mode = store.getBatteryMode(slot);
+            for (BatteryMode candidate : BatteryMode.values()) {
+                assertThat(indexed(store, MeterFilter.builder().batteryModes(Set.of(candidate)).build(), slot))
+                        .as("slot %d with mode %s indexed under %s", slot, mode, candidate)
+                        .isEqualTo(candidate == mode);
+            }
+
+            int soc = store.getBatterySoc(slot);
+            for (int bucket = 0; bucket < MeterStateIndex.SOC_BUCKETS; bucket++) {
+                int low = bucket * MeterStateIndex.SOC_BUCKET_WIDTH;
+                MeterFilter filter = MeterFilter.builder().socMin(low).socMax(low).build();
+                assertThat(indexed(store, filter, slot))
+                        .as("slot %d with SoC %d indexed under bucket %d", slot, soc, bucket)
+                        .isEqualTo(bucket == MeterStateIndex.socBucket(soc));
+            }
+        }
+    }
+
+    @Test
+    void socAboveAByteIsKeptAndIndexedWhenRemainingExceedsCapacity() {
+        MeterStateStore store = new MeterStateStore();
+        // The 5000 Wh starting charge of a 2000 Wh battery
+        int slot = store.upsert(MeterSnapshot.builder()
+                .siteId(1L)
+                .batteryCapacityWh(2000.0)
+                .batteryRemainingWh(5000.0)
+                .batterySoc(250)
+                .build());
+
+        // Discharging walks through 128, the old claim marker, within one bucket; a hang fails the test
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int soc = 250; soc >= 0; soc--) {
+                store.setBatterySoc(slot, soc);
+                assertThat(store.getBatterySoc(slot)).isEqualTo(soc);
+                assertThat(store.materialize(slot).getBatterySoc()).isEqualTo(soc);
+                for (int bucket = 0; bucket < MeterStateIndex.SOC_BUCKETS; bucket++) {
+                    int low = bucket * MeterStateIndex.SOC_BUCKET_WIDTH;
+                    MeterFilter filter = MeterFilter.builder().socMin(low).socMax(low).build();
+                    assertThat(indexed(store, filter, slot))
+                            .as("SoC %d indexed under bucket %d", soc, bucket)
+                            .isEqualTo(bucket == MeterStateIndex.socBucket(soc));
+                }
+            }
+        });
+
+        store.setBatterySoc(slot, Integer.MIN_VALUE);
+        assertThat(store.getBatterySoc(slot)).isZero();
+    }
+
+    @Test
+    void insertLeavesASiteAlreadyPresent() {
+        MeterStateStore store = new MeterStateStore();
+        int slot = store.insert(MeterSnapshot.builder().siteId(1L).meterId(10L).batterySoc(40).build());
+
+        assertThat(slot).isNotEqualTo(MeterStateStore.NO_SLOT);
+        assertThat(store.insert(MeterSnapshot.builder().siteId(1L).meterId(11L).batterySoc(90).build()))
+                .isEqualTo(MeterStateStore.NO_SLOT);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.getMeterId(slot)).isEqualTo(10L);
+        assertThat(store.getBatterySoc(slot)).isEqualTo(40);
+    }
+
+    @Test
+    void insertAllLeavesSitesAlreadyPresent() {
+        MeterStateStore store = new MeterStateStore();
+        int existing = store.upsert(MeterSnapshot.builder().siteId(1L).meterId(10L).batterySoc(40).build());
+
+        List<Integer> initialized = new ArrayList<>();
+        int[] slots = store.insertAll(List.of(
+                MeterSnapshot.builder().siteId(1L).meterId(20L).batterySoc(90).build(),
+                MeterSnapshot.builder().siteId(2L).meterId(21L).batterySoc(90).build()),
+                (snapshot, slot) -> initialized.add(slot));
+
+        assertThat(slots[0]).isEqualTo(MeterStateStore.NO_SLOT);
+        assertThat(slots[1]).isNotEqualTo(MeterStateStore.NO_SLOT).isNotEqualTo(existing);
+        assertThat(initialized).containsExactly(slots[1]);
+        assertThat(store.getMeterId(existing)).isEqualTo(10L);
+        assertThat(store.getBatterySoc(existing)).isEqualTo(40);
+        assertThat(store.getMeterId(slots[1])).isEqualTo(21L);
+    }
+
+    private static boolean indexed(MeterStateStore store, MeterFilter filter, int slot) {
+        long[] candidates = store.read(() -> store.candidates(filter));
+        return (candidates[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    // Null included, as a command or upsert can clear the value
+    private static ChargingStatus chargingStatus(SplittableRandom random) {
+        int ordinal = random.nextInt(ChargingStatus.values().length + 1);
+        return ordinal == ChargingStatus.values().length ? null : ChargingStatus.values()[ordinal];
+    }
+
+    private static BatteryMode batteryMode(SplittableRandom random) {
+        int ordinal = random.nextInt(BatteryMode.values().length + 1);
+        return ordinal == BatteryMode.values().length ? null : BatteryMode.values()[ordinal];
+    }
+}